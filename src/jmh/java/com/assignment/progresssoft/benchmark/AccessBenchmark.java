@@ -0,0 +1,191 @@
+package com.assignment.progresssoft.benchmark;
+
+import com.assignment.progresssoft.controller.DocumentController;
+import com.assignment.progresssoft.dto.request.BatchPermissionRequest;
+import com.assignment.progresssoft.dto.response.AccessibleIdsResponse;
+import com.assignment.progresssoft.dto.response.SearchResponse;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.component.PermissionInterceptor;
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import com.assignment.progresssoft.service.DocumentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the permission checks, the access queries and the searches of the service layer over datasets of 1k
+ * to 1M documents with 1 to 10k users per document (see {@link Dataset}).
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="AccessBenchmark -prof gc"}; add
+ * {@code -p documents=1000 -p usersPerDocument=1} to restrict the datasets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AccessBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final int SEARCH_LIMIT = 20;
+
+    /**
+     * Number of prebuilt requests the interceptor benchmarks cycle through; a power of two.
+     */
+    private static final int READ_REQUESTS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int documents;
+
+    @Param({"1", "100", "10000"})
+    private int usersPerDocument;
+
+    private Dataset dataset;
+
+    private PermissionInterceptor interceptor;
+
+    private HandlerMethod readHandler;
+
+    private RegexPermissionInterceptor regexInterceptor;
+
+    private MockHttpServletRequest[] readRequests;
+
+    private int nextReadRequest;
+
+    private MockHttpServletResponse response;
+
+    private PermissionCheckingService permissionCheckingService;
+
+    private AclIndex aclIndex;
+
+    private DocumentService documentService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = Dataset.start(documents, usersPerDocument);
+        interceptor = dataset.bean(PermissionInterceptor.class);
+        readHandler = new HandlerMethod(dataset.bean(DocumentController.class),
+                DocumentController.class.getMethod("getDocumentById", Long.class, WebRequest.class));
+        permissionCheckingService = dataset.bean(PermissionCheckingService.class);
+        regexInterceptor = new RegexPermissionInterceptor(permissionCheckingService);
+        readRequests = new MockHttpServletRequest[READ_REQUESTS];
+        for (int i = 0; i < READ_REQUESTS; i++) {
+            readRequests[i] = Dataset.documentRequest(Dataset.USER, dataset.randomDocumentId());
+        }
+        response = new MockHttpServletResponse();
+        aclIndex = dataset.bean(AclIndex.class);
+        documentService = dataset.bean(DocumentService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    /**
+     * The READ rule of GET /documents/{id}, as run before the controller. The requests are built
+     * beforehand, so that only the interceptor is measured.
+     */
+    @Benchmark
+    public boolean interceptorPreHandle() throws Exception {
+        return interceptor.preHandle(nextReadRequest(), response, readHandler);
+    }
+
+    /**
+     * The same READ rule through the URI-matching rule chain that {@link PermissionInterceptor} replaced,
+     * as a baseline for {@link #interceptorPreHandle}.
+     */
+    @Benchmark
+    public boolean interceptorPreHandleRegex() throws Exception {
+        return regexInterceptor.preHandle(nextReadRequest(), response, readHandler);
+    }
+
+    /**
+     * A READ check answered by the ACL index once warm.
+     */
+    @Benchmark
+    public boolean hasReadPermission() {
+        return permissionCheckingService.hasReadPermission(Dataset.USER, dataset.randomDocumentId());
+    }
+
+    /**
+     * A READ check that misses the ACL index and loads the document's ACL from the database.
+     */
+    @Benchmark
+    public boolean hasReadPermissionAclMiss() {
+        long documentId = dataset.randomDocumentId();
+        aclIndex.invalidate(documentId);
+        return permissionCheckingService.hasReadPermission(Dataset.USER, documentId);
+    }
+
+    /**
+     * Lists every document of a user who can read them all.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long getAllDocuments() {
+        return documentService.getAllDocuments(Dataset.USER).count();
+    }
+
+    /**
+     * Lists the {@link Dataset#SELECTIVE_DOCUMENTS} documents of a user who can read only those: the cost
+     * should follow the user's documents, not the size of the dataset.
+     */
+    @Benchmark
+    public long getAllDocumentsSelective() {
+        return documentService.getAllDocuments(Dataset.SELECTIVE_USER).count();
+    }
+
+    /**
+     * Checks a batch of random document IDs.
+     */
+    @Benchmark
+    public AccessibleIdsResponse checkPermissionBatch() {
+        Set<Long> documentIds = new HashSet<>();
+        while (documentIds.size() < Math.min(BATCH_SIZE, dataset.documents())) {
+            documentIds.add(dataset.randomDocumentId());
+        }
+        return documentService.checkPermissionBatch(Dataset.USER, new BatchPermissionRequest(Permissions.READ, documentIds));
+    }
+
+    /**
+     * Searches for one document by name: the rarest term narrows the match down to it.
+     */
+    @Benchmark
+    public SearchResponse searchSelective() {
+        return documentService.search(Dataset.USER, "document " + dataset.randomDocumentId(), SEARCH_LIMIT, 0);
+    }
+
+    /**
+     * Searches for a term every document contains: every readable document is ranked for the top page.
+     */
+    @Benchmark
+    public SearchResponse searchBroad() {
+        return documentService.search(Dataset.USER, "document", SEARCH_LIMIT, 0);
+    }
+
+    private MockHttpServletRequest nextReadRequest() {
+        return readRequests[nextReadRequest++ & (READ_REQUESTS - 1)];
+    }
+}
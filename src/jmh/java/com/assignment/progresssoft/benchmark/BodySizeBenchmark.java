@@ -0,0 +1,92 @@
+package com.assignment.progresssoft.benchmark;
+
+import com.assignment.progresssoft.controller.DocumentController;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.component.PermissionInterceptor;
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the permission checks of {@link AccessBenchmark} on documents without a body and with an
+ * 8 MB body (see {@link Dataset}): a check reads the document's ACL and version, never its body, so
+ * both should cost the same.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="BodySizeBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BodySizeBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int documents;
+
+    @Param({"0", "8388608"})
+    private int bodySize;
+
+    private Dataset dataset;
+
+    private PermissionInterceptor interceptor;
+
+    private HandlerMethod readHandler;
+
+    private PermissionCheckingService permissionCheckingService;
+
+    private AclIndex aclIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dataset = Dataset.start(documents, 1, bodySize);
+        interceptor = dataset.bean(PermissionInterceptor.class);
+        readHandler = new HandlerMethod(dataset.bean(DocumentController.class),
+                DocumentController.class.getMethod("getDocumentById", Long.class, WebRequest.class));
+        permissionCheckingService = dataset.bean(PermissionCheckingService.class);
+        aclIndex = dataset.bean(AclIndex.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    /**
+     * The READ rule of GET /documents/{id} with the document's ACL evicted, so it is loaded from the database.
+     */
+    @Benchmark
+    public boolean interceptorPreHandleAclMiss() throws Exception {
+        long documentId = dataset.randomDocumentId();
+        aclIndex.invalidate(documentId);
+        return interceptor.preHandle(Dataset.documentRequest(Dataset.USER, documentId),
+                new MockHttpServletResponse(), readHandler);
+    }
+
+    /**
+     * A READ check that misses the ACL index and loads the document's ACL from the database.
+     */
+    @Benchmark
+    public boolean hasReadPermissionAclMiss() {
+        long documentId = dataset.randomDocumentId();
+        aclIndex.invalidate(documentId);
+        return permissionCheckingService.hasReadPermission(Dataset.USER, documentId);
+    }
+}
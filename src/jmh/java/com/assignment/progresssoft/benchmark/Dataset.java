@@ -0,0 +1,136 @@
+package com.assignment.progresssoft.benchmark;
+
+import com.assignment.progresssoft.ProgressSoftApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The application booted against an in-memory H2 database seeded with a synthetic dataset.
+ * <p>
+ * Documents get IDs {@code 1..documents}. {@code user0} can READ every document; the first documents
+ * are also readable by {@code user1..user(usersPerDocument - 1)}, as many as fit in
+ * {@link #MAX_ACL_ROWS} ACL rows, so that the larger combinations still fit in memory.
+ * {@link #SELECTIVE_USER} can READ {@link #SELECTIVE_DOCUMENTS} documents spread evenly over the IDs,
+ * whatever the number of documents. With a body size, every document references one shared body of
+ * that size, as after deduplication, and is of a file type whose body is not indexed for search.
+ * The rows are inserted before the application is ready, so the access index loads them like a
+ * restart would.
+ */
+final class Dataset implements AutoCloseable {
+
+    /**
+     * Upper bound on the ACL rows seeded, whatever the parameters.
+     */
+    static final long MAX_ACL_ROWS = 2_000_000;
+
+    static final String USER = "user0";
+
+    static final String SELECTIVE_USER = "reader";
+
+    static final int SELECTIVE_DOCUMENTS = 100;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int documents;
+
+    private Dataset(ConfigurableApplicationContext context, int documents) {
+        this.context = context;
+        this.documents = documents;
+    }
+
+    /**
+     * Boots the application and seeds its database with documents without a body.
+     *
+     * @param documents        the number of documents
+     * @param usersPerDocument the number of users granted READ on each of the first documents
+     * @return the running dataset
+     */
+    static Dataset start(int documents, int usersPerDocument) {
+        return start(documents, usersPerDocument, 0);
+    }
+
+    /**
+     * Boots the application and seeds its database.
+     *
+     * @param documents        the number of documents
+     * @param usersPerDocument the number of users granted READ on each of the first documents
+     * @param bodySize         the size in bytes of the body of every document
+     * @return the running dataset
+     */
+    static Dataset start(int documents, int usersPerDocument, int bodySize) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ProgressSoftApplication.class)
+                .listeners(new ApplicationListener<ApplicationStartedEvent>() {
+                    @Override
+                    public void onApplicationEvent(ApplicationStartedEvent event) {
+                        seed(event.getApplicationContext().getBean(JdbcTemplate.class), documents, usersPerDocument, bodySize);
+                    }
+                })
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime());
+        return new Dataset(context, documents);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Picks a document ID uniformly at random.
+     *
+     * @return an existing document ID
+     */
+    long randomDocumentId() {
+        return ThreadLocalRandom.current().nextLong(1, documents + 1);
+    }
+
+    int documents() {
+        return documents;
+    }
+
+    /**
+     * Builds a request to GET /documents/{id}, as matched by the handler mapping.
+     *
+     * @param user       the requesting user
+     * @param documentId the requested document ID
+     * @return the request
+     */
+    static MockHttpServletRequest documentRequest(String user, long documentId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/" + documentId);
+        request.addHeader("X-User", user);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, Map.of("id", Long.toString(documentId)));
+        return request;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int documents, int usersPerDocument, int bodySize) {
+        Long contentId = null;
+        if (bodySize > 0) {
+            contentId = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR document_contents_seq", Long.class);
+            jdbcTemplate.update("INSERT INTO document_contents (id, data) VALUES (?, ?)", contentId, new byte[bodySize]);
+        }
+        jdbcTemplate.update("INSERT INTO documents (id, name, file_type, content_id, content_size, content_encoding, " +
+                "content_length, version, updated_at) SELECT X, 'document ' || X, ?, ?, ?, 'NONE', ?, 0, CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, ?)", bodySize > 0 ? "bin" : "txt", contentId, bodySize, bodySize, documents);
+        long sharedDocuments = Math.min(documents, MAX_ACL_ROWS / usersPerDocument);
+        jdbcTemplate.update("INSERT INTO document_accessible_users (document_id, username, permissions) " +
+                "SELECT d.X, 'user' || u.X, 1 FROM SYSTEM_RANGE(1, ?) d CROSS JOIN SYSTEM_RANGE(0, ?) u",
+                sharedDocuments, usersPerDocument - 1);
+        jdbcTemplate.update("INSERT INTO document_accessible_users (document_id, username, permissions) " +
+                "SELECT X, ?, 1 FROM SYSTEM_RANGE(?, ?)", USER, sharedDocuments + 1, documents);
+        int selectiveDocuments = Math.min(documents, SELECTIVE_DOCUMENTS);
+        jdbcTemplate.update("INSERT INTO document_accessible_users (document_id, username, permissions) " +
+                "SELECT X * ?, ?, 1 FROM SYSTEM_RANGE(1, ?)", documents / selectiveDocuments, SELECTIVE_USER, selectiveDocuments);
+    }
+}
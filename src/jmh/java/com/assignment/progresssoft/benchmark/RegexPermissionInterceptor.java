@@ -0,0 +1,92 @@
+package com.assignment.progresssoft.benchmark;
+
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * The permission checks as they were made before handlers declared their access with
+ * {@link com.assignment.progresssoft.security.annotation.RequiresAccess}: every rule matches the method
+ * and URI with {@link String#matches}, and the document ID is parsed with {@link String#split}.
+ * Kept as the baseline of {@link AccessBenchmark#interceptorPreHandleRegex}; not used by the application.
+ */
+final class RegexPermissionInterceptor implements HandlerInterceptor {
+
+    private final PermissionCheckingService permissionCheckingService;
+
+    RegexPermissionInterceptor(PermissionCheckingService permissionCheckingService) {
+        this.permissionCheckingService = permissionCheckingService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+
+        String username = request.getHeader("X-User");
+        if (username == null || username.isBlank()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing X-User header");
+            return false;
+        }
+
+        String method = request.getMethod();
+        String path = request.getRequestURI();
+
+        // DELETE: Requires DELETE permission for specific document
+        if ("DELETE".equalsIgnoreCase(method) && path.matches("^/documents/\\d+")) {
+            Long documentId = extractDocumentId(path, response);
+            if (documentId == null) return false;
+
+            if (!permissionCheckingService.hasDeletePermission(username, documentId)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have DELETE permission");
+                return false;
+            }
+        }
+
+        // POST /{id}/grant: Requires WRITE permission
+        if ("POST".equalsIgnoreCase(method) && path.matches("^/documents/\\d+/grant$")) {
+            Long documentId = extractDocumentId(path, response);
+            if (documentId == null) return false;
+
+            if (!permissionCheckingService.hasWritePermission(username, documentId)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have WRITE permission");
+                return false;
+            }
+        }
+
+        // POST /documents: Requires CREATE permission
+        if ("POST".equalsIgnoreCase(method) && path.matches("^/documents$")) {
+            if (!permissionCheckingService.hasCreateNewPermission(username)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have WRITE permission");
+                return false;
+            }
+        }
+
+        // GET /documents: Skip check (filter handled in service layer)
+        if ("GET".equalsIgnoreCase(method) && path.matches("^/documents$")) {
+            return true;
+        }
+
+        // GET /documents/{id}: Requires READ permission
+        if ("GET".equalsIgnoreCase(method) && path.matches("^/documents/\\d+")) {
+            Long documentId = extractDocumentId(path, response);
+            if (documentId == null) return false;
+
+            if (!permissionCheckingService.hasReadPermission(username, documentId)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have READ permission");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Long extractDocumentId(String path, HttpServletResponse response) throws Exception {
+        try {
+            String[] parts = path.split("/");
+            return Long.parseLong(parts[2]);
+        } catch (Exception e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid document id");
+            return null;
+        }
+    }
+}
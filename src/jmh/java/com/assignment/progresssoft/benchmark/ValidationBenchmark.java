@@ -0,0 +1,60 @@
+package com.assignment.progresssoft.benchmark;
+
+import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.validation.UniqueUsernamesValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link UniqueUsernamesValidator#isValid} on create requests granting 1 to 10k users.
+ * <p>
+ * Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.args="ValidationBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int usersPerDocument;
+
+    private final UniqueUsernamesValidator validator = new UniqueUsernamesValidator();
+
+    private CreateDocumentRequest request;
+
+    @Setup
+    public void setUp() {
+        Set<AccessibleUser> users = new LinkedHashSet<>();
+        for (int i = 0; i < usersPerDocument; i++) {
+            users.add(new AccessibleUser("user" + i, Permissions.READ));
+        }
+        request = new CreateDocumentRequest();
+        request.setName("document");
+        request.setContent("content");
+        request.setFileType("txt");
+        request.setAccessibleUsers(users);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(request, null);
+    }
+}
@@ -0,0 +1,134 @@
+package com.assignment.progresssoft.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups: while a lookup for a key is in flight, further callers
+ * with the same key wait for its result instead of running their own.
+ * <p>
+ * The first caller runs the lookup on its own thread, so within its own transaction; callers that
+ * arrive while it runs share its value, or its exception, and give up with a
+ * {@link QueryTimeoutException} after the configured timeout. Nothing is cached: the key is forgotten
+ * as soon as the lookup completes, so a caller arriving afterwards runs a new one. A shared result
+ * may have been read before the waiting caller arrived, and shared values must not be modified.
+ * <p>
+ * Counts the lookups run ({@code documents.single.flight.queries}), the callers served by another
+ * caller's lookup ({@code documents.single.flight.saved}) and the waits that timed out
+ * ({@code documents.single.flight.timeouts}), each tagged with the name of the instance.
+ *
+ * @param <K> the lookup key; must implement {@code equals} and {@code hashCode}
+ * @param <V> the looked up value
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+
+    private final long timeoutNanos;
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter queries;
+
+    private final Counter saved;
+
+    private final Counter timeouts;
+
+    /**
+     * Constructs a coalescer for one kind of lookup.
+     *
+     * @param name          names the lookups in metrics and errors
+     * @param timeout       how long a caller waits for another caller's lookup
+     * @param meterRegistry receives the counters
+     */
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeoutNanos = timeout.toNanos();
+        this.queries = Counter.builder("documents.single.flight.queries")
+                .description("Lookups run")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.saved = Counter.builder("documents.single.flight.saved")
+                .description("Lookups answered by a concurrent identical lookup instead of a query of their own")
+                .tag("name", name)
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("documents.single.flight.timeouts")
+                .description("Callers that gave up waiting for a concurrent identical lookup")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the value for a key, running the lookup unless one for the same key is in flight.
+     *
+     * @param key    the lookup key
+     * @param lookup computes the value; may return {@code null}
+     * @return the value computed by this caller's lookup or by the one in flight
+     * @throws QueryTimeoutException if the lookup in flight did not complete within the timeout
+     */
+    public V execute(K key, Supplier<V> lookup) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running == null) {
+            return run(key, call, lookup);
+        }
+
+        try {
+            V value = running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            saved.increment();
+            return value;
+        } catch (ExecutionException e) {
+            saved.increment();
+            throw rethrow(e.getCause());
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new QueryTimeoutException("Timed out waiting for the " + name + " lookup of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrupted waiting for the " + name + " lookup of " + key);
+        }
+    }
+
+    /**
+     * Returns the number of lookups currently in flight.
+     *
+     * @return the number of distinct keys being looked up
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private V run(K key, CompletableFuture<V> call, Supplier<V> lookup) {
+        queries.increment();
+        try {
+            V value = lookup.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
@@ -0,0 +1,65 @@
+package com.assignment.progresssoft.config;
+
+import com.assignment.progresssoft.metrics.MeteredDataSource;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+
+/**
+ * Instruments the application beyond what Spring Boot measures by default: every
+ * {@link DataSource} is wrapped in a {@link MeteredDataSource}, and the {@code http.server.requests}
+ * timers are also tagged with the controller method that handled the request, since several methods
+ * can share a URI template.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Wraps the data sources so that their statements are timed and counted per request.
+     *
+     * @param meterRegistry the registry, resolved when the first data source is created
+     * @return the post-processor
+     */
+    @Bean
+    static BeanPostProcessor meteredDataSourcePostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof MeteredDataSource)) {
+                    return new MeteredDataSource(dataSource, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Adds a {@code handler} tag, e.g. {@code DocumentController.getDocumentById}, to the
+     * {@code http.server.requests} observations.
+     *
+     * @return the convention used by Spring MVC's observation filter
+     */
+    @Bean
+    public ServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                String name = handler instanceof HandlerMethod handlerMethod ?
+                        handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName() : "none";
+                return super.getLowCardinalityKeyValues(context).and(KeyValue.of("handler", name));
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.assignment.progresssoft.config;
+
+import com.assignment.progresssoft.metrics.StatementTally;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records, per document request, how many JDBC statements it executed and how long they took.
+ * <p>
+ * The statements are counted by a {@link StatementTally} open while the request is processed; the
+ * totals go to the {@code documents.db.queries} summary and the {@code documents.db.time} timer,
+ * tagged with the HTTP method and the URI template of the endpoint. The meters of each endpoint are
+ * looked up once and then kept in a concurrent map. Statements run after the request thread has
+ * returned, such as those of a streamed NDJSON listing, are not attributed to the request.
+ */
+@Component
+public class QueryMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the filter.
+     *
+     * @param meterRegistry receives the per-request meters
+     */
+    public QueryMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/documents");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementTally tally = StatementTally.open();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            tally.close();
+            meters(request).record(tally);
+        }
+    }
+
+    private EndpointMeters meters(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        String method = request.getMethod();
+        return meters.computeIfAbsent(method + " " + uri, key -> new EndpointMeters(
+                DistributionSummary.builder("documents.db.queries")
+                        .description("JDBC statements executed per request")
+                        .tags("method", method, "uri", uri)
+                        .register(meterRegistry),
+                Timer.builder("documents.db.time")
+                        .description("Time spent executing JDBC statements per request")
+                        .tags("method", method, "uri", uri)
+                        .register(meterRegistry)));
+    }
+
+    private record EndpointMeters(DistributionSummary queries, Timer time) {
+
+        void record(StatementTally tally) {
+            queries.record(tally.statements());
+            time.record(tally.nanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.assignment.progresssoft.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of document requests processed at once; the others wait, parked, for a slot.
+ * <p>
+ * On virtual threads Tomcat no longer caps concurrency at the size of its worker pool, so every
+ * accepted request would start at once and compete for CPU and for database connections, stretching
+ * how long each connection is held until requests time out waiting for the pool. A request that
+ * waits longer than {@code documents.request-limit.wait-timeout} ms gets 503 Service Unavailable.
+ * An asynchronous request keeps its slot until its response completes.
+ * Disabled when {@code documents.request-limit.max-concurrent} is {@code 0}.
+ */
+@Component
+public class RequestConcurrencyFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+
+    private final long waitTimeoutMillis;
+
+    /**
+     * Constructs the filter.
+     *
+     * @param maxConcurrent     the maximum number of requests processed at once; {@code 0} for no limit
+     * @param waitTimeoutMillis how long a request may wait for a slot
+     */
+    public RequestConcurrencyFilter(@Value("${documents.request-limit.max-concurrent:0}") int maxConcurrent,
+                                    @Value("${documents.request-limit.wait-timeout:30000}") long waitTimeoutMillis) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permits == null || !request.getRequestURI().startsWith("/documents");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            if (!permits.tryAcquire(waitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitReleasingListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of an asynchronous request, such as a {@code StreamingResponseBody} listing,
+     * once its response is complete. The async dispatch that follows is not filtered, so the permit
+     * taken on the initial dispatch is held until the body has been written.
+     */
+    private class PermitReleasingListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permits.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
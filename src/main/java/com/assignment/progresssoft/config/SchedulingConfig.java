@@ -0,0 +1,13 @@
+package com.assignment.progresssoft.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@link org.springframework.scheduling.annotation.Scheduled} background tasks,
+ * such as the compaction of the segment content store.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,57 @@
+package com.assignment.progresssoft.config;
+
+import com.assignment.progresssoft.concurrent.SingleFlight;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.security.service.PermissionCheckingService.PermissionCheck;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Declares the {@link SingleFlight} coalescers of hot lookups: documents loaded for reading, and
+ * permission checks answered by the database. Callers wait at most
+ * {@code documents.single-flight.timeout} ms for a concurrent identical lookup.
+ */
+@Configuration
+public class SingleFlightConfig {
+
+    private final Duration timeout;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs the configuration.
+     *
+     * @param timeoutMillis how long a caller waits for a concurrent identical lookup
+     * @param meterRegistry receives the counters of every coalescer
+     */
+    public SingleFlightConfig(@Value("${documents.single-flight.timeout:5000}") long timeoutMillis,
+                              MeterRegistry meterRegistry) {
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Coalesces loads of a document by ID for read-only requests.
+     *
+     * @return the coalescer, named {@code document}
+     */
+    @Bean
+    public SingleFlight<Long, Optional<Document>> documentLoads() {
+        return new SingleFlight<>("document", timeout, meterRegistry);
+    }
+
+    /**
+     * Coalesces permission checks of the same user, document and permission.
+     *
+     * @return the coalescer, named {@code permission}
+     */
+    @Bean
+    public SingleFlight<PermissionCheck, Boolean> permissionChecks() {
+        return new SingleFlight<>("permission", timeout, meterRegistry);
+    }
+}
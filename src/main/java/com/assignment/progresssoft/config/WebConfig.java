@@ -3,6 +3,7 @@ package com.assignment.progresssoft.config;
 import com.assignment.progresssoft.security.component.PermissionInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -30,13 +31,16 @@ public class WebConfig implements WebMvcConfigurer {
     /**
      * Adds the {@link PermissionInterceptor} to the interceptor registry.
      * <p>
-     * The interceptor is applied to all request paths starting with <code>/documents/</code>.
+     * The interceptor is applied to all request paths starting with <code>/documents/</code> or
+     * <code>/groups/</code>. It runs after the open-EntityManager-in-view interceptor, so documents
+     * it loads stay attached and can be reused by the controller within the same request.
      *
      * @param registry the {@link InterceptorRegistry} to register interceptors with
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(permissionInterceptor)
-                .addPathPatterns("/documents/**");
+                .addPathPatterns("/documents/**", "/groups/**")
+                .order(Ordered.LOWEST_PRECEDENCE);
     }
 }
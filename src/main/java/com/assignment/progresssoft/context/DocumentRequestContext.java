@@ -0,0 +1,145 @@
+package com.assignment.progresssoft.context;
+
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.security.cache.DocumentAcl;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Memoizes documents and ACLs loaded while serving a single HTTP request.
+ * <p>
+ * The {@link com.assignment.progresssoft.security.component.PermissionInterceptor} and the
+ * controller both need the same document; whatever one of them loads is kept in a request
+ * attribute and handed to the other instead of being fetched again. Outside of a request
+ * (background work, unit tests) every call goes straight to the loader.
+ * <p>
+ * Lookups made within a request are counted in {@code documents.request.context}, tagged with the
+ * kind of value ({@code document} or {@code acl}) and the result ({@code hit} or {@code miss}).
+ */
+@Component
+public class DocumentRequestContext {
+
+    private static final String DOCUMENTS_ATTRIBUTE = DocumentRequestContext.class.getName() + ".documents";
+    private static final String ACLS_ATTRIBUTE = DocumentRequestContext.class.getName() + ".acls";
+
+    private final Counter documentHits;
+    private final Counter documentMisses;
+    private final Counter aclHits;
+    private final Counter aclMisses;
+
+    /**
+     * Constructs the context.
+     *
+     * @param meterRegistry receives the hit and miss counters
+     */
+    public DocumentRequestContext(MeterRegistry meterRegistry) {
+        this.documentHits = counter(meterRegistry, "document", "hit");
+        this.documentMisses = counter(meterRegistry, "document", "miss");
+        this.aclHits = counter(meterRegistry, "acl", "hit");
+        this.aclMisses = counter(meterRegistry, "acl", "miss");
+    }
+
+    /**
+     * Returns the document with the given ID, loading it at most once per request.
+     *
+     * @param id     the document ID
+     * @param loader loads the document from storage
+     * @return the document, or {@code null} if it does not exist
+     */
+    public Document getDocument(Long id, Function<Long, Optional<Document>> loader) {
+        Map<Long, Optional<Document>> documents = attribute(DOCUMENTS_ATTRIBUTE);
+        if (documents == null) {
+            return loader.apply(id).orElse(null);
+        }
+        Optional<Document> document = documents.get(id);
+        if (document != null) {
+            documentHits.increment();
+        } else {
+            documentMisses.increment();
+            document = loader.apply(id);
+            documents.put(id, document);
+        }
+        return document.orElse(null);
+    }
+
+    /**
+     * Returns the document with the given ID if it was already loaded during the current request.
+     *
+     * @param id the document ID
+     * @return the document, or {@code null} if it was not loaded or does not exist
+     */
+    public Document peekDocument(Long id) {
+        Map<Long, Optional<Document>> documents = attribute(DOCUMENTS_ATTRIBUTE);
+        Optional<Document> document = documents == null ? null : documents.get(id);
+        return document == null ? null : document.orElse(null);
+    }
+
+    /**
+     * Returns the ACL of the document with the given ID, resolving it at most once per request.
+     *
+     * @param id     the document ID
+     * @param loader resolves the ACL; returns {@code null} if the document does not exist
+     * @return the ACL, or {@code null} if the document does not exist
+     */
+    public DocumentAcl getAcl(Long id, Function<Long, DocumentAcl> loader) {
+        Map<Long, Optional<DocumentAcl>> acls = attribute(ACLS_ATTRIBUTE);
+        if (acls == null) {
+            return loader.apply(id);
+        }
+        Optional<DocumentAcl> acl = acls.get(id);
+        if (acl != null) {
+            aclHits.increment();
+        } else {
+            aclMisses.increment();
+            acl = Optional.ofNullable(loader.apply(id));
+            acls.put(id, acl);
+        }
+        return acl.orElse(null);
+    }
+
+    /**
+     * Forgets everything memoized for a document, e.g. after it was modified or deleted.
+     *
+     * @param id the document ID
+     */
+    public void evict(Long id) {
+        Map<Long, Optional<Document>> documents = attribute(DOCUMENTS_ATTRIBUTE);
+        if (documents != null) {
+            documents.remove(id);
+        }
+        Map<Long, Optional<DocumentAcl>> acls = attribute(ACLS_ATTRIBUTE);
+        if (acls != null) {
+            acls.remove(id);
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String kind, String result) {
+        return Counter.builder("documents.request.context")
+                .description("Lookups of documents and ACLs memoized per request")
+                .tags("kind", kind, "result", result)
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map<Long, V> attribute(String name) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<Long, V> values = (Map<Long, V>) attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST);
+        if (values == null) {
+            values = new HashMap<>();
+            attributes.setAttribute(name, values, RequestAttributes.SCOPE_REQUEST);
+        }
+        return values;
+    }
+}
@@ -1,19 +1,52 @@
 package com.assignment.progresssoft.controller;
 
 import com.assignment.progresssoft.dto.request.BatchPermissionRequest;
+import com.assignment.progresssoft.dto.request.BulkGrantRequest;
 import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
 import com.assignment.progresssoft.dto.request.GrantPermissionRequest;
+import com.assignment.progresssoft.dto.response.AccessIndexStatsResponse;
 import com.assignment.progresssoft.dto.response.AccessibleIdsResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResponse;
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.dto.response.DocumentPageResponse;
 import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.dto.response.IngestResponse;
+import com.assignment.progresssoft.dto.response.SearchResponse;
+import com.assignment.progresssoft.enums.AccessType;
+import com.assignment.progresssoft.enums.DocumentSort;
 import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.DocumentFilter;
+import com.assignment.progresssoft.repository.DocumentVersion;
+import com.assignment.progresssoft.security.annotation.RequiresAccess;
+import com.assignment.progresssoft.service.DocumentIngestService;
 import com.assignment.progresssoft.service.DocumentService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.stream.Stream;
 
 /**
@@ -26,20 +59,32 @@ public class DocumentController {
 
     private final DocumentService documentService;
 
+    private final DocumentIngestService documentIngestService;
+
+    private final ObjectWriter ndjsonWriter;
+
     /**
      * Constructs the controller with a {@link DocumentService}.
      *
-     * @param documentService the service layer handling document operations
+     * @param documentService       the service layer handling document operations
+     * @param documentIngestService the service creating documents from NDJSON uploads
+     * @param objectMapper          the mapper used to write streamed documents
      */
-    public DocumentController(DocumentService documentService) {
+    public DocumentController(DocumentService documentService, DocumentIngestService documentIngestService,
+                              ObjectMapper objectMapper) {
         this.documentService = documentService;
+        this.documentIngestService = documentIngestService;
+        this.ndjsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
 
     /**
      * Retrieves a list of documents that the specified user has READ permission for.
      *
-     * @param username the username from the X-User header
+     * @param username   the username from the X-User header
+     * @param fileType   the file type documents must have; omitted for any
+     * @param namePrefix the start of the name documents must have; omitted for any
+     * @param sort       the order of the documents, {@code ID} by default
      * @return stream of {@link DocumentResponse} objects
      */
     @Operation(summary = "Get List of Documents for Username with READ permissions",
@@ -55,15 +100,142 @@ public class DocumentController {
     )
     @GetMapping
     public Stream<DocumentResponse> getAllUsers(
-            @RequestHeader("X-User") String username) {
-        return documentService.getAllDocuments(username);
+            @RequestHeader("X-User") String username,
+            @RequestParam(required = false) @Size(max = 255) String fileType,
+            @RequestParam(required = false) @Size(max = 255) String namePrefix,
+            @RequestParam(defaultValue = "ID") DocumentSort sort) {
+        return documentService.getAllDocuments(username, new DocumentFilter(fileType, namePrefix, sort));
     }
 
     /**
-     * Retrieves a specific document by ID.
+     * Retrieves one page of the documents that the specified user has READ permission for.
      *
-     * @param id the document ID
-     * @return {@link ResponseEntity} containing {@link DocumentResponse} or 404 if not found
+     * @param username   the username from the X-User header
+     * @param limit      the maximum number of documents in the page
+     * @param after      the {@code nextCursor} of the previous page; omitted for the first page
+     * @param afterName  the {@code nextName} of the previous page; required with {@code after} when sorting by name
+     * @param fileType   the file type documents must have; omitted for any
+     * @param namePrefix the start of the name documents must have; omitted for any
+     * @param sort       the order of the documents, {@code ID} by default
+     * @return {@link ResponseEntity} with the {@link DocumentPageResponse}, or 400 if paging by name
+     * without {@code afterName}
+     */
+    @Operation(summary = "Get a page of Documents for Username with READ permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username",
+                            required = true,
+                            example = "user1"
+                    )
+            }
+    )
+    @GetMapping(params = "limit")
+    public ResponseEntity<DocumentPageResponse> getDocumentPage(
+            @RequestHeader("X-User") String username,
+            @RequestParam @Min(1) @Max(1000) int limit,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) @Size(max = 255) String afterName,
+            @RequestParam(required = false) @Size(max = 255) String fileType,
+            @RequestParam(required = false) @Size(max = 255) String namePrefix,
+            @RequestParam(defaultValue = "ID") DocumentSort sort) {
+        try {
+            return ResponseEntity.ok(documentService.getDocumentPage(
+                    username, limit, after, afterName, new DocumentFilter(fileType, namePrefix, sort)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Searches the names and bodies of the documents that the specified user has READ permission for.
+     * Documents must contain every word of the query; the best matches come first.
+     *
+     * @param username the username from the X-User header
+     * @param q        the words to search for
+     * @param limit    the maximum number of results in the page
+     * @param offset   the {@code nextOffset} of the previous page; 0 for the first page
+     * @return {@link ResponseEntity} with the {@link SearchResponse}, 400 if the query has no searchable
+     * word, or 503 while the search index is loading
+     */
+    @Operation(summary = "Search Documents for Username with READ permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username",
+                            required = true,
+                            example = "user1"
+                    )
+            }
+    )
+    @GetMapping("/search")
+    public ResponseEntity<SearchResponse> searchDocuments(
+            @RequestHeader("X-User") String username,
+            @RequestParam @NotBlank @Size(max = 1000) String q,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(1000) int limit,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(10000) int offset) {
+        try {
+            return ResponseEntity.ok(documentService.search(username, q, limit, offset));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * Streams the documents that the specified user has READ permission for as newline-delimited JSON.
+     * Selected when the client sends {@code Accept: application/x-ndjson}; takes the same filters as the
+     * JSON listing.
+     *
+     * @param username   the username from the X-User header
+     * @param fileType   the file type documents must have; omitted for any
+     * @param namePrefix the start of the name documents must have; omitted for any
+     * @param sort       the order of the documents, {@code ID} by default
+     * @return {@link ResponseEntity} whose body writes one {@link DocumentResponse} per line
+     */
+    @Operation(summary = "Stream Documents for Username with READ permissions as NDJSON",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username",
+                            required = true,
+                            example = "user1"
+                    )
+            }
+    )
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllDocuments(
+            @RequestHeader("X-User") String username,
+            @RequestParam(required = false) @Size(max = 255) String fileType,
+            @RequestParam(required = false) @Size(max = 255) String namePrefix,
+            @RequestParam(defaultValue = "ID") DocumentSort sort) {
+        DocumentFilter filter = new DocumentFilter(fileType, namePrefix, sort);
+        StreamingResponseBody body = outputStream -> documentService.streamAllDocuments(username, filter, document -> {
+            try {
+                ndjsonWriter.writeValue(outputStream, document);
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Retrieves a specific document by ID, with its version as {@code ETag} and its modification
+     * time as {@code Last-Modified}.
+     * <p>
+     * A conditional request ({@code If-None-Match} or {@code If-Modified-Since}) for an unchanged
+     * document is answered with 304 Not Modified from the document's version alone.
+     *
+     * @param id      the document ID
+     * @param request the request, for its conditional headers
+     * @return {@link ResponseEntity} containing {@link DocumentResponse}, 404 if not found,
+     * or {@code null} once 304 Not Modified was sent
      */
     @Operation(summary = "Get Document for Username with READ permissions",
             parameters = {
@@ -77,9 +249,210 @@ public class DocumentController {
             }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<DocumentResponse> getDocumentById(@PathVariable Long id) {
+    @RequiresAccess(AccessType.READ)
+    public ResponseEntity<DocumentResponse> getDocumentById(@PathVariable Long id, WebRequest request) {
+        if (isNotModified(id, request, false)) {
+            return null;
+        }
+        Document document = documentService.getDocumentForReading(id);
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (checkNotModified(document, request, false)) {
+            return null;
+        }
+        return ResponseEntity.ok(new DocumentResponse(document.getId(), document.getName(), document.getFileType(), document.getContentLocation().getLength()));
+    }
+
+    /**
+     * Streams the body of a document. A single {@code Range} of bytes is answered with
+     * 206 Partial Content; several ranges are answered with the whole body.
+     * <p>
+     * A body stored compressed is sent as stored, with a {@code Content-Encoding}, when the whole body
+     * is requested and the client accepts that encoding; otherwise it is decompressed on the fly.
+     *
+     * <p>
+     * Carries a weak {@code ETag} from the document's version, as the bytes sent depend on the
+     * encoding; conditional requests for an unchanged document are answered with 304 Not Modified
+     * before the body is touched.
+     *
+     * @param id             the document ID
+     * @param range          the {@code Range} header, if any
+     * @param acceptEncoding the {@code Accept-Encoding} header, if any
+     * @param request        the request, for its conditional headers
+     * @return {@link ResponseEntity} whose body copies the requested bytes, 404 if not found,
+     * 416 if the range cannot be satisfied, or {@code null} once 304 Not Modified was sent
+     */
+    @Operation(summary = "Download Document content for Username with READ permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username",
+                            required = true,
+                            example = "user1"
+                    )
+            }
+    )
+    @GetMapping("/{id}/content")
+    @RequiresAccess(AccessType.READ)
+    public ResponseEntity<StreamingResponseBody> getDocumentContent(@PathVariable Long id,
+                                                                    @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                    WebRequest request) {
+        if (isNotModified(id, request, true)) {
+            return null;
+        }
+        Document document = documentService.getDocumentForReading(id);
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (checkNotModified(document, request, true)) {
+            return null;
+        }
+
+        ContentLocation location = document.getContentLocation();
+        MediaType contentType = MediaTypeFactory.getMediaType("document." + document.getFileType())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        String contentCoding = location.getEncoding().contentCoding();
+        if (contentCoding != null && range == null && accepts(acceptEncoding, contentCoding)) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_ENCODING, contentCoding)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .contentType(contentType)
+                    .contentLength(location.getSize())
+                    .body(outputStream -> documentService.streamEncodedContent(document, outputStream));
+        }
+
+        long size = location.getLength();
+        long start = 0;
+        long end = size - 1;
+        boolean partial = false;
+        if (range != null) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    partial = true;
+                }
+                if (start >= size) {
+                    throw new IllegalArgumentException("Range starts after the end of the content");
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                        .build();
+            }
+        }
+
+        long offset = start;
+        long length = end - start + 1;
+        StreamingResponseBody body = outputStream -> documentService.streamContent(document, offset, length, outputStream);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(contentType)
+                .contentLength(length);
+        if (contentCoding != null) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Answers a conditional request from the document's version, without loading the document.
+     *
+     * @return {@code true} if 304 Not Modified was sent
+     */
+    private boolean isNotModified(Long id, WebRequest request, boolean weak) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null && request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) == null) {
+            return false;
+        }
+        DocumentVersion version = documentService.getDocumentVersion(id);
+        return version != null && request.checkNotModified(eTag(version.version(), weak), version.updatedAt().toEpochMilli());
+    }
+
+    /**
+     * Checks the conditional headers against a loaded document and sets its {@code ETag} and
+     * {@code Last-Modified} headers.
+     *
+     * @return {@code true} if 304 Not Modified was sent
+     */
+    private static boolean checkNotModified(Document document, WebRequest request, boolean weak) {
+        return request.checkNotModified(eTag(document.getVersion(), weak), document.getUpdatedAt().toEpochMilli());
+    }
+
+    private static String eTag(long version, boolean weak) {
+        return (weak ? "W/\"" : "\"") + version + "\"";
+    }
+
+    /**
+     * Tells whether an {@code Accept-Encoding} header allows the given content-coding,
+     * by name or through {@code *}, with a non-zero quality.
+     */
+    private static boolean accepts(String acceptEncoding, String contentCoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase(contentCoding) && !coding.equals("*")) {
+                continue;
+            }
+            boolean rejected = false;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        rejected = Double.parseDouble(parameter.substring(2)) == 0;
+                    } catch (NumberFormatException e) {
+                        rejected = true;
+                    }
+                }
+            }
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the body of a document with the request body, which is streamed to storage.
+     * Only allowed for admin or user with WRITE access.
+     *
+     * @param id            the document ID
+     * @param body          the new body
+     * @param contentLength the {@code Content-Length} header, if any, used to decide on compression
+     * @return {@link ResponseEntity} with 204 No Content or 404 if document not found
+     * @throws IOException if the request body cannot be read
+     */
+    @Operation(summary = "Upload Document content for admin or Username with WRITE permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username or admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @PutMapping("/{id}/content")
+    @RequiresAccess(AccessType.WRITE)
+    public ResponseEntity<Void> putDocumentContent(@PathVariable Long id, InputStream body,
+                                                   @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) throws IOException {
         Document document = documentService.getDocumentById(id);
-        return document != null ? ResponseEntity.ok(new DocumentResponse(document.getName(), document.getContent(), document.getFileType())) : ResponseEntity.notFound().build();
+        if (document == null) {
+            return ResponseEntity.notFound().build();
+        }
+        documentService.replaceContent(document, body, contentLength != null ? contentLength : -1);
+        return ResponseEntity.noContent().build();
     }
 
     /**
@@ -100,11 +473,87 @@ public class DocumentController {
             }
     )
     @PostMapping
+    @RequiresAccess(AccessType.CREATE)
     public ResponseEntity<Void> createDocument(@Valid @RequestBody CreateDocumentRequest document) {
         documentService.createDocument(document);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Creates documents from a newline-delimited JSON upload, one document per line.
+     * Only allowed for "admin".
+     *
+     * @param body the upload
+     * @return {@link ResponseEntity} with the {@link IngestResponse}, or 400 if the upload is not valid JSON
+     * @throws IOException if the upload cannot be read
+     */
+    @Operation(summary = "Ingest NDJSON Documents admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @RequiresAccess(AccessType.CREATE)
+    public ResponseEntity<IngestResponse> ingestDocuments(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(documentIngestService.ingestDocuments(body));
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Reports how many distinct bodies are stored and how much storage deduplication saves.
+     * Only allowed for "admin".
+     *
+     * @return the {@link ContentStatsResponse}
+     */
+    @Operation(summary = "Content deduplication report for admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @GetMapping("/content-stats")
+    @RequiresAccess(AccessType.ADMIN)
+    public ContentStatsResponse getContentStats() {
+        return documentService.getContentStats();
+    }
+
+    /**
+     * Reports whether the user access index is loaded and the memory its bitmaps hold, per user and in total.
+     * Only allowed for "admin".
+     *
+     * @return the {@link AccessIndexStatsResponse}
+     */
+    @Operation(summary = "User access index report for admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @GetMapping("/access-index-stats")
+    @RequiresAccess(AccessType.ADMIN)
+    public AccessIndexStatsResponse getAccessIndexStats() {
+        return documentService.getAccessIndexStats();
+    }
+
     /**
      * Grants or updates permission for a user on a document.
      * Only allowed for admin or user with WRITE access.
@@ -125,6 +574,7 @@ public class DocumentController {
             }
     )
     @PostMapping("/{id}/grant")
+    @RequiresAccess(AccessType.WRITE)
     public ResponseEntity<Void>  updateDocument(@PathVariable Long id, @Valid @RequestBody GrantPermissionRequest permissionRequest) {
         Document document = documentService.getDocumentById(id);
         if(document != null ) {
@@ -135,12 +585,42 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Grants permissions to many users on many documents in one transaction.
+     * Each document is authorized on its own: admin or user with WRITE access.
+     *
+     * @param userName the username from header
+     * @param request  the documents, users and permissions to grant
+     * @return {@link BulkGrantResponse} with the outcome of every (document, user) pair, or 400 for
+     * more than {@link BulkGrantRequest#MAX_PAIRS} pairs
+     */
+    @Operation(summary = "Bulk Grant Permissions for admin or Username with WRITE permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "Username or admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @PostMapping("/grants")
+    public ResponseEntity<BulkGrantResponse> bulkGrant(@RequestHeader("X-User") String userName,
+                                                       @Valid @RequestBody BulkGrantRequest request) {
+        try {
+            return ResponseEntity.ok(documentService.grantPermissions(userName, request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
      /**
      * Checks which documents a user or admin has specific permission for.
      *
      * @param userName          the username from header
      * @param permissionRequest the permission request with document IDs
-     * @return response with list of accessible document IDs
+     * @return response with list of accessible document IDs, or 400 if the encoded IDs are not valid
      */
     @Operation(summary = "Batch Permission Check for admin or Username with requested permissions",
             parameters = {
@@ -154,8 +634,12 @@ public class DocumentController {
             }
     )
     @PostMapping("/access-check")
-    public AccessibleIdsResponse batchPermissionCheck(@RequestHeader("X-User") String userName, @Valid @RequestBody BatchPermissionRequest permissionRequest) {
-        return documentService.checkPermissionBatch(userName, permissionRequest);
+    public ResponseEntity<AccessibleIdsResponse> batchPermissionCheck(@RequestHeader("X-User") String userName, @Valid @RequestBody BatchPermissionRequest permissionRequest) {
+        try {
+            return ResponseEntity.ok(documentService.checkPermissionBatch(userName, permissionRequest));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
@@ -176,6 +660,7 @@ public class DocumentController {
             }
     )
     @DeleteMapping("/{id}")
+    @RequiresAccess(AccessType.DELETE)
     public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
         Document document = documentService.getDocumentById(id);
         if(document != null ) {
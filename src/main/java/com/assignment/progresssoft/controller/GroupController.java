@@ -0,0 +1,114 @@
+package com.assignment.progresssoft.controller;
+
+import com.assignment.progresssoft.dto.request.GroupMembersRequest;
+import com.assignment.progresssoft.dto.response.GroupMembersResponse;
+import com.assignment.progresssoft.enums.AccessType;
+import com.assignment.progresssoft.security.annotation.RequiresAccess;
+import com.assignment.progresssoft.service.GroupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for managing group membership. Only allowed for "admin".
+ * <p>
+ * Groups are granted permissions on documents through the document endpoints, by naming their
+ * principal {@code group:<name>} in place of a username.
+ */
+@RestController
+@RequestMapping("/groups")
+public class GroupController {
+
+    private final GroupService groupService;
+
+    /**
+     * Constructs the controller with a {@link GroupService}.
+     *
+     * @param groupService the service layer handling group membership
+     */
+    public GroupController(GroupService groupService) {
+        this.groupService = groupService;
+    }
+
+    /**
+     * Retrieves the members of a group.
+     *
+     * @param group the group name
+     * @return the {@link GroupMembersResponse}
+     */
+    @Operation(summary = "Get the members of a Group for admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @GetMapping("/{group}/members")
+    @RequiresAccess(AccessType.ADMIN)
+    public GroupMembersResponse getMembers(@PathVariable @Size(max = 255) String group) {
+        return groupService.getMembers(group);
+    }
+
+    /**
+     * Adds users to a group.
+     *
+     * @param group   the group name
+     * @param request the users to add
+     * @return {@link ResponseEntity} with 204 No Content, or 400 if a username is a group principal
+     */
+    @Operation(summary = "Add members to a Group for admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @PostMapping("/{group}/members")
+    @RequiresAccess(AccessType.ADMIN)
+    public ResponseEntity<Void> addMembers(@PathVariable @Size(max = 255) String group,
+                                           @Valid @RequestBody GroupMembersRequest request) {
+        try {
+            groupService.addMembers(group, request.getUsernames());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Removes a user from a group.
+     *
+     * @param group    the group name
+     * @param username the user to remove
+     * @return {@link ResponseEntity} with 204 No Content, or 404 if the user is not a member
+     */
+    @Operation(summary = "Remove a member from a Group for admin permissions",
+            parameters = {
+                    @Parameter(
+                            name = "X-User",
+                            in = ParameterIn.HEADER,
+                            description = "admin",
+                            required = true,
+                            example = "admin"
+                    )
+            }
+    )
+    @DeleteMapping("/{group}/members/{username}")
+    @RequiresAccess(AccessType.ADMIN)
+    public ResponseEntity<Void> removeMember(@PathVariable String group, @PathVariable String username) {
+        return groupService.removeMember(group, username) ?
+                ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.assignment.progresssoft.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Compact text encoding of a set of document IDs, used by {@code POST /documents/access-check}.
+ * <p>
+ * The IDs are sorted and written as the first ID followed by the gap to each next one, every value
+ * as an unsigned LEB128 varint, and the bytes are Base64url encoded without padding. Dense ID ranges
+ * take about 1.4 characters per ID instead of the 7 to 8 of a JSON array.
+ */
+public final class IdSetCodec {
+
+    private IdSetCodec() {
+    }
+
+    /**
+     * Encodes a set of IDs.
+     *
+     * @param sortedIds distinct non-negative IDs in ascending order
+     * @return the encoded set
+     */
+    public static String encode(long[] sortedIds) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(sortedIds.length + 8);
+        long previous = 0;
+        for (long id : sortedIds) {
+            long value = id - previous;
+            while ((value & ~0x7FL) != 0) {
+                bytes.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write((int) value);
+            previous = id;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a set of IDs. Repeated IDs, encoded as a gap of zero, are dropped.
+     *
+     * @param encoded the encoded set
+     * @return the distinct IDs in ascending order
+     * @throws IllegalArgumentException if {@code encoded} is not a valid encoding
+     */
+    public static long[] decode(String encoded) {
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        long[] ids = new long[bytes.length];
+        int count = 0;
+        long previous = 0;
+        int position = 0;
+        while (position < bytes.length) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == bytes.length || shift > 56) {
+                    throw new IllegalArgumentException("Truncated or oversized ID at byte " + position);
+                }
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (value == 0 && count > 0) {
+                continue;
+            }
+            long id = previous + value;
+            if (id < previous) {
+                throw new IllegalArgumentException("ID out of range at byte " + position);
+            }
+            ids[count++] = id;
+            previous = id;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
@@ -15,6 +15,8 @@ public class BatchPermissionRequest {
 
     private Set<@Valid Long> documentIds;
 
+    private String encodedDocumentIds;
+
     public BatchPermissionRequest() {
     }
 
@@ -39,17 +41,26 @@ public class BatchPermissionRequest {
         this.documentIds = documentIds;
     }
 
+    public String getEncodedDocumentIds() {
+        return encodedDocumentIds;
+    }
+
+    public void setEncodedDocumentIds(String encodedDocumentIds) {
+        this.encodedDocumentIds = encodedDocumentIds;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         BatchPermissionRequest that = (BatchPermissionRequest) o;
-        return permission == that.permission && Objects.equals(documentIds, that.documentIds);
+        return permission == that.permission && Objects.equals(documentIds, that.documentIds)
+                && Objects.equals(encodedDocumentIds, that.encodedDocumentIds);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(permission, documentIds);
+        return Objects.hash(permission, documentIds, encodedDocumentIds);
     }
 
     @Override
@@ -57,6 +68,7 @@ public class BatchPermissionRequest {
         return "BatchPermissionRequest{" +
                 "permission=" + permission +
                 ", documentIds=" + documentIds +
+                ", encodedDocumentIds='" + encodedDocumentIds + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,88 @@
+package com.assignment.progresssoft.dto.request;
+
+import com.assignment.progresssoft.enums.Permissions;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+import java.util.Set;
+
+public class BulkGrantRequest {
+
+    public static final int MAX_DOCUMENT_IDS = 10_000;
+
+    public static final int MAX_USERNAMES = 1_000;
+
+    /**
+     * Maximum number of (document, user) pairs, each of which gets a result in the response.
+     */
+    public static final int MAX_PAIRS = 100_000;
+
+    @NotEmpty
+    @Size(max = MAX_DOCUMENT_IDS)
+    private Set<@NotNull Long> documentIds;
+
+    @NotEmpty
+    @Size(max = MAX_USERNAMES)
+    private Set<@NotBlank @Size(max = 255) String> usernames;
+
+    @NotEmpty
+    private Set<@NotNull Permissions> permissions;
+
+    public BulkGrantRequest() {
+    }
+
+    public BulkGrantRequest(Set<Long> documentIds, Set<String> usernames, Set<Permissions> permissions) {
+        this.documentIds = documentIds;
+        this.usernames = usernames;
+        this.permissions = permissions;
+    }
+
+    public Set<Long> getDocumentIds() {
+        return documentIds;
+    }
+
+    public void setDocumentIds(Set<Long> documentIds) {
+        this.documentIds = documentIds;
+    }
+
+    public Set<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(Set<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public Set<Permissions> getPermissions() {
+        return permissions;
+    }
+
+    public void setPermissions(Set<Permissions> permissions) {
+        this.permissions = permissions;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkGrantRequest that = (BulkGrantRequest) o;
+        return Objects.equals(documentIds, that.documentIds) && Objects.equals(usernames, that.usernames) && Objects.equals(permissions, that.permissions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(documentIds, usernames, permissions);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkGrantRequest{" +
+                "documentIds=" + documentIds +
+                ", usernames=" + usernames +
+                ", permissions=" + permissions +
+                '}';
+    }
+}
@@ -4,6 +4,7 @@ import com.assignment.progresssoft.enums.Permissions;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 
 import java.util.Objects;
 
@@ -12,6 +13,7 @@ public class GrantPermissionRequest {
     @NotBlank
     private String username;
 
+    @NotNull
     @Enumerated(EnumType.STRING)
     private Permissions permission;
 
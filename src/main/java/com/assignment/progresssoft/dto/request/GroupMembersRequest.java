@@ -0,0 +1,49 @@
+package com.assignment.progresssoft.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+import java.util.Set;
+
+public class GroupMembersRequest {
+
+    @NotEmpty
+    private Set<@NotBlank @Size(max = 255) String> usernames;
+
+    public GroupMembersRequest() {
+    }
+
+    public GroupMembersRequest(Set<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    public Set<String> getUsernames() {
+        return usernames;
+    }
+
+    public void setUsernames(Set<String> usernames) {
+        this.usernames = usernames;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GroupMembersRequest that = (GroupMembersRequest) o;
+        return Objects.equals(usernames, that.usernames);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(usernames);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupMembersRequest{" +
+                "usernames=" + usernames +
+                '}';
+    }
+}
@@ -0,0 +1,81 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.Map;
+import java.util.Objects;
+
+public class AccessIndexStatsResponse {
+
+    private boolean ready;
+
+    private int users;
+
+    private long totalBytes;
+
+    private Map<String, Long> userBytes;
+
+    public AccessIndexStatsResponse() {
+    }
+
+    public AccessIndexStatsResponse(boolean ready, int users, long totalBytes, Map<String, Long> userBytes) {
+        this.ready = ready;
+        this.users = users;
+        this.totalBytes = totalBytes;
+        this.userBytes = userBytes;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void setReady(boolean ready) {
+        this.ready = ready;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(int users) {
+        this.users = users;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public Map<String, Long> getUserBytes() {
+        return userBytes;
+    }
+
+    public void setUserBytes(Map<String, Long> userBytes) {
+        this.userBytes = userBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AccessIndexStatsResponse that = (AccessIndexStatsResponse) o;
+        return ready == that.ready && users == that.users && totalBytes == that.totalBytes
+                && Objects.equals(userBytes, that.userBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ready, users, totalBytes, userBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessIndexStatsResponse{" +
+                "ready=" + ready +
+                ", users=" + users +
+                ", totalBytes=" + totalBytes +
+                ", userBytes=" + userBytes +
+                '}';
+    }
+}
@@ -1,11 +1,16 @@
 package com.assignment.progresssoft.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.Objects;
 import java.util.Set;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class AccessibleIdsResponse {
     private Set<Long> accessibleIds;
 
+    private String encodedAccessibleIds;
+
     public AccessibleIdsResponse() {
     }
 
@@ -13,6 +18,11 @@ public class AccessibleIdsResponse {
         this.accessibleIds = accessibleIds;
     }
 
+    public AccessibleIdsResponse(Set<Long> accessibleIds, String encodedAccessibleIds) {
+        this.accessibleIds = accessibleIds;
+        this.encodedAccessibleIds = encodedAccessibleIds;
+    }
+
     public Set<Long> getAccessibleIds() {
         return accessibleIds;
     }
@@ -21,23 +31,33 @@ public class AccessibleIdsResponse {
         this.accessibleIds = accessibleIds;
     }
 
+    public String getEncodedAccessibleIds() {
+        return encodedAccessibleIds;
+    }
+
+    public void setEncodedAccessibleIds(String encodedAccessibleIds) {
+        this.encodedAccessibleIds = encodedAccessibleIds;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         AccessibleIdsResponse that = (AccessibleIdsResponse) o;
-        return Objects.equals(accessibleIds, that.accessibleIds);
+        return Objects.equals(accessibleIds, that.accessibleIds)
+                && Objects.equals(encodedAccessibleIds, that.encodedAccessibleIds);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(accessibleIds);
+        return Objects.hash(accessibleIds, encodedAccessibleIds);
     }
 
     @Override
     public String toString() {
         return "AccessibleIdsResponse{" +
                 "accessibleIds=" + accessibleIds +
+                ", encodedAccessibleIds='" + encodedAccessibleIds + '\'' +
                 '}';
     }
 }
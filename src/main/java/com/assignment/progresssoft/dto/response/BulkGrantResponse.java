@@ -0,0 +1,59 @@
+package com.assignment.progresssoft.dto.response;
+
+import com.assignment.progresssoft.enums.GrantStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class BulkGrantResponse {
+
+    private Map<GrantStatus, Long> summary;
+
+    private List<BulkGrantResult> results;
+
+    public BulkGrantResponse() {
+    }
+
+    public BulkGrantResponse(Map<GrantStatus, Long> summary, List<BulkGrantResult> results) {
+        this.summary = summary;
+        this.results = results;
+    }
+
+    public Map<GrantStatus, Long> getSummary() {
+        return summary;
+    }
+
+    public void setSummary(Map<GrantStatus, Long> summary) {
+        this.summary = summary;
+    }
+
+    public List<BulkGrantResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkGrantResult> results) {
+        this.results = results;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkGrantResponse that = (BulkGrantResponse) o;
+        return Objects.equals(summary, that.summary) && Objects.equals(results, that.results);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(summary, results);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkGrantResponse{" +
+                "summary=" + summary +
+                ", results=" + results +
+                '}';
+    }
+}
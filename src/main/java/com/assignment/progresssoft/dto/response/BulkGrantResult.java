@@ -0,0 +1,69 @@
+package com.assignment.progresssoft.dto.response;
+
+import com.assignment.progresssoft.enums.GrantStatus;
+
+import java.util.Objects;
+
+public class BulkGrantResult {
+
+    private Long documentId;
+
+    private String username;
+
+    private GrantStatus status;
+
+    public BulkGrantResult() {
+    }
+
+    public BulkGrantResult(Long documentId, String username, GrantStatus status) {
+        this.documentId = documentId;
+        this.username = username;
+        this.status = status;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public GrantStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(GrantStatus status) {
+        this.status = status;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkGrantResult that = (BulkGrantResult) o;
+        return Objects.equals(documentId, that.documentId) && Objects.equals(username, that.username) && status == that.status;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(documentId, username, status);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkGrantResult{" +
+                "documentId=" + documentId +
+                ", username='" + username + '\'' +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,91 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.Objects;
+
+public class ContentStatsResponse {
+
+    private long contents;
+
+    private long references;
+
+    private long storedBytes;
+
+    private long savedBytes;
+
+    private long logicalBytes;
+
+    public ContentStatsResponse() {
+    }
+
+    public ContentStatsResponse(long contents, long references, long storedBytes, long savedBytes, long logicalBytes) {
+        this.contents = contents;
+        this.references = references;
+        this.storedBytes = storedBytes;
+        this.savedBytes = savedBytes;
+        this.logicalBytes = logicalBytes;
+    }
+
+    public long getContents() {
+        return contents;
+    }
+
+    public void setContents(long contents) {
+        this.contents = contents;
+    }
+
+    public long getReferences() {
+        return references;
+    }
+
+    public void setReferences(long references) {
+        this.references = references;
+    }
+
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    public void setStoredBytes(long storedBytes) {
+        this.storedBytes = storedBytes;
+    }
+
+    public long getSavedBytes() {
+        return savedBytes;
+    }
+
+    public void setSavedBytes(long savedBytes) {
+        this.savedBytes = savedBytes;
+    }
+
+    public long getLogicalBytes() {
+        return logicalBytes;
+    }
+
+    public void setLogicalBytes(long logicalBytes) {
+        this.logicalBytes = logicalBytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContentStatsResponse that = (ContentStatsResponse) o;
+        return contents == that.contents && references == that.references && storedBytes == that.storedBytes && savedBytes == that.savedBytes && logicalBytes == that.logicalBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(contents, references, storedBytes, savedBytes, logicalBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentStatsResponse{" +
+                "contents=" + contents +
+                ", references=" + references +
+                ", storedBytes=" + storedBytes +
+                ", savedBytes=" + savedBytes +
+                ", logicalBytes=" + logicalBytes +
+                '}';
+    }
+}
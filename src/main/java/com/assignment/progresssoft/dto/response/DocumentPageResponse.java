@@ -0,0 +1,109 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.List;
+import java.util.Objects;
+
+public class DocumentPageResponse {
+
+    private List<DocumentResponse> documents;
+
+    private Long nextCursor;
+
+    /**
+     * The name of the last document of the page, to pass back with {@code nextCursor} when sorting by name.
+     */
+    private String nextName;
+
+    /**
+     * The number of matching documents, reported on the first page only.
+     */
+    private Long total;
+
+    /**
+     * Whether {@code total} is exact; when {@code false}, at least {@code total} documents match.
+     */
+    private boolean totalExact;
+
+    public DocumentPageResponse() {
+    }
+
+    public DocumentPageResponse(List<DocumentResponse> documents, Long nextCursor) {
+        this.documents = documents;
+        this.nextCursor = nextCursor;
+    }
+
+    public DocumentPageResponse(List<DocumentResponse> documents, Long nextCursor, String nextName,
+                                Long total, boolean totalExact) {
+        this.documents = documents;
+        this.nextCursor = nextCursor;
+        this.nextName = nextName;
+        this.total = total;
+        this.totalExact = totalExact;
+    }
+
+    public List<DocumentResponse> getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(List<DocumentResponse> documents) {
+        this.documents = documents;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getNextName() {
+        return nextName;
+    }
+
+    public void setNextName(String nextName) {
+        this.nextName = nextName;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public void setTotalExact(boolean totalExact) {
+        this.totalExact = totalExact;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DocumentPageResponse that = (DocumentPageResponse) o;
+        return totalExact == that.totalExact && Objects.equals(documents, that.documents) &&
+                Objects.equals(nextCursor, that.nextCursor) && Objects.equals(nextName, that.nextName) &&
+                Objects.equals(total, that.total);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(documents, nextCursor, nextName, total, totalExact);
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentPageResponse{" +
+                "documents=" + documents +
+                ", nextCursor=" + nextCursor +
+                ", nextName='" + nextName + '\'' +
+                ", total=" + total +
+                ", totalExact=" + totalExact +
+                '}';
+    }
+}
@@ -4,35 +4,38 @@ import java.util.Objects;
 
 public class DocumentResponse {
 
-    private String name;
+    private Long id;
 
-    private String content;
+    private String name;
 
     private String fileType;
 
+    private long size;
+
     public DocumentResponse() {
     }
 
-    public DocumentResponse(String name, String content, String fileType) {
+    public DocumentResponse(Long id, String name, String fileType, long size) {
+        this.id = id;
         this.name = name;
-        this.content = content;
         this.fileType = fileType;
+        this.size = size;
     }
 
-    public String getName() {
-        return name;
+    public Long getId() {
+        return id;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    public void setId(Long id) {
+        this.id = id;
     }
 
-    public String getContent() {
-        return content;
+    public String getName() {
+        return name;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public void setName(String name) {
+        this.name = name;
     }
 
     public String getFileType() {
@@ -43,25 +46,34 @@ public class DocumentResponse {
         this.fileType = fileType;
     }
 
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DocumentResponse that = (DocumentResponse) o;
-        return Objects.equals(name, that.name) && Objects.equals(content, that.content) && Objects.equals(fileType, that.fileType);
+        return size == that.size && Objects.equals(id, that.id) && Objects.equals(name, that.name) && Objects.equals(fileType, that.fileType);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, content, fileType);
+        return Objects.hash(id, name, fileType, size);
     }
 
     @Override
     public String toString() {
         return "DocumentResponse{" +
-                "name='" + name + '\'' +
-                ", content='" + content + '\'' +
+                "id=" + id +
+                ", name='" + name + '\'' +
                 ", fileType='" + fileType + '\'' +
+                ", size=" + size +
                 '}';
     }
 }
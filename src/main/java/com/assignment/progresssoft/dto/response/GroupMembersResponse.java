@@ -0,0 +1,72 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.List;
+import java.util.Objects;
+
+public class GroupMembersResponse {
+
+    private String group;
+
+    /**
+     * The principal under which the group is granted permissions on documents.
+     */
+    private String principal;
+
+    private List<String> members;
+
+    public GroupMembersResponse() {
+    }
+
+    public GroupMembersResponse(String group, String principal, List<String> members) {
+        this.group = group;
+        this.principal = principal;
+        this.members = members;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setGroup(String group) {
+        this.group = group;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<String> members) {
+        this.members = members;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GroupMembersResponse that = (GroupMembersResponse) o;
+        return Objects.equals(group, that.group) && Objects.equals(principal, that.principal) &&
+                Objects.equals(members, that.members);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(group, principal, members);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupMembersResponse{" +
+                "group='" + group + '\'' +
+                ", principal='" + principal + '\'' +
+                ", members=" + members +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.Objects;
+
+public class IngestError {
+
+    private long line;
+
+    private String message;
+
+    public IngestError() {
+    }
+
+    public IngestError(long line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IngestError that = (IngestError) o;
+        return line == that.line && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(line, message);
+    }
+
+    @Override
+    public String toString() {
+        return "IngestError{" +
+                "line=" + line +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
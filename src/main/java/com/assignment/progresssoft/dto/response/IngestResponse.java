@@ -0,0 +1,68 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.List;
+import java.util.Objects;
+
+public class IngestResponse {
+
+    private long ingested;
+
+    private long rejected;
+
+    private List<IngestError> errors;
+
+    public IngestResponse() {
+    }
+
+    public IngestResponse(long ingested, long rejected, List<IngestError> errors) {
+        this.ingested = ingested;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    public long getIngested() {
+        return ingested;
+    }
+
+    public void setIngested(long ingested) {
+        this.ingested = ingested;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<IngestError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<IngestError> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IngestResponse that = (IngestResponse) o;
+        return ingested == that.ingested && rejected == that.rejected && Objects.equals(errors, that.errors);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ingested, rejected, errors);
+    }
+
+    @Override
+    public String toString() {
+        return "IngestResponse{" +
+                "ingested=" + ingested +
+                ", rejected=" + rejected +
+                ", errors=" + errors +
+                '}';
+    }
+}
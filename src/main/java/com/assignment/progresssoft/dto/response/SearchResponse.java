@@ -0,0 +1,68 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.List;
+import java.util.Objects;
+
+public class SearchResponse {
+
+    private long total;
+
+    private List<SearchResult> results;
+
+    private Integer nextOffset;
+
+    public SearchResponse() {
+    }
+
+    public SearchResponse(long total, List<SearchResult> results, Integer nextOffset) {
+        this.total = total;
+        this.results = results;
+        this.nextOffset = nextOffset;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<SearchResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<SearchResult> results) {
+        this.results = results;
+    }
+
+    public Integer getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(Integer nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchResponse that = (SearchResponse) o;
+        return total == that.total && Objects.equals(results, that.results) && Objects.equals(nextOffset, that.nextOffset);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(total, results, nextOffset);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResponse{" +
+                "total=" + total +
+                ", results=" + results +
+                ", nextOffset=" + nextOffset +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package com.assignment.progresssoft.dto.response;
+
+import java.util.Objects;
+
+public class SearchResult {
+
+    private Long id;
+
+    private String name;
+
+    private String fileType;
+
+    private long size;
+
+    private float score;
+
+    public SearchResult() {
+    }
+
+    public SearchResult(DocumentResponse document, float score) {
+        this(document.getId(), document.getName(), document.getFileType(), document.getSize(), score);
+    }
+
+    public SearchResult(Long id, String name, String fileType, long size, float score) {
+        this.id = id;
+        this.name = name;
+        this.fileType = fileType;
+        this.size = size;
+        this.score = score;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public float getScore() {
+        return score;
+    }
+
+    public void setScore(float score) {
+        this.score = score;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchResult that = (SearchResult) o;
+        return size == that.size && Float.compare(score, that.score) == 0 && Objects.equals(id, that.id) &&
+                Objects.equals(name, that.name) && Objects.equals(fileType, that.fileType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, fileType, size, score);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", fileType='" + fileType + '\'' +
+                ", size=" + size +
+                ", score=" + score +
+                '}';
+    }
+}
@@ -0,0 +1,12 @@
+package com.assignment.progresssoft.enums;
+
+public enum AccessType {
+    CREATE,
+    READ,
+    WRITE,
+    DELETE,
+    /**
+     * Administration of the service as a whole, e.g. its reports and groups; not tied to a document.
+     */
+    ADMIN
+}
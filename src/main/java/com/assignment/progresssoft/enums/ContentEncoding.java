@@ -0,0 +1,24 @@
+package com.assignment.progresssoft.enums;
+
+/**
+ * Encoding of a document body at rest.
+ */
+public enum ContentEncoding {
+    NONE(null),
+    DEFLATE("deflate");
+
+    private final String contentCoding;
+
+    ContentEncoding(String contentCoding) {
+        this.contentCoding = contentCoding;
+    }
+
+    /**
+     * Returns the HTTP content-coding under which the stored bytes can be sent as they are.
+     *
+     * @return the {@code Content-Encoding} value, or {@code null} for {@link #NONE}
+     */
+    public String contentCoding() {
+        return contentCoding;
+    }
+}
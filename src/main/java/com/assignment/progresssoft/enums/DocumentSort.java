@@ -0,0 +1,10 @@
+package com.assignment.progresssoft.enums;
+
+/**
+ * Orders of a document listing. Both are ascending and end with the document ID, so that every
+ * document has a unique position from which the next page is requested.
+ */
+public enum DocumentSort {
+    ID,
+    NAME
+}
@@ -0,0 +1,9 @@
+package com.assignment.progresssoft.enums;
+
+public enum GrantStatus {
+    GRANTED,
+    UPDATED,
+    UNCHANGED,
+    DOCUMENT_NOT_FOUND,
+    FORBIDDEN
+}
@@ -1,7 +1,62 @@
 package com.assignment.progresssoft.enums;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Document permissions. Each permission owns one bit, so any combination fits in a single
+ * {@code int} mask stored on one ACL row.
+ */
 public enum Permissions {
-    READ,
-    WRITE,
-    DELETE
+    READ(1),
+    WRITE(1 << 1),
+    DELETE(1 << 2);
+
+    private final int mask;
+
+    Permissions(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Returns the bit of this permission. The value is persisted and must never change.
+     *
+     * @return the permission bit
+     */
+    public int mask() {
+        return mask;
+    }
+
+    /**
+     * Combines permissions into a bit mask.
+     *
+     * @param permissions the permissions; may be {@code null}
+     * @return the combined mask, {@code 0} for none
+     */
+    public static int toMask(Collection<Permissions> permissions) {
+        int mask = 0;
+        if (permissions != null) {
+            for (Permissions permission : permissions) {
+                mask |= permission.mask;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Expands a bit mask into the permissions it contains.
+     *
+     * @param mask the permission mask
+     * @return the permissions set in the mask
+     */
+    public static Set<Permissions> fromMask(int mask) {
+        Set<Permissions> permissions = EnumSet.noneOf(Permissions.class);
+        for (Permissions permission : values()) {
+            if ((mask & permission.mask) != 0) {
+                permissions.add(permission);
+            }
+        }
+        return permissions;
+    }
 }
@@ -0,0 +1,79 @@
+package com.assignment.progresssoft.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every JDBC statement executed through the wrapped data source, whether issued by Hibernate
+ * or by a {@link org.springframework.jdbc.core.JdbcTemplate}.
+ * <p>
+ * Each {@code execute*} call, including {@code executeBatch}, is recorded into the
+ * {@code documents.db.statements} timer and into the {@link StatementTally} open on the calling
+ * thread. Connections and statements are wrapped in JDK proxies; only the execute calls are timed,
+ * and the timer records into striped counters, so no lock is taken.
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+
+    private final Timer statements;
+
+    /**
+     * Wraps a data source.
+     *
+     * @param target        the data source handing out the connections
+     * @param meterRegistry receives the statement timer
+     */
+    public MeteredDataSource(DataSource target, MeterRegistry meterRegistry) {
+        super(target);
+        this.statements = Timer.builder("documents.db.statements")
+                .description("Execution time of JDBC statements")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return (Connection) metered(Connection.class, super.getConnection(), null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return (Connection) metered(Connection.class, super.getConnection(username, password), null);
+    }
+
+    /**
+     * Wraps a connection, or a statement together with the SQL it was prepared with, if any.
+     */
+    private Object metered(Class<?> type, Object target, String preparedSql) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            boolean timed = target instanceof Statement && method.getName().startsWith("execute");
+            long start = timed ? System.nanoTime() : 0L;
+            Object value;
+            try {
+                value = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (timed) {
+                    long nanos = System.nanoTime() - start;
+                    statements.record(nanos, TimeUnit.NANOSECONDS);
+                    StatementTally.record(nanos, args != null && args[0] instanceof String sql ? sql : preparedSql);
+                }
+            }
+            Class<?> returnType = method.getReturnType();
+            if (target instanceof Connection && value instanceof Statement && returnType.isInterface()) {
+                return metered(returnType, value, args != null && args[0] instanceof String sql ? sql : null);
+            }
+            return value;
+        };
+        return Proxy.newProxyInstance(MeteredDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
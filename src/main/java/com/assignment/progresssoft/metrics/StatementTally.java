@@ -0,0 +1,106 @@
+package com.assignment.progresssoft.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the JDBC statements executed by the current thread while the tally is open, and the time
+ * spent executing them.
+ * <p>
+ * {@link MeteredDataSource} records every statement into the open tallies of the executing thread.
+ * Tallies nest: a statement is recorded into the innermost one and every tally that encloses it. A
+ * tally is only updated by the thread that opened it, so recording is a few plain field updates.
+ * A tally opened with {@link #capture()} also keeps the SQL of every statement, for tests.
+ */
+public final class StatementTally implements AutoCloseable {
+
+    private static final ThreadLocal<StatementTally> CURRENT = new ThreadLocal<>();
+
+    private final StatementTally enclosing;
+
+    private final List<String> sql;
+
+    private int statements;
+
+    private long nanos;
+
+    private StatementTally(StatementTally enclosing, List<String> sql) {
+        this.enclosing = enclosing;
+        this.sql = sql;
+    }
+
+    /**
+     * Starts counting the statements of the current thread.
+     *
+     * @return the tally, to be closed by the same thread
+     */
+    public static StatementTally open() {
+        return push(null);
+    }
+
+    /**
+     * Starts counting the statements of the current thread and keeping their SQL.
+     *
+     * @return the tally, to be closed by the same thread
+     */
+    public static StatementTally capture() {
+        return push(new ArrayList<>());
+    }
+
+    private static StatementTally push(List<String> sql) {
+        StatementTally tally = new StatementTally(CURRENT.get(), sql);
+        CURRENT.set(tally);
+        return tally;
+    }
+
+    static void record(long nanos, String statement) {
+        for (StatementTally tally = CURRENT.get(); tally != null; tally = tally.enclosing) {
+            tally.statements++;
+            tally.nanos += nanos;
+            if (tally.sql != null) {
+                tally.sql.add(statement == null ? "(batch)" : statement);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of statements executed so far.
+     *
+     * @return the statement count
+     */
+    public int statements() {
+        return statements;
+    }
+
+    /**
+     * Returns the time spent executing statements so far.
+     *
+     * @return the execution time in nanoseconds
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the SQL of the statements executed so far, in order.
+     *
+     * @return the statements; empty unless the tally was opened with {@link #capture()}
+     */
+    public List<String> sql() {
+        return sql == null ? List.of() : List.copyOf(sql);
+    }
+
+    /**
+     * Stops counting; the enclosing tally, if any, becomes current again.
+     */
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            if (enclosing == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(enclosing);
+            }
+        }
+    }
+}
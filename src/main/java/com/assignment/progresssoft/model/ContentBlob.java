@@ -0,0 +1,86 @@
+package com.assignment.progresssoft.model;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * A distinct document body, keyed by the SHA-256 of its decoded bytes, and the number of
+ * documents referring to it.
+ * <p>
+ * The table is read and written by
+ * {@link com.assignment.progresssoft.storage.DeduplicatingContentStore}; the mapping defines its schema.
+ * Documents keep a copy of the location, so reading a body never joins this table.
+ */
+@Entity
+@Table(name = "content_blobs",
+        indexes = @Index(name = "idx_content_blobs_segment", columnList = "content_segment, content_offset"))
+public class ContentBlob {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String hash;
+
+    @Embedded
+    @AttributeOverride(name = "hash", column = @Column(name = "content_hash", length = 64, insertable = false, updatable = false))
+    private ContentLocation location;
+
+    @Column(name = "ref_count", nullable = false)
+    private long refCount;
+
+    public ContentBlob() {
+    }
+
+    public ContentBlob(ContentLocation location, long refCount) {
+        this.hash = location.getHash();
+        this.location = location;
+        this.refCount = refCount;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public ContentLocation getLocation() {
+        return location;
+    }
+
+    public void setLocation(ContentLocation location) {
+        this.location = location;
+    }
+
+    public long getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(long refCount) {
+        this.refCount = refCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContentBlob that = (ContentBlob) o;
+        return Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentBlob{" +
+                "hash=" + hash +
+                ", location=" + location +
+                ", refCount=" + refCount +
+                '}';
+    }
+}
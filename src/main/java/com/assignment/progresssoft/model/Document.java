@@ -2,42 +2,67 @@ package com.assignment.progresssoft.model;
 
 
 import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 
+import java.time.Instant;
 import java.util.Objects;
 import java.util.Set;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_documents_content_segment", columnList = "content_segment, content_offset"),
+        @Index(name = "idx_documents_file_type_name", columnList = "file_type, name"),
+        @Index(name = "idx_documents_name", columnList = "name")
+})
 public class Document {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
     private String name;
 
-    @NotBlank
-    private String content;
+    /**
+     * Where the body is kept by the {@link com.assignment.progresssoft.storage.ContentStore}, and its size.
+     * The body itself is never loaded with the document.
+     */
+    @Embedded
+    private ContentLocation contentLocation = new ContentLocation();
 
     @NotBlank
     private String fileType;
 
+    /**
+     * Incremented on every change of the document, its body or its ACL; the document's ETag.
+     * JDBC writes to the ACL bump it through {@link com.assignment.progresssoft.repository.DocumentRepository#touchDocuments}.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(
             name = "document_accessible_users",
-            joinColumns = @JoinColumn(name = "document_id")
+            joinColumns = @JoinColumn(name = "document_id"),
+            indexes = @Index(name = "idx_document_accessible_users_username", columnList = "username, document_id, permissions"),
+            uniqueConstraints = @UniqueConstraint(
+                    name = "uk_document_accessible_users_document_username", columnNames = {"document_id", "username"})
     )
     private Set<AccessibleUser> accessibleUsers;
 
     public Document() {
     }
 
-    public Document(String name, String content, String fileType, Set<AccessibleUser> accessibleUsers) {
+    public Document(String name, String fileType, Set<AccessibleUser> accessibleUsers) {
         this.name = name;
-        this.content = content;
         this.fileType = fileType;
         this.accessibleUsers = accessibleUsers;
     }
@@ -58,12 +83,12 @@ public class Document {
         this.name = name;
     }
 
-    public String getContent() {
-        return content;
+    public ContentLocation getContentLocation() {
+        return contentLocation;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public void setContentLocation(ContentLocation contentLocation) {
+        this.contentLocation = contentLocation;
     }
 
     public String getFileType() {
@@ -74,6 +99,22 @@ public class Document {
         this.fileType = fileType;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     public Set<AccessibleUser> getAccessibleUsers() {
         return accessibleUsers;
     }
@@ -82,17 +123,23 @@ public class Document {
         this.accessibleUsers = accessibleUsers;
     }
 
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Document document = (Document) o;
-        return Objects.equals(id, document.id) && Objects.equals(name, document.name) && Objects.equals(content, document.content) && Objects.equals(fileType, document.fileType) && Objects.equals(accessibleUsers, document.accessibleUsers);
+        return Objects.equals(id, document.id) && Objects.equals(name, document.name) && Objects.equals(fileType, document.fileType) && Objects.equals(accessibleUsers, document.accessibleUsers);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, content, fileType, accessibleUsers);
+        return Objects.hash(id, name, fileType, accessibleUsers);
     }
 
     @Override
@@ -100,8 +147,10 @@ public class Document {
         return "Document{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
-                ", content='" + content + '\'' +
                 ", fileType='" + fileType + '\'' +
+                ", contentLocation=" + contentLocation +
+                ", version=" + version +
+                ", updatedAt=" + updatedAt +
                 ", accessibleUsers=" + accessibleUsers +
                 '}';
     }
@@ -0,0 +1,70 @@
+package com.assignment.progresssoft.model;
+
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * Body of a {@link Document}, kept in its own table so that metadata, listing and
+ * authorization queries never read the content column.
+ * <p>
+ * The table is read and written as a stream by
+ * {@link com.assignment.progresssoft.storage.DatabaseContentStore}; the mapping defines its schema.
+ */
+@Entity
+@Table(name = "document_contents")
+public class DocumentContent {
+
+    @Id
+    @SequenceGenerator(name = "document_contents_seq", sequenceName = "document_contents_seq", allocationSize = 1)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "document_contents_seq")
+    private Long id;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    public DocumentContent() {
+    }
+
+    public DocumentContent(byte[] data) {
+        this.data = data;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DocumentContent that = (DocumentContent) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "DocumentContent{" +
+                "id=" + id +
+                ", length=" + (data == null ? 0 : data.length) +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.assignment.progresssoft.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Membership of a user in a group. A group is granted permissions on documents like a user, under
+ * the principal {@code group:<name>}, and its members hold them.
+ * <p>
+ * The table is read and written by
+ * {@link com.assignment.progresssoft.repository.GroupMemberJdbcRepository}; the mapping defines its schema.
+ * The primary key serves the members of a group, {@code idx_group_members_username} the groups of a user.
+ */
+@Entity
+@Table(name = "group_members",
+        indexes = @Index(name = "idx_group_members_username", columnList = "username, group_name"))
+@IdClass(GroupMember.Key.class)
+public class GroupMember {
+
+    @Id
+    @Column(name = "group_name", nullable = false)
+    private String groupName;
+
+    @Id
+    @Column(nullable = false)
+    private String username;
+
+    public GroupMember() {
+    }
+
+    public GroupMember(String groupName, String username) {
+        this.groupName = groupName;
+        this.username = username;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public void setGroupName(String groupName) {
+        this.groupName = groupName;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GroupMember that = (GroupMember) o;
+        return Objects.equals(groupName, that.groupName) && Objects.equals(username, that.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(groupName, username);
+    }
+
+    @Override
+    public String toString() {
+        return "GroupMember{" +
+                "groupName='" + groupName + '\'' +
+                ", username='" + username + '\'' +
+                '}';
+    }
+
+    /**
+     * The primary key of a membership.
+     */
+    public static class Key implements Serializable {
+
+        private String groupName;
+
+        private String username;
+
+        public Key() {
+        }
+
+        public Key(String groupName, String username) {
+            this.groupName = groupName;
+            this.username = username;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return Objects.equals(groupName, key.groupName) && Objects.equals(username, key.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupName, username);
+        }
+    }
+}
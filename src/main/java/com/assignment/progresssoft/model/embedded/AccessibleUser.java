@@ -1,28 +1,39 @@
 package com.assignment.progresssoft.model.embedded;
 
 import com.assignment.progresssoft.enums.Permissions;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Column;
 import jakarta.persistence.Embeddable;
-import jakarta.persistence.EnumType;
-import jakarta.persistence.Enumerated;
 import jakarta.validation.constraints.NotBlank;
 
 import java.util.Objects;
+import java.util.Set;
 
+/**
+ * A user's grants on a document. All permissions of the user are kept as a bit mask
+ * (see {@link Permissions#mask()}) in a single ACL row.
+ */
 @Embeddable
 public class AccessibleUser {
 
     @NotBlank(message = "User Name cannot be empty")
+    @Column(nullable = false)
     private String username;
 
-    @Enumerated(EnumType.STRING)
-    private Permissions permission;
+    @Column(name = "permissions", nullable = false)
+    private int permissionMask;
 
     public AccessibleUser() {
     }
 
     public AccessibleUser(String username, Permissions permission) {
         this.username = username;
-        this.permission = permission;
+        this.permissionMask = permission == null ? 0 : permission.mask();
+    }
+
+    public AccessibleUser(String username, int permissionMask) {
+        this.username = username;
+        this.permissionMask = permissionMask;
     }
 
     public String getUsername() {
@@ -33,12 +44,41 @@ public class AccessibleUser {
         this.username = username;
     }
 
-    public Permissions getPermission() {
-        return permission;
+    public Set<Permissions> getPermissions() {
+        return Permissions.fromMask(permissionMask);
     }
 
+    public void setPermissions(Set<Permissions> permissions) {
+        this.permissionMask = Permissions.toMask(permissions);
+    }
+
+    /**
+     * Replaces the grants with a single permission. Accepts the single-valued
+     * {@code "permission"} JSON property.
+     *
+     * @param permission the permission to hold
+     */
     public void setPermission(Permissions permission) {
-        this.permission = permission;
+        this.permissionMask = permission == null ? 0 : permission.mask();
+    }
+
+    @JsonIgnore
+    public int getPermissionMask() {
+        return permissionMask;
+    }
+
+    public void setPermissionMask(int permissionMask) {
+        this.permissionMask = permissionMask;
+    }
+
+    /**
+     * Checks whether this user holds the given permission.
+     *
+     * @param permission the permission to check
+     * @return {@code true} if the permission bit is set
+     */
+    public boolean hasPermission(Permissions permission) {
+        return (permissionMask & permission.mask()) != 0;
     }
 
     @Override
@@ -46,19 +86,19 @@ public class AccessibleUser {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         AccessibleUser that = (AccessibleUser) o;
-        return Objects.equals(username, that.username) && permission == that.permission;
+        return Objects.equals(username, that.username) && permissionMask == that.permissionMask;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(username, permission);
+        return Objects.hash(username, permissionMask);
     }
 
     @Override
     public String toString() {
         return "AccessibleUser{" +
                 "username='" + username + '\'' +
-                ", permission=" + permission +
+                ", permissions=" + getPermissions() +
                 '}';
     }
 }
@@ -0,0 +1,143 @@
+package com.assignment.progresssoft.model.embedded;
+
+import com.assignment.progresssoft.enums.ContentEncoding;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+
+import java.util.Objects;
+
+/**
+ * Locates the body of a {@link com.assignment.progresssoft.model.Document} in the
+ * {@link com.assignment.progresssoft.storage.ContentStore} and records its size in bytes,
+ * so metadata can be served without touching the body.
+ * <p>
+ * The database store uses {@code contentId}; the segment store uses {@code segment} and {@code offset}.
+ * {@code size} counts the bytes held by the store, {@code length} the bytes of the body once decoded
+ * according to {@code encoding}. {@code hash} is the SHA-256 of the decoded body, under which
+ * identical bodies are shared; see {@link com.assignment.progresssoft.storage.DeduplicatingContentStore}.
+ */
+@Embeddable
+public class ContentLocation {
+
+    @Column(name = "content_id")
+    private Long contentId;
+
+    @Column(name = "content_segment")
+    private Integer segment;
+
+    @Column(name = "content_offset")
+    private Long offset;
+
+    @Column(name = "content_size", nullable = false)
+    private long size;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_encoding", nullable = false)
+    private ContentEncoding encoding = ContentEncoding.NONE;
+
+    @Column(name = "content_length", nullable = false)
+    private long length;
+
+    @Column(name = "content_hash", length = 64)
+    private String hash;
+
+    public ContentLocation() {
+    }
+
+    public ContentLocation(Long contentId, long size) {
+        this.contentId = contentId;
+        this.size = size;
+        this.length = size;
+    }
+
+    public ContentLocation(Integer segment, Long offset, long size) {
+        this.segment = segment;
+        this.offset = offset;
+        this.size = size;
+        this.length = size;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+
+    public Integer getSegment() {
+        return segment;
+    }
+
+    public void setSegment(Integer segment) {
+        this.segment = segment;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(Long offset) {
+        this.offset = offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public ContentEncoding getEncoding() {
+        return encoding;
+    }
+
+    public void setEncoding(ContentEncoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public void setLength(long length) {
+        this.length = length;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContentLocation that = (ContentLocation) o;
+        return size == that.size && length == that.length && Objects.equals(contentId, that.contentId) && Objects.equals(segment, that.segment) && Objects.equals(offset, that.offset) && encoding == that.encoding && Objects.equals(hash, that.hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(contentId, segment, offset, size, encoding, length, hash);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentLocation{" +
+                "contentId=" + contentId +
+                ", segment=" + segment +
+                ", offset=" + offset +
+                ", size=" + size +
+                ", encoding=" + encoding +
+                ", length=" + length +
+                ", hash=" + hash +
+                '}';
+    }
+}
@@ -0,0 +1,179 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Plain JDBC access to the {@code document_accessible_users} table for bulk ACL changes and checks.
+ * <p>
+ * Going through JPA would load every affected document and its whole ACL collection, then
+ * rewrite the collection on save. Here only the rows that change are written, in JDBC batches.
+ * Callers are responsible for keeping the {@link com.assignment.progresssoft.security.cache.AclIndex}
+ * in sync.
+ */
+@Repository
+public class AccessibleUserJdbcRepository {
+
+    /**
+     * Number of statements sent per JDBC batch, and number of values bound per {@code IN} list.
+     */
+    public static final int BATCH_SIZE = 1000;
+
+    /**
+     * Number of document IDs bound as one array by {@link #findDocumentIdsWithPermission}.
+     */
+    public static final int ID_ARRAY_SIZE = 50_000;
+
+    private static final String SELECT_MASKS = """
+            SELECT document_id, username, permissions
+            FROM document_accessible_users
+            WHERE document_id IN (:documentIds)
+              AND LOWER(username) IN (:usernames)
+            """;
+
+    private static final String SELECT_USER_IDS_WITH_PERMISSION = """
+            SELECT au.document_id
+            FROM UNNEST(CAST(? AS BIGINT ARRAY)) AS ids(id)
+            JOIN document_accessible_users au ON au.document_id = ids.id
+            WHERE au.username = ? AND BITAND(au.permissions, CAST(? AS INTEGER)) <> 0
+            """;
+
+    private static final String SELECT_PRINCIPAL_IDS_WITH_PERMISSION = """
+            SELECT DISTINCT au.document_id
+            FROM UNNEST(CAST(? AS BIGINT ARRAY)) AS ids(id)
+            JOIN document_accessible_users au ON au.document_id = ids.id
+            WHERE au.username = ANY(CAST(? AS VARCHAR ARRAY)) AND BITAND(au.permissions, CAST(? AS INTEGER)) <> 0
+            """;
+
+    private static final String SELECT_IDS_WITH_PERMISSION = """
+            SELECT DISTINCT au.document_id
+            FROM UNNEST(CAST(? AS BIGINT ARRAY)) AS ids(id)
+            JOIN document_accessible_users au ON au.document_id = ids.id
+            WHERE BITAND(au.permissions, CAST(? AS INTEGER)) <> 0
+            """;
+
+    private static final String INSERT = """
+            INSERT INTO document_accessible_users (document_id, username, permissions)
+            VALUES (?, ?, ?)
+            """;
+
+    private static final String UPDATE = """
+            UPDATE document_accessible_users
+            SET permissions = ?
+            WHERE document_id = ? AND username = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public AccessibleUserJdbcRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * Reads the current rows of the given users on the given documents, matching usernames ignoring case.
+     *
+     * @param documentIds the document IDs, at most {@link #BATCH_SIZE}
+     * @param usernames   the lower-case usernames, at most {@link #BATCH_SIZE}
+     * @return the rows, with their stored username and mask, keyed by document ID, then by lower-case
+     * username; pairs without a row are absent
+     */
+    public Map<Long, Map<String, AccessibleUser>> findPermissionMasks(Collection<Long> documentIds, Collection<String> usernames) {
+        Map<Long, Map<String, AccessibleUser>> users = new HashMap<>();
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("documentIds", documentIds)
+                .addValue("usernames", usernames);
+        namedParameterJdbcTemplate.query(SELECT_MASKS, parameters, rs -> {
+            String username = rs.getString("username");
+            users.computeIfAbsent(rs.getLong("document_id"), id -> new HashMap<>())
+                    .put(username.toLowerCase(Locale.ROOT), new AccessibleUser(username, rs.getInt("permissions")));
+        });
+        return users;
+    }
+
+    /**
+     * Filters document IDs down to those on which a user, through any of its principals, or anyone
+     * for {@code principals == null}, holds a permission.
+     * <p>
+     * The IDs are bound as a single array parameter of up to {@link #ID_ARRAY_SIZE} values and joined
+     * against the ACL table, so the statement text, and its cached plan, is the same for any number of
+     * IDs, and each ID costs one index lookup rather than a bind variable in an {@code IN} list. The
+     * principals of a user in groups are bound as a second array.
+     *
+     * @param documentIds    the document IDs to check
+     * @param permissionMask the bit mask of the permission
+     * @param principals     the user and its groups, or {@code null} to accept any user's permission
+     * @return the IDs holding the permission, in ascending order
+     */
+    public long[] findDocumentIdsWithPermission(long[] documentIds, int permissionMask, List<String> principals) {
+        String sql = principals == null ? SELECT_IDS_WITH_PERMISSION :
+                principals.size() == 1 ? SELECT_USER_IDS_WITH_PERMISSION : SELECT_PRINCIPAL_IDS_WITH_PERMISSION;
+        LongStream.Builder found = LongStream.builder();
+        for (int from = 0; from < documentIds.length; from += ID_ARRAY_SIZE) {
+            Long[] chunk = new Long[Math.min(ID_ARRAY_SIZE, documentIds.length - from)];
+            for (int i = 0; i < chunk.length; i++) {
+                chunk[i] = documentIds[from + i];
+            }
+            jdbcTemplate.query(sql, ps -> {
+                int index = 1;
+                ps.setArray(index++, ps.getConnection().createArrayOf("BIGINT", chunk));
+                if (principals != null && principals.size() == 1) {
+                    ps.setString(index++, principals.get(0));
+                } else if (principals != null) {
+                    ps.setArray(index++, ps.getConnection().createArrayOf("VARCHAR", principals.toArray()));
+                }
+                ps.setInt(index, permissionMask);
+            }, rs -> {
+                found.add(rs.getLong(1));
+            });
+        }
+        return found.build().sorted().toArray();
+    }
+
+    /**
+     * Inserts new ACL rows in batches of {@link #BATCH_SIZE}.
+     *
+     * @param grants the rows to insert; none may already exist
+     */
+    public void insert(List<Grant> grants) {
+        jdbcTemplate.batchUpdate(INSERT, grants, BATCH_SIZE, (ps, grant) -> {
+            ps.setLong(1, grant.documentId());
+            ps.setString(2, grant.username());
+            ps.setInt(3, grant.permissionMask());
+        });
+    }
+
+    /**
+     * Replaces the permission mask of existing ACL rows in batches of {@link #BATCH_SIZE}.
+     *
+     * @param grants the rows to update, with their new mask
+     */
+    public void update(List<Grant> grants) {
+        jdbcTemplate.batchUpdate(UPDATE, grants, BATCH_SIZE, (ps, grant) -> {
+            ps.setInt(1, grant.permissionMask());
+            ps.setLong(2, grant.documentId());
+            ps.setString(3, grant.username());
+        });
+    }
+
+    /**
+     * One row of {@code document_accessible_users}.
+     *
+     * @param documentId     the document ID
+     * @param username       the user the permissions are granted to
+     * @param permissionMask the permissions, as a bit mask of {@link com.assignment.progresssoft.enums.Permissions}
+     */
+    public record Grant(Long documentId, String username, int permissionMask) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.model.ContentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    /**
+     * Summarizes the distinct bodies and how much storage sharing them saves.
+     *
+     * @return the totals over all bodies
+     */
+    @Query("""
+    SELECT new com.assignment.progresssoft.dto.response.ContentStatsResponse(
+        count(b),
+        coalesce(sum(b.refCount), 0L),
+        coalesce(sum(b.location.size), 0L),
+        coalesce(sum(b.location.size * (b.refCount - 1)), 0L),
+        coalesce(sum(b.location.length * b.refCount), 0L))
+    FROM ContentBlob b
+    """)
+    ContentStatsResponse getStats();
+}
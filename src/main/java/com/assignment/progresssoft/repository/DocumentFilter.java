@@ -0,0 +1,36 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.enums.DocumentSort;
+
+/**
+ * Restricts and orders a document listing.
+ *
+ * @param fileType   the file type documents must have, or {@code null} for any
+ * @param namePrefix the start of the name documents must have (case-sensitive), or {@code null} for any
+ * @param sort       the order of the listing
+ */
+public record DocumentFilter(String fileType, String namePrefix, DocumentSort sort) {
+
+    /**
+     * Every document, by ID.
+     */
+    public static final DocumentFilter NONE = new DocumentFilter(null, null, DocumentSort.ID);
+
+    public DocumentFilter {
+        if (namePrefix != null && namePrefix.isEmpty()) {
+            namePrefix = null;
+        }
+        if (sort == null) {
+            sort = DocumentSort.ID;
+        }
+    }
+
+    /**
+     * Tells whether the filter keeps every document in ID order.
+     *
+     * @return {@code true} if there is neither a condition nor a sort by name
+     */
+    public boolean isNone() {
+        return fileType == null && namePrefix == null && sort == DocumentSort.ID;
+    }
+}
@@ -0,0 +1,65 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.enums.Permissions;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered listings of the documents on which a user holds a permission, mixed into {@link DocumentRepository}.
+ * <p>
+ * The statement holds a condition for each criterion of the {@link DocumentFilter} that is set and
+ * nothing for the others, rather than {@code (:param IS NULL OR ...)} conditions that no index can
+ * serve, so each combination of criteria gets a plan of its own. The ACL condition is served by
+ * {@code idx_document_accessible_users_username}, the file type and name conditions and the order
+ * by {@code idx_documents_file_type_name} and {@code idx_documents_name}. A user in groups matches the
+ * ACL rows of all its principals, and only then are the rows made distinct.
+ */
+public interface DocumentQueryRepository {
+
+    /**
+     * Reads one page of the documents matching a filter on which a user holds a permission.
+     * <p>
+     * Pages are keyed on the position of the last document of the previous page in the order of the
+     * filter: its ID, and its name when sorting by name.
+     *
+     * @param principals the user and its groups (see {@link com.assignment.progresssoft.security.cache.GroupMembershipCache})
+     * @param permission the permission
+     * @param filter     the conditions and the order
+     * @param after      the ID of the document after which the page starts, or {@code null} for the first page
+     * @param afterName  the name of that document; required when sorting by name from a document
+     * @param limit      the maximum number of documents
+     * @return the documents, in the order of the filter
+     */
+    List<DocumentResponse> findFilteredPage(List<String> principals, Permissions permission, DocumentFilter filter,
+                                            Long after, String afterName, int limit);
+
+    /**
+     * Counts the documents matching a filter on which a user holds a permission, up to a maximum.
+     * <p>
+     * Counting stops at {@code max}, so its cost is bounded whatever the number of matches.
+     *
+     * @param principals the user and its groups (see {@link com.assignment.progresssoft.security.cache.GroupMembershipCache})
+     * @param permission the permission
+     * @param filter     the conditions; the order is ignored
+     * @param max        the number at which counting stops
+     * @return the number of matching documents, at most {@code max}
+     */
+    long countFiltered(List<String> principals, Permissions permission, DocumentFilter filter, long max);
+
+    /**
+     * Streams the documents matching a filter on which a user holds a permission, read from an open
+     * cursor with a fetch size of {@link DocumentRepository#STREAM_FETCH_SIZE}.
+     * <p>
+     * As in {@link DocumentRepository#streamAllWithPermission}, the rows are not made distinct: a
+     * document granted to several of the principals appears once per principal, in consecutive rows.
+     * The stream must be closed.
+     *
+     * @param principals the user and its groups (see {@link com.assignment.progresssoft.security.cache.GroupMembershipCache})
+     * @param permission the permission
+     * @param filter     the conditions and the order
+     * @return the documents, in the order of the filter
+     */
+    Stream<DocumentResponse> streamFiltered(List<String> principals, Permissions permission, DocumentFilter filter);
+}
@@ -0,0 +1,104 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.enums.DocumentSort;
+import com.assignment.progresssoft.enums.Permissions;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@link DocumentQueryRepository} building plain SQL from the criteria that are set.
+ * <p>
+ * A name prefix becomes a range of names, from the prefix to the prefix followed by the highest
+ * character, which an index scan can start and stop on, and a {@code LIKE} that keeps only the names
+ * actually starting with it.
+ */
+class DocumentQueryRepositoryImpl implements DocumentQueryRepository {
+
+    private static final String FROM = """
+            FROM document_accessible_users au
+            JOIN documents d ON d.id = au.document_id
+            WHERE au.username IN (:principals)
+              AND BITAND(au.permissions, CAST(:permissionMask AS INTEGER)) <> 0
+            """;
+
+    private static final RowMapper<DocumentResponse> RESPONSE_MAPPER = (rs, rowNum) -> new DocumentResponse(
+            rs.getLong("id"), rs.getString("name"), rs.getString("file_type"), rs.getLong("content_length"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    DocumentQueryRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(Integer.parseInt(DocumentRepository.STREAM_FETCH_SIZE));
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    @Override
+    public List<DocumentResponse> findFilteredPage(List<String> principals, Permissions permission, DocumentFilter filter,
+                                                   Long after, String afterName, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder(principals.size() > 1 ? "SELECT DISTINCT" : "SELECT")
+                .append(" d.id, d.name, d.file_type, d.content_length\n");
+        where(sql, parameters, principals, permission, filter);
+        boolean byName = filter.sort() == DocumentSort.NAME;
+        if (after != null) {
+            if (byName) {
+                sql.append("  AND d.name >= :afterName AND (d.name > :afterName OR d.id > :after)\n");
+                parameters.addValue("afterName", afterName);
+            } else {
+                sql.append("  AND d.id > :after\n");
+            }
+            parameters.addValue("after", after);
+        }
+        sql.append(byName ? "ORDER BY d.name, d.id\n" : "ORDER BY d.id\n");
+        sql.append("FETCH FIRST :limit ROWS ONLY");
+        parameters.addValue("limit", limit);
+        return jdbcTemplate.query(sql.toString(), parameters, RESPONSE_MAPPER);
+    }
+
+    @Override
+    public long countFiltered(List<String> principals, Permissions permission, DocumentFilter filter, long max) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (")
+                .append(principals.size() > 1 ? "SELECT DISTINCT d.id\n" : "SELECT 1\n");
+        where(sql, parameters, principals, permission, filter);
+        sql.append("FETCH FIRST :max ROWS ONLY) matches");
+        parameters.addValue("max", max);
+        Long count = jdbcTemplate.queryForObject(sql.toString(), parameters, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public Stream<DocumentResponse> streamFiltered(List<String> principals, Permissions permission, DocumentFilter filter) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT d.id, d.name, d.file_type, d.content_length\n");
+        where(sql, parameters, principals, permission, filter);
+        sql.append(filter.sort() == DocumentSort.NAME ? "ORDER BY d.name, d.id" : "ORDER BY d.id");
+        return streamingJdbcTemplate.queryForStream(sql.toString(), parameters, RESPONSE_MAPPER);
+    }
+
+    private static void where(StringBuilder sql, MapSqlParameterSource parameters, List<String> principals,
+                              Permissions permission, DocumentFilter filter) {
+        sql.append(FROM);
+        parameters.addValue("principals", principals);
+        parameters.addValue("permissionMask", permission.mask());
+        if (filter.fileType() != null) {
+            sql.append("  AND d.file_type = :fileType\n");
+            parameters.addValue("fileType", filter.fileType());
+        }
+        if (filter.namePrefix() != null) {
+            sql.append("  AND d.name >= :namePrefix AND d.name < :nameEnd AND d.name LIKE :namePattern ESCAPE '\\'\n");
+            parameters.addValue("namePrefix", filter.namePrefix());
+            parameters.addValue("nameEnd", filter.namePrefix() + Character.MAX_VALUE);
+            parameters.addValue("namePattern", filter.namePrefix().replaceAll("([\\\\%_])", "\\\\$1") + "%");
+        }
+    }
+}
@@ -1,20 +1,116 @@
 package com.assignment.progresssoft.repository;
 
+import com.assignment.progresssoft.dto.response.DocumentResponse;
 import com.assignment.progresssoft.enums.Permissions;
 import com.assignment.progresssoft.model.Document;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
+
+public interface DocumentRepository extends JpaRepository<Document, Long>, DocumentQueryRepository {
+    /**
+     * Number of rows fetched per JDBC round-trip when streaming documents.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Reads the documents on which any of the principals of a user holds a permission.
+     *
+     * @param principals the user and its groups (see {@link com.assignment.progresssoft.security.cache.GroupMembershipCache})
+     * @param permission the permission
+     * @return the documents, once each, in ID order
+     */
+    @Query("""
+    SELECT DISTINCT new com.assignment.progresssoft.dto.response.DocumentResponse(d.id, d.name, d.fileType, d.contentLocation.length)
+    FROM Document d
+    JOIN d.accessibleUsers au
+    WHERE au.username IN :principals
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
+    ORDER BY d.id
+    """)
+    List<DocumentResponse> findAllWithPermission(@Param("principals") Collection<String> principals,
+                                                 @Param("permission") Permissions permission);
+
+    @Query("""
+    SELECT DISTINCT new com.assignment.progresssoft.dto.response.DocumentResponse(d.id, d.name, d.fileType, d.contentLocation.length)
+    FROM Document d
+    JOIN d.accessibleUsers au
+    WHERE au.username IN :principals
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
+      AND d.id > :after
+    ORDER BY d.id
+    """)
+    List<DocumentResponse> findPageWithPermission(@Param("principals") Collection<String> principals,
+                                                  @Param("permission") Permissions permission,
+                                                  @Param("after") Long after,
+                                                  Limit limit);
+
+    /**
+     * Reads documents by ID, for IDs taken from the {@link com.assignment.progresssoft.security.cache.UserAccessIndex}.
+     *
+     * @param ids the document IDs, at most {@link AccessibleUserJdbcRepository#BATCH_SIZE}
+     * @return the documents that still exist, in ID order
+     */
+    @Query("""
+    SELECT new com.assignment.progresssoft.dto.response.DocumentResponse(d.id, d.name, d.fileType, d.contentLocation.length)
+    FROM Document d
+    WHERE d.id IN :ids
+    ORDER BY d.id
+    """)
+    List<DocumentResponse> findResponsesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Streams the documents on which any of the principals of a user holds a permission.
+     * <p>
+     * The query is not {@code DISTINCT}, so that rows are sent as they are read: a document granted
+     * to several of the principals appears once per principal, in consecutive rows.
+     *
+     * @param principals the user and its groups
+     * @param permission the permission
+     * @return the documents in ID order
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("""
+    SELECT new com.assignment.progresssoft.dto.response.DocumentResponse(d.id, d.name, d.fileType, d.contentLocation.length)
+    FROM Document d
+    JOIN d.accessibleUsers au
+    WHERE au.username IN :principals
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
+    ORDER BY d.id
+    """)
+    Stream<DocumentResponse> streamAllWithPermission(@Param("principals") Collection<String> principals,
+                                                     @Param("permission") Permissions permission);
+
+    @Query("""
+    SELECT COUNT(au) > 0
+    FROM Document d
+    JOIN d.accessibleUsers au
+    WHERE d.id = :id
+      AND au.username IN :principals
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
+    """)
+    boolean existsWithPermission(@Param("id") Long id,
+                                 @Param("principals") Collection<String> principals,
+                                 @Param("permission") Permissions permission);
 
-public interface DocumentRepository extends JpaRepository<Document, Long> {
     @Query("""
     SELECT d.id
     FROM Document d
     JOIN d.accessibleUsers au
     WHERE d.id IN :ids
-      AND au.permission = :permission
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
     """)
     Set<Long> findDocumentIdsWithPermission(@Param("ids") Set<Long> ids,
                                              @Param("permission") Permissions permission);
@@ -24,12 +120,43 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     FROM Document d
     JOIN d.accessibleUsers au
     WHERE d.id IN :ids
-      AND au.permission = :permission
-      AND au.username = :username
+      AND bitand(au.permissionMask, cast(:#{#permission.mask()} as Integer)) <> 0
+      AND au.username IN :principals
     """)
     Set<Long> findDocumentIdsWithPermission(
             @Param("ids") Set<Long> ids,
             @Param("permission") Permissions permission,
-            @Param("username") String username
+            @Param("principals") Collection<String> principals
     );
+
+    @Query("SELECT d.id FROM Document d WHERE d.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Set<Long> ids);
+
+    /**
+     * Deletes a document row and its ACL rows without loading them first. The body is
+     * deleted separately through the {@link com.assignment.progresssoft.storage.ContentStore}.
+     */
+    @Modifying
+    @Query("DELETE FROM Document d WHERE d.id = :id")
+    int deleteDocumentById(@Param("id") Long id);
+
+    /**
+     * Reads the version of a document by primary key, without loading the document.
+     *
+     * @param id the document ID
+     * @return the version, or empty if the document does not exist
+     */
+    @Query("SELECT new com.assignment.progresssoft.repository.DocumentVersion(d.version, d.updatedAt) FROM Document d WHERE d.id = :id")
+    Optional<DocumentVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Marks documents as changed after their ACL was written with JDBC, bypassing the entities.
+     *
+     * @param ids       the IDs of the changed documents
+     * @param updatedAt the modification time to record
+     * @return the number of documents updated
+     */
+    @Modifying
+    @Query("UPDATE Document d SET d.version = d.version + 1, d.updatedAt = :updatedAt WHERE d.id IN :ids")
+    int touchDocuments(@Param("ids") Collection<Long> ids, @Param("updatedAt") Instant updatedAt);
 }
@@ -0,0 +1,12 @@
+package com.assignment.progresssoft.repository;
+
+import java.time.Instant;
+
+/**
+ * The version and modification time of a document, enough to answer a conditional request.
+ *
+ * @param version   the document's {@link com.assignment.progresssoft.model.Document#getVersion() version}
+ * @param updatedAt when the document was last changed
+ */
+public record DocumentVersion(long version, Instant updatedAt) {
+}
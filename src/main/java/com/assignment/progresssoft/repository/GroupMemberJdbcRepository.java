@@ -0,0 +1,90 @@
+package com.assignment.progresssoft.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes the {@code group_members} table with plain JDBC.
+ */
+@Repository
+public class GroupMemberJdbcRepository {
+
+    private static final String SELECT_GROUPS = """
+            SELECT group_name
+            FROM group_members
+            WHERE username = ?
+            ORDER BY group_name
+            """;
+
+    private static final String SELECT_MEMBERS = """
+            SELECT username
+            FROM group_members
+            WHERE group_name = ?
+            ORDER BY username
+            """;
+
+    private static final String MERGE = """
+            MERGE INTO group_members (group_name, username)
+            KEY (group_name, username)
+            VALUES (?, ?)
+            """;
+
+    private static final String DELETE = """
+            DELETE FROM group_members
+            WHERE group_name = ? AND username = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GroupMemberJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads the groups a user belongs to.
+     *
+     * @param username the user
+     * @return the group names, sorted; empty if the user belongs to none
+     */
+    public List<String> findGroups(String username) {
+        return jdbcTemplate.queryForList(SELECT_GROUPS, String.class, username);
+    }
+
+    /**
+     * Reads the members of a group.
+     *
+     * @param groupName the group
+     * @return the usernames, sorted; empty if the group has no member
+     */
+    public List<String> findMembers(String groupName) {
+        return jdbcTemplate.queryForList(SELECT_MEMBERS, String.class, groupName);
+    }
+
+    /**
+     * Adds users to a group in batches of {@link AccessibleUserJdbcRepository#BATCH_SIZE}; users
+     * already in the group are left as they are.
+     *
+     * @param groupName the group
+     * @param usernames the users to add
+     */
+    public void addMembers(String groupName, Collection<String> usernames) {
+        jdbcTemplate.batchUpdate(MERGE, usernames, AccessibleUserJdbcRepository.BATCH_SIZE, (ps, username) -> {
+            ps.setString(1, groupName);
+            ps.setString(2, username);
+        });
+    }
+
+    /**
+     * Removes a user from a group.
+     *
+     * @param groupName the group
+     * @param username  the user
+     * @return {@code true} if the user was a member
+     */
+    public boolean removeMember(String groupName, String username) {
+        return jdbcTemplate.update(DELETE, groupName, username) > 0;
+    }
+}
@@ -0,0 +1,628 @@
+package com.assignment.progresssoft.search;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-process inverted index over the name and body of every document, for ranked full-text search.
+ * <p>
+ * Text is split into terms at every character that is not a letter or digit, and lower-cased; terms
+ * shorter than {@value #MIN_TERM_LENGTH} or longer than {@value #MAX_TERM_LENGTH} characters are
+ * dropped. Per term the index holds a compressed (Roaring) bitmap of the documents whose name contains
+ * it, one of the documents whose body contains it and, for bodies containing it repeatedly, one per
+ * power of two of the number of occurrences. The terms of every document are kept as well, so a
+ * document is replaced or removed without scanning the dictionary. Bodies are indexed for the file
+ * types listed in {@code documents.search.content-file-types}, up to their first
+ * {@code documents.search.max-content-length} characters; other documents are found by name only.
+ * <p>
+ * Like the {@link com.assignment.progresssoft.security.cache.UserAccessIndex}, the index is loaded
+ * once the application is ready and then maintained incrementally: the services {@link #put(Entry) put}
+ * created documents and replaced bodies, {@link #analyze analyzed} beforehand outside the index's lock,
+ * and {@link #remove(long) remove} deleted documents. Until the load completes {@link #isReady()}
+ * returns {@code false}; documents put or removed meanwhile are skipped by the load, which may have
+ * read them before the change.
+ * <p>
+ * A search is made in two steps, so that the caller can drop the documents the user may not read
+ * before any is scored: {@link #match(List)} returns the documents containing every term, and
+ * {@link #rank(List, Roaring64Bitmap, int)} scores only the given ones.
+ */
+@Component
+public class SearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    static final int MIN_TERM_LENGTH = 2;
+
+    static final int MAX_TERM_LENGTH = 40;
+
+    /**
+     * Number of documents read per query while loading.
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    /**
+     * Number of bitmaps of repeated occurrences per term: 2-3, 4-7, ... and 64 or more.
+     */
+    private static final int OCCURRENCE_LEVELS = 6;
+
+    /**
+     * BM25 term frequency saturation.
+     */
+    private static final float K1 = 1.2f;
+
+    /**
+     * Weight of a term in the name, relative to a single occurrence in the body.
+     */
+    private static final float NAME_BOOST = 2f;
+
+    private static final String SELECT_DOCUMENTS = "SELECT id, name, file_type, content_hash, content_id, content_segment, " +
+            "content_offset, content_size, content_encoding, content_length FROM documents WHERE id > ? ORDER BY id " +
+            "FETCH FIRST " + LOAD_BATCH_SIZE + " ROWS ONLY";
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("name"),
+            rs.getString("file_type"), DeduplicatingContentStore.LOCATION_MAPPER.mapRow(rs, rowNum));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DeduplicatingContentStore contentStore;
+
+    private final boolean enabled;
+
+    private final Set<String> contentFileTypes;
+
+    private final int maxContentLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Term> dictionary = new HashMap<>();
+
+    private final Map<Long, Term[]> documents = new HashMap<>();
+
+    private final Roaring64Bitmap changedWhileLoading = new Roaring64Bitmap();
+
+    private volatile boolean ready;
+
+    /**
+     * Constructs an empty index; it is loaded by {@link #load()}.
+     *
+     * @param jdbcTemplate     reads the documents to load
+     * @param contentStore     reads the bodies to load
+     * @param enabled          {@code false} keeps the index empty and never ready
+     * @param contentFileTypes the file types whose body is indexed
+     * @param maxContentLength the number of leading characters of a body that are indexed
+     * @param meterRegistry    receives the size of the index
+     */
+    public SearchIndex(JdbcTemplate jdbcTemplate, DeduplicatingContentStore contentStore,
+                       @Value("${documents.search.enabled:true}") boolean enabled,
+                       @Value("${documents.search.content-file-types}") String[] contentFileTypes,
+                       @Value("${documents.search.max-content-length}") int maxContentLength,
+                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentStore = contentStore;
+        this.enabled = enabled;
+        this.contentFileTypes = Arrays.stream(contentFileTypes)
+                .map(fileType -> fileType.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.maxContentLength = maxContentLength;
+        Gauge.builder("documents.search.index.documents", this, SearchIndex::getDocumentCount)
+                .description("Documents held by the search index")
+                .register(meterRegistry);
+        Gauge.builder("documents.search.index.terms", this, SearchIndex::getTermCount)
+                .description("Distinct terms held by the search index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indexes every document, then marks the index ready.
+     * <p>
+     * Documents are read in batches of {@value #LOAD_BATCH_SIZE} by ID, with their bodies, and each
+     * batch is merged under one write lock. Searches made meanwhile are refused.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled || ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        long after = 0;
+        try {
+            List<Row> rows;
+            while (!(rows = jdbcTemplate.query(SELECT_DOCUMENTS, ROW_MAPPER, after)).isEmpty()) {
+                List<Entry> entries = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    entries.add(analyze(row.id(), row.name(), row.fileType(), readContent(row)));
+                }
+                lock.writeLock().lock();
+                try {
+                    for (Entry entry : entries) {
+                        if (!changedWhileLoading.contains(entry.documentId)) {
+                            index(entry);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                after = rows.get(rows.size() - 1).id();
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not load the search index; searches are refused", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading.clear();
+            dictionary.values().forEach(Term::runOptimize);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded search index for {} documents and {} terms in {} ms", getDocumentCount(), getTermCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Tells whether the index is loaded and can answer searches.
+     *
+     * @return {@code false} while loading or when disabled
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Tells whether the body of documents of a file type is indexed.
+     *
+     * @param fileType the file type
+     * @return {@code true} if the body is indexed, {@code false} if only the name is
+     */
+    public boolean indexesContent(String fileType) {
+        return fileType != null && contentFileTypes.contains(fileType.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the number of leading characters of a body that are indexed.
+     *
+     * @return the maximum length of indexed text
+     */
+    public int getMaxContentLength() {
+        return maxContentLength;
+    }
+
+    /**
+     * Splits a document into terms, to be {@link #put(Entry) put} into the index.
+     *
+     * @param documentId the document ID
+     * @param name       the document name
+     * @param fileType   the file type, which decides whether the body is indexed
+     * @param content    the body, or at least its first {@link #getMaxContentLength()} characters; may be {@code null}
+     * @return the terms of the document
+     */
+    public Entry analyze(long documentId, String name, String fileType, CharSequence content) {
+        Map<String, int[]> occurrences = new HashMap<>();
+        forEachTerm(name, Integer.MAX_VALUE, term -> occurrences.computeIfAbsent(term, key -> new int[2])[0] = 1);
+        if (content != null && indexesContent(fileType)) {
+            forEachTerm(content, maxContentLength, term -> occurrences.computeIfAbsent(term, key -> new int[2])[1]++);
+        }
+        Entry entry = new Entry(documentId, occurrences.size());
+        int i = 0;
+        for (Map.Entry<String, int[]> term : occurrences.entrySet()) {
+            entry.terms[i] = term.getKey();
+            entry.named[i] = term.getValue()[0] != 0;
+            entry.occurrences[i] = term.getValue()[1];
+            i++;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds a document to the index, replacing its previous terms if it was indexed already.
+     *
+     * @param entry the {@link #analyze analyzed} document
+     */
+    public void put(Entry entry) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index(entry);
+            if (!ready) {
+                changedWhileLoading.addLong(entry.documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds documents to the index.
+     *
+     * @param entries the {@link #analyze analyzed} documents
+     */
+    public void putAll(List<Entry> entries) {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : entries) {
+                index(entry);
+                if (!ready) {
+                    changedWhileLoading.addLong(entry.documentId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted document from the index.
+     *
+     * @param documentId the ID of the deleted document
+     */
+    public void remove(long documentId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(documentId);
+            if (!ready) {
+                changedWhileLoading.addLong(documentId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the documents containing every term, in their name or body.
+     *
+     * @param terms the {@link #terms(String) terms} of the query
+     * @return a new bitmap of document IDs; empty if any term is unknown
+     */
+    public Roaring64Bitmap match(List<String> terms) {
+        List<Term> found = new ArrayList<>(terms.size());
+        lock.readLock().lock();
+        try {
+            for (String text : terms) {
+                Term term = dictionary.get(text);
+                if (term == null) {
+                    return new Roaring64Bitmap();
+                }
+                found.add(term);
+            }
+            found.sort(Comparator.comparingInt(term -> term.documents));
+            Roaring64Bitmap matched = null;
+            for (Term term : found) {
+                if (matched == null) {
+                    matched = term.content.clone();
+                    matched.or(term.name);
+                } else {
+                    Roaring64Bitmap named = matched.clone();
+                    named.and(term.name);
+                    matched.and(term.content);
+                    matched.or(named);
+                }
+                if (matched.isEmpty()) {
+                    break;
+                }
+            }
+            return matched == null ? new Roaring64Bitmap() : matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scores documents against the terms of a query and returns the best ones.
+     * <p>
+     * A term scores its BM25 weight, without length normalization, for its occurrences in the body,
+     * and {@value #NAME_BOOST} times the weight of one occurrence if it is in the name. Only the given
+     * documents are scored.
+     *
+     * @param terms      the {@link #terms(String) terms} of the query
+     * @param candidates the documents to score, typically {@link #match matched} and filtered by permission
+     * @param count      the number of documents to return
+     * @return up to {@code count} documents, by descending score, then ascending ID
+     */
+    public List<Hit> rank(List<String> terms, Roaring64Bitmap candidates, int count) {
+        long[] ids = candidates.toArray();
+        float[] scores = new float[ids.length];
+        lock.readLock().lock();
+        try {
+            int total = documents.size();
+            for (String text : terms) {
+                Term term = dictionary.get(text);
+                if (term == null) {
+                    continue;
+                }
+                float idf = (float) Math.log(1 + (total - term.documents + 0.5) / (term.documents + 0.5));
+                addScores(ids, scores, candidates, term.name, idf * NAME_BOOST * weight(1));
+                addScores(ids, scores, candidates, term.content, idf * weight(1));
+                for (int level = 0; level < OCCURRENCE_LEVELS; level++) {
+                    if (term.repeated[level] != null) {
+                        addScores(ids, scores, candidates, term.repeated[level], idf * (weight(2 << level) - weight(1)));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(i -> scores[i])
+                .thenComparing(Comparator.<Integer>comparingLong(i -> ids[i]).reversed());
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(count, ids.length) + 1, worstFirst);
+        for (int i = 0; i < ids.length && count > 0; i++) {
+            if (best.size() < count) {
+                best.add(i);
+            } else if (worstFirst.compare(i, best.peek()) > 0) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int index = best.poll();
+            hits[i] = new Hit(ids[index], scores[index]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Splits a query into distinct terms, the way names and bodies are split.
+     *
+     * @param text the query
+     * @return the terms, in order of first occurrence
+     */
+    public static List<String> terms(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        forEachTerm(text, Integer.MAX_VALUE, terms::add);
+        return List.copyOf(terms);
+    }
+
+    private int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Entry entry) {
+        unindex(entry.documentId);
+        Term[] terms = new Term[entry.terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = dictionary.computeIfAbsent(entry.terms[i], Term::new);
+            terms[i].add(entry.documentId, entry.named[i], entry.occurrences[i]);
+        }
+        documents.put(entry.documentId, terms);
+    }
+
+    private void unindex(long documentId) {
+        Term[] terms = documents.remove(documentId);
+        if (terms == null) {
+            return;
+        }
+        for (Term term : terms) {
+            term.remove(documentId);
+            if (term.documents == 0) {
+                dictionary.remove(term.text);
+            }
+        }
+    }
+
+    private CharSequence readContent(Row row) {
+        ContentLocation location = row.location();
+        if (!indexesContent(row.fileType()) || location.getLength() == 0) {
+            return null;
+        }
+        long length = Math.min(location.getLength(), maxContentLength);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+        try {
+            contentStore.read(location, 0, length, out);
+        } catch (IOException e) {
+            log.warn("Could not read the body of document {}; it is indexed by name only", row.id(), e);
+            return null;
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Adds a weight to the score of the candidates in a bitmap. Both are iterated in ascending order,
+     * so each candidate is found in {@code ids} by moving forward.
+     */
+    private static void addScores(long[] ids, float[] scores, Roaring64Bitmap candidates, Roaring64Bitmap bitmap, float weight) {
+        if (bitmap.isEmpty()) {
+            return;
+        }
+        Roaring64Bitmap hits = candidates.clone();
+        hits.and(bitmap);
+        LongIterator iterator = hits.getLongIterator();
+        int i = 0;
+        while (iterator.hasNext()) {
+            long id = iterator.next();
+            while (ids[i] != id) {
+                i++;
+            }
+            scores[i] += weight;
+        }
+    }
+
+    private static float weight(int occurrences) {
+        return occurrences * (K1 + 1) / (occurrences + K1);
+    }
+
+    private static void forEachTerm(CharSequence text, int maxLength, Consumer<String> action) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder term = new StringBuilder();
+        int length = Math.min(text.length(), maxLength);
+        for (int i = 0; i < length; ) {
+            int c = Character.codePointAt(text, i);
+            i += Character.charCount(c);
+            if (Character.isLetterOrDigit(c)) {
+                term.appendCodePoint(Character.toLowerCase(c));
+            } else {
+                emit(term, action);
+            }
+        }
+        emit(term, action);
+    }
+
+    private static void emit(StringBuilder term, Consumer<String> action) {
+        if (term.length() >= MIN_TERM_LENGTH && term.length() <= MAX_TERM_LENGTH) {
+            action.accept(term.toString());
+        }
+        term.setLength(0);
+    }
+
+    /**
+     * A document scored by {@link #rank(List, Roaring64Bitmap, int)}.
+     *
+     * @param documentId the document ID
+     * @param score      the relevance of the document; higher is better
+     */
+    public record Hit(long documentId, float score) {
+    }
+
+    /**
+     * The terms of one document, built by {@link #analyze} and {@link #put(Entry) put} into the index.
+     */
+    public static final class Entry {
+
+        private final long documentId;
+
+        private final String[] terms;
+
+        private final boolean[] named;
+
+        private final int[] occurrences;
+
+        private Entry(long documentId, int size) {
+            this.documentId = documentId;
+            this.terms = new String[size];
+            this.named = new boolean[size];
+            this.occurrences = new int[size];
+        }
+
+        public long getDocumentId() {
+            return documentId;
+        }
+
+        /**
+         * Returns the number of distinct terms of the document.
+         *
+         * @return the number of terms
+         */
+        public int size() {
+            return terms.length;
+        }
+    }
+
+    /**
+     * The documents containing one term.
+     */
+    private static final class Term {
+
+        private final String text;
+
+        private final Roaring64Bitmap name = new Roaring64Bitmap();
+
+        private final Roaring64Bitmap content = new Roaring64Bitmap();
+
+        /**
+         * Documents whose body contains the term 2-3, 4-7, ... times; created on first use.
+         */
+        private final Roaring64Bitmap[] repeated = new Roaring64Bitmap[OCCURRENCE_LEVELS];
+
+        private int documents;
+
+        private Term(String text) {
+            this.text = text;
+        }
+
+        private void add(long documentId, boolean named, int occurrences) {
+            documents++;
+            if (named) {
+                name.addLong(documentId);
+            }
+            if (occurrences > 0) {
+                content.addLong(documentId);
+            }
+            if (occurrences > 1) {
+                int level = Math.min(OCCURRENCE_LEVELS, 31 - Integer.numberOfLeadingZeros(occurrences)) - 1;
+                if (repeated[level] == null) {
+                    repeated[level] = new Roaring64Bitmap();
+                }
+                repeated[level].addLong(documentId);
+            }
+        }
+
+        private void remove(long documentId) {
+            documents--;
+            name.removeLong(documentId);
+            content.removeLong(documentId);
+            for (int level = 0; level < OCCURRENCE_LEVELS; level++) {
+                if (repeated[level] != null) {
+                    repeated[level].removeLong(documentId);
+                    if (repeated[level].isEmpty()) {
+                        repeated[level] = null;
+                    }
+                }
+            }
+        }
+
+        private void runOptimize() {
+            name.runOptimize();
+            content.runOptimize();
+        }
+    }
+
+    private record Row(long id, String name, String fileType, ContentLocation location) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.assignment.progresssoft.security.annotation;
+
+import com.assignment.progresssoft.enums.AccessType;
+
+import java.lang.annotation.*;
+
+/**
+ * Declares the access a controller method requires from the user named in the {@code X-User} header.
+ * <p>
+ * Enforced by {@link com.assignment.progresssoft.security.component.PermissionInterceptor}. Handler
+ * methods without this annotation are not checked.
+ */
+@Documented
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequiresAccess {
+    /**
+     * The required access.
+     */
+    AccessType value();
+
+    /**
+     * Name of the path variable holding the document ID. Ignored for {@link AccessType#CREATE} and
+     * {@link AccessType#ADMIN}.
+     */
+    String documentIdVariable() default "id";
+}
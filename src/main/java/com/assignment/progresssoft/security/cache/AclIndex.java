@@ -0,0 +1,106 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * In-process index of document access control lists, keyed by document ID.
+ * <p>
+ * Entries are weighed by the number of users they hold and the index is bounded by
+ * {@code documents.acl-index.max-grants}; once full, the least valuable entries are evicted
+ * (Caffeine's size-based W-TinyLFU policy). Reads are lock-free, and a miss is loaded by the calling
+ * thread outside of any lock, so that loading an ACL from the database never holds a monitor (which
+ * would pin a virtual thread to its carrier). The index is kept current by
+ * {@link com.assignment.progresssoft.service.DocumentService}, which pushes the new ACL of every
+ * document it creates or updates and invalidates the ones it deletes. Hits, misses and evictions are
+ * published as the {@code cache.*} metrics of the cache named {@code acl}.
+ */
+@Component
+public class AclIndex {
+
+    private final boolean enabled;
+
+    private final AsyncCache<Long, DocumentAcl> entries;
+
+    /**
+     * Constructs the index with the given capacity.
+     *
+     * @param maxGrants     the maximum total number of user grants held by the index; {@code 0} disables it
+     * @param meterRegistry receives the cache metrics
+     */
+    public AclIndex(@Value("${documents.acl-index.max-grants:1000000}") long maxGrants, MeterRegistry meterRegistry) {
+        this.enabled = maxGrants > 0;
+        this.entries = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumWeight(maxGrants)
+                .weigher((Long documentId, DocumentAcl acl) -> 1 + acl.size())
+                .recordStats()
+                .buildAsync(), "acl");
+    }
+
+    /**
+     * Tells whether the index holds entries. When disabled, callers should query storage directly.
+     *
+     * @return {@code false} if the index was configured with no capacity
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the ACL of a document, loading it on a miss.
+     * <p>
+     * Concurrent misses for the same document share a single call to the loader: the first caller
+     * runs it, the others wait for its result. A failed or {@code null} load is not cached.
+     *
+     * @param documentId the document ID
+     * @param loader     loads the ACL from storage; returns {@code null} if the document does not exist
+     * @return the ACL, or {@code null} if the document does not exist
+     */
+    public DocumentAcl get(Long documentId, Function<Long, DocumentAcl> loader) {
+        CompletableFuture<DocumentAcl> loading = new CompletableFuture<>();
+        CompletableFuture<DocumentAcl> acl = entries.get(documentId, (key, executor) -> loading);
+        if (acl == loading) {
+            try {
+                loading.complete(loader.apply(documentId));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return acl.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stores the current ACL of a document, replacing any previous entry.
+     *
+     * @param documentId the document ID
+     * @param acl        the new ACL
+     */
+    public void put(Long documentId, DocumentAcl acl) {
+        entries.put(documentId, CompletableFuture.completedFuture(acl));
+    }
+
+    /**
+     * Removes the ACL of a document, e.g. after the document was deleted.
+     *
+     * @param documentId the document ID
+     */
+    public void invalidate(Long documentId) {
+        entries.synchronous().invalidate(documentId);
+    }
+}
@@ -0,0 +1,92 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, compact snapshot of the access control list of a single document.
+ * <p>
+ * Usernames are kept in a sorted array with a parallel array of permission bit masks,
+ * so a lookup is a binary search and no per-entry objects are retained.
+ */
+public final class DocumentAcl {
+
+    private static final String[] NO_USERS = new String[0];
+
+    private final String[] usernames;
+
+    private final int[] permissionMasks;
+
+    private DocumentAcl(String[] usernames, int[] permissionMasks) {
+        this.usernames = usernames;
+        this.permissionMasks = permissionMasks;
+    }
+
+    /**
+     * Builds an ACL snapshot from the given user grants.
+     *
+     * @param accessibleUsers the grants of the document; may be {@code null}
+     * @return the ACL snapshot
+     */
+    public static DocumentAcl of(Collection<AccessibleUser> accessibleUsers) {
+        if (accessibleUsers == null || accessibleUsers.isEmpty()) {
+            return new DocumentAcl(NO_USERS, new int[0]);
+        }
+
+        Map<String, Integer> masks = new TreeMap<>();
+        for (AccessibleUser user : accessibleUsers) {
+            if (user.getUsername() != null && user.getPermissionMask() != 0) {
+                masks.merge(user.getUsername(), user.getPermissionMask(), (a, b) -> a | b);
+            }
+        }
+
+        String[] usernames = masks.keySet().toArray(NO_USERS);
+        int[] permissionMasks = new int[usernames.length];
+        for (int i = 0; i < usernames.length; i++) {
+            permissionMasks[i] = masks.get(usernames[i]);
+        }
+        return new DocumentAcl(usernames, permissionMasks);
+    }
+
+    /**
+     * Checks whether the given user holds the given permission.
+     *
+     * @param username   the username to check
+     * @param permission the required permission
+     * @return {@code true} if the ACL grants the permission to the user
+     */
+    public boolean allows(String username, Permissions permission) {
+        int index = Arrays.binarySearch(usernames, username);
+        return index >= 0 && (permissionMasks[index] & permission.mask()) != 0;
+    }
+
+    /**
+     * Checks whether any of the given principals holds the given permission.
+     *
+     * @param principals the user and its groups (see {@link GroupMembershipCache#principals})
+     * @param permission the required permission
+     * @return {@code true} if the ACL grants the permission to one of the principals
+     */
+    public boolean allows(Collection<String> principals, Permissions permission) {
+        for (String principal : principals) {
+            if (allows(principal, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of users with at least one grant; used to weigh the entry in the index.
+     *
+     * @return the number of users in the ACL
+     */
+    public int size() {
+        return usernames.length;
+    }
+}
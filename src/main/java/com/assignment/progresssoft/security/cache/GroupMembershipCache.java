@@ -0,0 +1,124 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.repository.GroupMemberJdbcRepository;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * In-process cache of the principals of each user: the user itself and the groups it belongs to.
+ * <p>
+ * A group is granted permissions on documents like a user, under the principal
+ * {@code group:<name>}, so a user holds a permission if any of its principals does. Granting a
+ * group access to a document writes one ACL row however many members the group has; the cost moves
+ * to expanding a user into its principals, which this cache answers without a query once the user
+ * was seen. The cache is bounded by {@code documents.group-cache.max-users} users and shares
+ * {@link AclIndex}'s loading scheme: a miss is loaded by the calling thread outside of any lock, and
+ * concurrent misses for the same user share that load. {@link com.assignment.progresssoft.service.GroupService}
+ * invalidates the users whose membership changed once the change commits. Hits, misses and evictions
+ * are published as the {@code cache.*} metrics of the cache named {@code groups}.
+ */
+@Component
+public class GroupMembershipCache {
+
+    /**
+     * Prefix of the principals of groups in ACL rows; usernames may not start with it.
+     */
+    public static final String GROUP_PREFIX = "group:";
+
+    private final GroupMemberJdbcRepository groupMemberRepository;
+
+    private final AsyncCache<String, List<String>> entries;
+
+    /**
+     * Constructs the cache with the given capacity.
+     *
+     * @param groupMemberRepository reads the groups of a user on a miss
+     * @param maxUsers              the maximum number of users whose principals are held
+     * @param meterRegistry         receives the cache metrics
+     */
+    public GroupMembershipCache(GroupMemberJdbcRepository groupMemberRepository,
+                                @Value("${documents.group-cache.max-users:100000}") long maxUsers,
+                                MeterRegistry meterRegistry) {
+        this.groupMemberRepository = groupMemberRepository;
+        this.entries = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .recordStats()
+                .buildAsync(), "groups");
+    }
+
+    /**
+     * Returns the principal under which a group is granted permissions.
+     *
+     * @param groupName the group
+     * @return {@code group:} followed by the group name
+     */
+    public static String groupPrincipal(String groupName) {
+        return GROUP_PREFIX + groupName;
+    }
+
+    /**
+     * Tells whether a name is the principal of a group rather than a username.
+     *
+     * @param name the name
+     * @return {@code true} if the name starts with {@link #GROUP_PREFIX}
+     */
+    public static boolean isGroupPrincipal(String name) {
+        return name != null && name.startsWith(GROUP_PREFIX);
+    }
+
+    /**
+     * Returns the principals of a user, loading its groups on a miss.
+     *
+     * @param username the user
+     * @return the username followed by the principals of its groups
+     */
+    public List<String> principals(String username) {
+        CompletableFuture<List<String>> loading = new CompletableFuture<>();
+        CompletableFuture<List<String>> principals = entries.get(username, (key, executor) -> loading);
+        if (principals == loading) {
+            try {
+                loading.complete(load(username));
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return principals.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the principals of users whose membership changed.
+     *
+     * @param usernames the users
+     */
+    public void invalidate(Collection<String> usernames) {
+        entries.synchronous().invalidateAll(usernames);
+    }
+
+    private List<String> load(String username) {
+        List<String> groups = groupMemberRepository.findGroups(username);
+        List<String> principals = new ArrayList<>(1 + groups.size());
+        principals.add(username);
+        for (String group : groups) {
+            principals.add(groupPrincipal(group));
+        }
+        return List.copyOf(principals);
+    }
+}
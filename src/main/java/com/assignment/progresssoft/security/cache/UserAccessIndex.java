@@ -0,0 +1,435 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.dto.response.AccessIndexStatsResponse;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process index of the documents each user can access: per user and permission, a compressed
+ * (Roaring) bitmap of document IDs.
+ * <p>
+ * A second set of bitmaps, one per permission, holds the documents on which any user holds it,
+ * for checks made by "admin". Groups hold bitmaps under their principals like users, and queries
+ * take the principals of a user (see {@link GroupMembershipCache}): the user's documents are the
+ * union of their bitmaps, computed per query only for users that belong to a group. The index is
+ * loaded from {@code document_accessible_users} once the application is ready and then maintained
+ * incrementally: the services {@link #apply(Grants) apply} the grants of created documents and of
+ * permission changes, and {@link #remove(long) remove} deleted documents, once their transaction
+ * commits. Permissions are never revoked, so a bitmap only loses IDs when a document is deleted.
+ * <p>
+ * Until the load completes {@link #isReady()} returns {@code false} and callers must query the
+ * database instead. Bitmaps are guarded by a read-write lock and never handed out; readers get
+ * results or copies.
+ */
+@Component
+public class UserAccessIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAccessIndex.class);
+
+    /**
+     * Number of ACL rows merged into the index per write lock while loading.
+     */
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private static final String SELECT_GRANTS = "SELECT document_id, username, permissions FROM document_accessible_users";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Roaring64Bitmap[]> users = new HashMap<>();
+
+    private final Roaring64Bitmap[] anyUser = newBitmaps();
+
+    private final Roaring64Bitmap deletedWhileLoading = new Roaring64Bitmap();
+
+    private volatile boolean ready;
+
+    /**
+     * Constructs an empty index; it is loaded by {@link #load()}.
+     *
+     * @param jdbcTemplate  reads the ACL rows to load
+     * @param enabled       {@code false} keeps the index empty and never ready
+     * @param meterRegistry receives the size of the index
+     */
+    public UserAccessIndex(JdbcTemplate jdbcTemplate, @Value("${documents.access-index.enabled:true}") boolean enabled,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        Gauge.builder("documents.access.index.size", this, index -> index.getStats().getTotalBytes())
+                .description("Memory held by the bitmaps of the user access index")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every ACL row into the index, then marks it ready.
+     * <p>
+     * Requests served meanwhile fall back to the database. Grants applied during the load are merged
+     * as usual; documents deleted during the load are removed again once every row is read, in case
+     * the load read their rows before the delete.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled || ready) {
+            return;
+        }
+        long start = System.nanoTime();
+        Grants batch = new Grants();
+        try {
+            jdbcTemplate.query(SELECT_GRANTS, rs -> {
+                batch.add(rs.getLong("document_id"), rs.getString("username"), rs.getInt("permissions"));
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    apply(batch);
+                    batch.clear();
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not load the user access index; access checks keep querying the database", e);
+            return;
+        }
+        apply(batch);
+
+        lock.writeLock().lock();
+        try {
+            removeAll(deletedWhileLoading);
+            deletedWhileLoading.clear();
+            users.values().forEach(UserAccessIndex::runOptimize);
+            runOptimize(anyUser);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded user access index for {} users in {} ms", users.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Tells whether the index is loaded and can answer queries.
+     *
+     * @return {@code false} while loading or when disabled
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds grants to the index.
+     *
+     * @param grants the grants of committed changes
+     */
+    public void apply(Grants grants) {
+        if (!enabled || grants.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            grants.users.forEach((username, bitmaps) -> {
+                Roaring64Bitmap[] target = users.computeIfAbsent(username, key -> newBitmaps());
+                for (int i = 0; i < bitmaps.length; i++) {
+                    target[i].or(bitmaps[i]);
+                    anyUser[i].or(bitmaps[i]);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a deleted document from the index.
+     *
+     * @param documentId the ID of the deleted document
+     */
+    public void remove(long documentId) {
+        if (!enabled) {
+            return;
+        }
+        Roaring64Bitmap removed = Roaring64Bitmap.bitmapOf(documentId);
+        lock.writeLock().lock();
+        try {
+            removeAll(removed);
+            if (!ready) {
+                deletedWhileLoading.or(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filters document IDs down to those on which a user holds a permission, by intersecting them
+     * with the user's bitmap.
+     *
+     * @param principals  the principals of the user, or {@code null} to accept any user's permission
+     * @param permission  the permission
+     * @param documentIds the document IDs to check
+     * @return the IDs holding the permission, in ascending order
+     */
+    public long[] filter(List<String> principals, Permissions permission, long[] documentIds) {
+        Roaring64Bitmap requested = Roaring64Bitmap.bitmapOf(documentIds);
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap granted = bitmap(principals, permission);
+            if (granted == null) {
+                return new long[0];
+            }
+            requested.and(granted);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return requested.toArray();
+    }
+
+    /**
+     * Removes from a bitmap of document IDs those on which a user does not hold a permission.
+     *
+     * @param principals  the principals of the user
+     * @param permission  the permission
+     * @param documentIds the document IDs to check, modified in place
+     */
+    public void retain(List<String> principals, Permissions permission, Roaring64Bitmap documentIds) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap granted = bitmap(principals, permission);
+            if (granted == null) {
+                documentIds.clear();
+            } else {
+                documentIds.and(granted);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of the bitmap of documents on which a user holds a permission.
+     *
+     * @param principals the principals of the user
+     * @param permission the permission
+     * @return the document IDs; empty if the user holds no grant
+     */
+    public Roaring64Bitmap snapshot(List<String> principals, Permissions permission) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap granted = bitmap(principals, permission);
+            return granted == null ? new Roaring64Bitmap() : isUnion(principals) ? granted : granted.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the documents on which a user holds a permission.
+     *
+     * @param principals the principals of the user
+     * @param permission the permission
+     * @return the number of documents; 0 if the user holds no grant
+     */
+    public long count(List<String> principals, Permissions permission) {
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap granted = bitmap(principals, permission);
+            return granted == null ? 0 : granted.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the first documents after a given ID on which a user holds a permission.
+     *
+     * @param principals the principals of the user
+     * @param permission the permission
+     * @param after      the ID after which to start
+     * @param limit      the maximum number of IDs
+     * @return up to {@code limit} document IDs in ascending order
+     */
+    public long[] page(List<String> principals, Permissions permission, long after, int limit) {
+        long[] ids = new long[limit];
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap granted = bitmap(principals, permission);
+            if (granted != null && after < Long.MAX_VALUE) {
+                PeekableLongIterator iterator = granted.getLongIteratorFrom(after + 1);
+                while (count < limit && iterator.hasNext()) {
+                    ids[count++] = iterator.next();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Reports the memory held by the index, per user and in total.
+     *
+     * @return the {@link AccessIndexStatsResponse}
+     */
+    public AccessIndexStatsResponse getStats() {
+        Map<String, Long> userBytes = new TreeMap<>();
+        long totalBytes;
+        lock.readLock().lock();
+        try {
+            users.forEach((username, bitmaps) -> userBytes.put(username, sizeInBytes(bitmaps)));
+            totalBytes = sizeInBytes(anyUser);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (long bytes : userBytes.values()) {
+            totalBytes += bytes;
+        }
+        return new AccessIndexStatsResponse(ready, userBytes.size(), totalBytes, userBytes);
+    }
+
+    /**
+     * Returns the documents on which any of the principals holds a permission: the bitmap of a single
+     * principal itself, or a new union of the bitmaps of several. Must be called under the read lock.
+     */
+    private Roaring64Bitmap bitmap(List<String> principals, Permissions permission) {
+        if (principals == null) {
+            return anyUser[permission.ordinal()];
+        }
+        if (principals.size() == 1) {
+            Roaring64Bitmap[] bitmaps = users.get(principals.get(0));
+            return bitmaps == null ? null : bitmaps[permission.ordinal()];
+        }
+        Roaring64Bitmap union = null;
+        for (String principal : principals) {
+            Roaring64Bitmap[] bitmaps = users.get(principal);
+            if (bitmaps != null) {
+                if (union == null) {
+                    union = new Roaring64Bitmap();
+                }
+                union.or(bitmaps[permission.ordinal()]);
+            }
+        }
+        return union;
+    }
+
+    private static boolean isUnion(List<String> principals) {
+        return principals != null && principals.size() > 1;
+    }
+
+    private void removeAll(Roaring64Bitmap documentIds) {
+        if (documentIds.isEmpty()) {
+            return;
+        }
+        Iterator<Roaring64Bitmap[]> iterator = users.values().iterator();
+        while (iterator.hasNext()) {
+            Roaring64Bitmap[] bitmaps = iterator.next();
+            boolean empty = true;
+            for (Roaring64Bitmap bitmap : bitmaps) {
+                bitmap.andNot(documentIds);
+                empty &= bitmap.isEmpty();
+            }
+            if (empty) {
+                iterator.remove();
+            }
+        }
+        for (Roaring64Bitmap bitmap : anyUser) {
+            bitmap.andNot(documentIds);
+        }
+    }
+
+    private static Roaring64Bitmap[] newBitmaps() {
+        Roaring64Bitmap[] bitmaps = new Roaring64Bitmap[Permissions.values().length];
+        for (int i = 0; i < bitmaps.length; i++) {
+            bitmaps[i] = new Roaring64Bitmap();
+        }
+        return bitmaps;
+    }
+
+    private static void runOptimize(Roaring64Bitmap[] bitmaps) {
+        for (Roaring64Bitmap bitmap : bitmaps) {
+            bitmap.runOptimize();
+        }
+    }
+
+    private static long sizeInBytes(Roaring64Bitmap[] bitmaps) {
+        long bytes = 0;
+        for (Roaring64Bitmap bitmap : bitmaps) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Grants collected by a transaction, to be {@link #apply(Grants) applied} once it commits.
+     */
+    public static final class Grants {
+
+        private final Map<String, Roaring64Bitmap[]> users = new HashMap<>();
+
+        private int size;
+
+        /**
+         * Adds the permissions of one ACL row.
+         *
+         * @param documentId     the document ID
+         * @param username       the user the permissions are granted to
+         * @param permissionMask the granted permissions, as a bit mask
+         */
+        public void add(long documentId, String username, int permissionMask) {
+            Roaring64Bitmap[] bitmaps = users.computeIfAbsent(username, key -> newBitmaps());
+            for (Permissions permission : Permissions.values()) {
+                if ((permissionMask & permission.mask()) != 0) {
+                    bitmaps[permission.ordinal()].addLong(documentId);
+                }
+            }
+            size++;
+        }
+
+        /**
+         * Adds the whole ACL of a document.
+         *
+         * @param documentId      the document ID
+         * @param accessibleUsers the grants of the document; may be {@code null}
+         */
+        public void add(long documentId, Collection<AccessibleUser> accessibleUsers) {
+            if (accessibleUsers != null) {
+                for (AccessibleUser user : accessibleUsers) {
+                    add(documentId, user.getUsername(), user.getPermissionMask());
+                }
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            users.clear();
+            size = 0;
+        }
+    }
+}
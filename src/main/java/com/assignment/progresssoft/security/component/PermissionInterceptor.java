@@ -1,29 +1,88 @@
 package com.assignment.progresssoft.security.component;
 
+import com.assignment.progresssoft.enums.AccessType;
+import com.assignment.progresssoft.security.annotation.RequiresAccess;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
 import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Intercepts incoming HTTP requests to perform permission checks based on the user's role and access rights.
  * <p>
- * This interceptor enforces security policies for various document-related actions by examining
- * the HTTP method, request URI, and the {@code X-User} header provided in the request.
+ * This interceptor enforces the {@link RequiresAccess} declarations of the controller methods, using
+ * the {@code X-User} header provided in the request, which may not name a group principal
+ * ({@code group:<name>}), since that would hold the group's permissions. The declarations are
+ * resolved once, when the application context is refreshed, into a table keyed by handler method,
+ * so a request costs a single map lookup instead of matching its URI against every rule.
+ * <p>
+ * Every rule times its checks in the {@code documents.authorization} timer, tagged with the
+ * controller method, the access type and the outcome ({@code allowed} or {@code denied}; a malformed
+ * document ID counts as denied). The timers are created with the table, so a check only records
+ * into two timers' striped counters.
  */
 @Component
 public class PermissionInterceptor implements HandlerInterceptor {
 
     private final PermissionCheckingService permissionCheckingService;
 
+    private final MeterRegistry meterRegistry;
+
+    private volatile Map<Method, Rule> accessRules = Map.of();
+
     /**
      * Constructs a {@code PermissionInterceptor} with the provided permission checking service.
      *
      * @param permissionCheckingService the service responsible for validating user permissions
+     * @param meterRegistry             receives the timers of the rules
      */
-    public PermissionInterceptor(PermissionCheckingService permissionCheckingService) {
+    public PermissionInterceptor(PermissionCheckingService permissionCheckingService, MeterRegistry meterRegistry) {
         this.permissionCheckingService = permissionCheckingService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Builds the dispatch table from all handler methods registered with Spring MVC.
+     *
+     * @param event the context refresh event
+     */
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        event.getApplicationContext().getBeansOfType(RequestMappingHandlerMapping.class).values()
+                .forEach(mapping -> registerHandlerMethods(mapping.getHandlerMethods().values()));
+    }
+
+    /**
+     * Adds the {@link RequiresAccess} declarations of the given handler methods to the dispatch table.
+     *
+     * @param handlerMethods the handler methods to inspect
+     */
+    public void registerHandlerMethods(Collection<HandlerMethod> handlerMethods) {
+        Map<Method, Rule> rules = new HashMap<>(accessRules);
+        for (HandlerMethod handlerMethod : handlerMethods) {
+            RequiresAccess access = handlerMethod.getMethodAnnotation(RequiresAccess.class);
+            if (access != null) {
+                String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+                rules.put(handlerMethod.getMethod(), new Rule(access,
+                        timer(name, access, "allowed"), timer(name, access, "denied")));
+            }
+        }
+        accessRules = Map.copyOf(rules);
     }
 
     /**
@@ -43,75 +102,88 @@ public class PermissionInterceptor implements HandlerInterceptor {
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing X-User header");
             return false;
         }
+        if (GroupMembershipCache.isGroupPrincipal(username)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "X-User cannot name a group");
+            return false;
+        }
 
-        String method = request.getMethod();
-        String path = request.getRequestURI();
-
-        // DELETE: Requires DELETE permission for specific document
-        if ("DELETE".equalsIgnoreCase(method) && path.matches("^/documents/\\d+")) {
-            Long documentId = extractDocumentId(path, response);
-            if (documentId == null) return false;
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
 
-            if (!permissionCheckingService.hasDeletePermission(username, documentId)) {
-                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have DELETE permission");
-                return false;
-            }
+        Rule rule = accessRules.get(handlerMethod.getMethod());
+        if (rule == null) {
+            return true;
         }
 
-        // POST /{id}/grant: Requires WRITE permission
-        if ("POST".equalsIgnoreCase(method) && path.matches("^/documents/\\d+/grant$")) {
-            Long documentId = extractDocumentId(path, response);
-            if (documentId == null) return false;
+        long start = System.nanoTime();
+        boolean allowed = check(request, response, username, rule.access());
+        (allowed ? rule.allowed() : rule.denied()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return allowed;
+    }
 
-            if (!permissionCheckingService.hasWritePermission(username, documentId)) {
+    private boolean check(HttpServletRequest request, HttpServletResponse response, String username, RequiresAccess rule)
+            throws Exception {
+        if (rule.value() == AccessType.CREATE) {
+            if (!permissionCheckingService.hasCreateNewPermission(username)) {
                 response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have WRITE permission");
                 return false;
             }
+            return true;
         }
-
-        // POST /documents: Requires CREATE permission
-        if ("POST".equalsIgnoreCase(method) && path.matches("^/documents$")) {
-            if (!permissionCheckingService.hasCreateNewPermission(username)) {
-                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have WRITE permission");
+        if (rule.value() == AccessType.ADMIN) {
+            if (!permissionCheckingService.isAdmin(username)) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User is not an administrator");
                 return false;
             }
-        }
-
-        // GET /documents: Skip check (filter handled in service layer)
-        if ("GET".equalsIgnoreCase(method) && path.matches("^/documents$")) {
             return true;
         }
 
-        // GET /documents/{id}: Requires READ permission
-        if ("GET".equalsIgnoreCase(method) && path.matches("^/documents/\\d+")) {
-            Long documentId = extractDocumentId(path, response);
-            if (documentId == null) return false;
-
-            if (!permissionCheckingService.hasReadPermission(username, documentId)) {
-                response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have READ permission");
-                return false;
-            }
+        Long documentId = extractDocumentId(request, rule.documentIdVariable(), response);
+        if (documentId == null) return false;
+
+        boolean allowed = switch (rule.value()) {
+            case READ -> permissionCheckingService.hasReadPermission(username, documentId);
+            case WRITE -> permissionCheckingService.hasWritePermission(username, documentId);
+            case DELETE -> permissionCheckingService.hasDeletePermission(username, documentId);
+            case CREATE, ADMIN -> throw new IllegalStateException(rule.value() + " is handled above");
+        };
+        if (!allowed) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "User does not have " + rule.value() + " permission");
+            return false;
         }
 
         return true;
     }
 
+    private Timer timer(String handler, RequiresAccess access, String outcome) {
+        return Timer.builder("documents.authorization")
+                .description("Permission checks of the access rules")
+                .tags("rule", handler, "access", access.value().name(), "outcome", outcome)
+                .register(meterRegistry);
+    }
+
     /**
-     * Helper method to extract a document ID from the request path.
+     * Helper method to extract a document ID from the matched URI template variables.
      *
-     * @param path     the request URI
+     * @param request  the HTTP request
+     * @param variable the name of the path variable holding the document ID
      * @param response the HTTP response, used to report errors
      * @return the document ID if valid, or {@code null} if invalid (error already sent)
-     * @throws Exception if ID parsing fails
+     * @throws Exception if the error response cannot be sent
      */
-    private Long extractDocumentId(String path, HttpServletResponse response) throws Exception {
+    @SuppressWarnings("unchecked")
+    private Long extractDocumentId(HttpServletRequest request, String variable, HttpServletResponse response) throws Exception {
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
         try {
-            String[] parts = path.split("/");
-            return Long.parseLong(parts[2]);
+            return Long.parseLong(variables.get(variable));
         } catch (Exception e) {
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid document id");
             return null;
         }
     }
-}
 
+    private record Rule(RequiresAccess access, Timer allowed, Timer denied) {
+    }
+}
@@ -1,30 +1,56 @@
 package com.assignment.progresssoft.security.service;
 
+import com.assignment.progresssoft.concurrent.SingleFlight;
+import com.assignment.progresssoft.context.DocumentRequestContext;
 import com.assignment.progresssoft.enums.Permissions;
 import com.assignment.progresssoft.model.Document;
 import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.cache.DocumentAcl;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
 /**
  * Service responsible for checking user permissions on documents.
  * <p>
  * Provides methods to verify if a user has create, read, write, or delete
- * permissions on specific documents.
+ * permissions on specific documents. Document ACLs are answered from the
+ * {@link AclIndex} and only loaded from the database on a miss. A document loaded
+ * on a miss is kept in the {@link DocumentRequestContext} so the controller does not
+ * fetch it again; its content is never read. Concurrent misses for the same document share one
+ * load (see {@link AclIndex#get}); with the index disabled, concurrent checks of the same user,
+ * document and permission share one query through a {@link SingleFlight}.
+ * <p>
+ * A user holds a permission granted to it or to one of its groups. The ACL is first checked for
+ * the user alone; only if that fails is the user expanded into its principals by the
+ * {@link GroupMembershipCache}, so users granted access directly never pay for the expansion.
  */
 @Service
 public class PermissionCheckingService {
     private final DocumentRepository documentRepository;
+    private final AclIndex aclIndex;
+    private final GroupMembershipCache groupMemberships;
+    private final DocumentRequestContext requestContext;
+    private final SingleFlight<PermissionCheck, Boolean> permissionChecks;
 
     /**
      * Constructs the {@code PermissionCheckingService} with the required
-     * {@link DocumentRepository}.
+     * {@link DocumentRepository}, {@link AclIndex} and {@link DocumentRequestContext}.
      *
      * @param documentRepository the repository used to fetch documents and their permissions
+     * @param aclIndex           the in-process index of document ACLs
+     * @param groupMemberships   expands a user into itself and its groups
+     * @param requestContext     memoizes the ACL and any document loaded for the current request
+     * @param permissionChecks   coalesces concurrent identical checks made against the database
      */
-    public PermissionCheckingService(DocumentRepository documentRepository) {
+    public PermissionCheckingService(DocumentRepository documentRepository, AclIndex aclIndex,
+                                     GroupMembershipCache groupMemberships, DocumentRequestContext requestContext,
+                                     SingleFlight<PermissionCheck, Boolean> permissionChecks) {
         this.documentRepository = documentRepository;
+        this.aclIndex = aclIndex;
+        this.groupMemberships = groupMemberships;
+        this.requestContext = requestContext;
+        this.permissionChecks = permissionChecks;
     }
 
     /**
@@ -36,6 +62,18 @@ public class PermissionCheckingService {
      * @return {@code true} if the user can create new documents; {@code false} otherwise
      */
     public boolean hasCreateNewPermission(String username) {
+        return isAdmin(username);
+    }
+
+    /**
+     * Checks if the given user may administer the service, e.g. read its reports or manage groups.
+     * <p>
+     * In this implementation, only the user "admin" may.
+     *
+     * @param username the username of the user to check
+     * @return {@code true} if the user is the administrator; {@code false} otherwise
+     */
+    public boolean isAdmin(String username) {
         return "admin".equalsIgnoreCase(username);
     }
 
@@ -52,15 +90,7 @@ public class PermissionCheckingService {
             return true;
         }
 
-        Optional<Document> optDoc = documentRepository.findById(documentId);
-        if (optDoc.isEmpty()) {
-            return false;
-        }
-
-        Document document = optDoc.get();
-
-        return document.getAccessibleUsers().stream()
-                .anyMatch(user -> user.getUsername().equals(username) && user.getPermission() == Permissions.WRITE);
+        return hasPermission(username, documentId, Permissions.WRITE);
     }
 
     /**
@@ -72,15 +102,7 @@ public class PermissionCheckingService {
      *         {@code false} if the document does not exist or user lacks permission
      */
     public boolean hasReadPermission(String username, Long documentId) {
-        Optional<Document> optDoc = documentRepository.findById(documentId);
-        if (optDoc.isEmpty()) {
-            return false;
-        }
-
-        Document document = optDoc.get();
-
-        return document.getAccessibleUsers().stream()
-                .anyMatch(user -> user.getUsername().equals(username) && user.getPermission() == Permissions.READ);
+        return hasPermission(username, documentId, Permissions.READ);
     }
 
     /**
@@ -92,14 +114,34 @@ public class PermissionCheckingService {
      *         {@code false} if the document does not exist or user lacks permission
      */
     public boolean hasDeletePermission(String username, Long documentId) {
-        Optional<Document> optDoc = documentRepository.findById(documentId);
-        if (optDoc.isEmpty()) {
+        return hasPermission(username, documentId, Permissions.DELETE);
+    }
+
+    private boolean hasPermission(String username, Long documentId, Permissions permission) {
+        if (!aclIndex.isEnabled()) {
+            return permissionChecks.execute(new PermissionCheck(documentId, username, permission),
+                    () -> documentRepository.existsWithPermission(documentId, groupMemberships.principals(username), permission));
+        }
+
+        DocumentAcl acl = requestContext.getAcl(documentId, id -> aclIndex.get(id, this::loadAcl));
+        if (acl == null) {
             return false;
         }
+        return acl.allows(username, permission) || acl.allows(groupMemberships.principals(username), permission);
+    }
 
-        Document document = optDoc.get();
+    private DocumentAcl loadAcl(Long documentId) {
+        Document document = requestContext.getDocument(documentId, documentRepository::findById);
+        return document == null ? null : DocumentAcl.of(document.getAccessibleUsers());
+    }
 
-        return document.getAccessibleUsers().stream()
-                .anyMatch(user -> user.getUsername().equals(username) && user.getPermission() == Permissions.DELETE);
+    /**
+     * A permission check answered by the database, the key under which identical checks are coalesced.
+     *
+     * @param documentId the document ID
+     * @param username   the user
+     * @param permission the permission checked
+     */
+    public record PermissionCheck(Long documentId, String username, Permissions permission) {
     }
 }
@@ -0,0 +1,164 @@
+package com.assignment.progresssoft.service;
+
+import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
+import com.assignment.progresssoft.dto.response.IngestError;
+import com.assignment.progresssoft.dto.response.IngestResponse;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.search.SearchIndex;
+import com.assignment.progresssoft.security.cache.UserAccessIndex;
+import com.assignment.progresssoft.security.cache.UserAccessIndex.Grants;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates documents from a newline-delimited JSON upload.
+ * <p>
+ * Lines are parsed one at a time and persisted in batches of {@code documents.ingest.batch-size};
+ * after each batch the persistence context is flushed and cleared, so memory use does not depend
+ * on the size of the upload. With sequence-generated IDs and {@code hibernate.jdbc.batch_size},
+ * each flush sends the documents and their ACL rows as JDBC batches. The bodies of a batch are
+ * written to the {@link DeduplicatingContentStore} together just before, with a few statements per
+ * batch rather than per document. The grants of the new documents are
+ * collected as compressed bitmaps and added to the {@link UserAccessIndex} once the upload commits.
+ * <p>
+ * The terms of each batch are put into the {@link SearchIndex} as it is flushed rather than held until
+ * the commit, which would keep the terms of the whole upload on the heap. The new documents cannot be
+ * found meanwhile: searches only return documents the user can read, and no one can read them before
+ * their grants are committed. If the upload rolls back, they are removed from the index again.
+ */
+@Service
+public class DocumentIngestService {
+
+    /**
+     * Maximum number of rejected lines described in the response; further ones are only counted.
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final EntityManager entityManager;
+    private final DeduplicatingContentStore contentStore;
+    private final UserAccessIndex accessIndex;
+    private final SearchIndex searchIndex;
+    private final Validator validator;
+    private final ObjectReader documentReader;
+    private final int batchSize;
+
+    /**
+     * Constructs the service.
+     *
+     * @param entityManager the entity manager used to persist and flush batches
+     * @param contentStore  the storage engine receiving the document bodies
+     * @param accessIndex   receives the grants of the ingested documents once the upload commits
+     * @param searchIndex   receives the terms of the ingested documents, batch by batch
+     * @param validator     validates each line as a {@link CreateDocumentRequest}
+     * @param objectMapper  the mapper used to parse lines
+     * @param batchSize     the number of documents persisted per flush
+     */
+    public DocumentIngestService(EntityManager entityManager, DeduplicatingContentStore contentStore,
+                                 UserAccessIndex accessIndex, SearchIndex searchIndex, Validator validator,
+                                 ObjectMapper objectMapper,
+                                 @Value("${documents.ingest.batch-size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.contentStore = contentStore;
+        this.accessIndex = accessIndex;
+        this.searchIndex = searchIndex;
+        this.validator = validator;
+        this.documentReader = objectMapper.readerFor(CreateDocumentRequest.class);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Persists every valid line of the upload as a new document, in one transaction.
+     * <p>
+     * Lines failing validation are skipped and reported. Malformed JSON aborts the upload
+     * and rolls back every document persisted so far.
+     *
+     * @param ndjson the upload, one {@link CreateDocumentRequest} per line
+     * @return the number of documents ingested and rejected, with the first rejected lines
+     * @throws IOException if the upload cannot be read or is not valid JSON
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public IngestResponse ingestDocuments(InputStream ndjson) throws IOException {
+        long ingested = 0;
+        long rejected = 0;
+        List<IngestError> errors = new ArrayList<>();
+        Grants grants = new Grants();
+        Roaring64Bitmap indexed = new Roaring64Bitmap();
+        List<CreateDocumentRequest> batch = new ArrayList<>(batchSize);
+        TransactionCallbacks.afterRollback(() -> indexed.forEach(searchIndex::remove));
+
+        try (MappingIterator<CreateDocumentRequest> requests = documentReader.readValues(ndjson)) {
+            while (requests.hasNextValue()) {
+                CreateDocumentRequest request = requests.nextValue();
+                Set<ConstraintViolation<CreateDocumentRequest>> violations = validator.validate(request);
+                if (!violations.isEmpty()) {
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new IngestError(requests.getCurrentLocation().getLineNr(), describe(violations)));
+                    }
+                    rejected++;
+                    continue;
+                }
+
+                batch.add(request);
+                ingested++;
+                if (batch.size() == batchSize) {
+                    persist(batch, grants, indexed);
+                }
+            }
+        }
+        persist(batch, grants, indexed);
+        TransactionCallbacks.afterCommit(() -> accessIndex.apply(grants));
+        return new IngestResponse(ingested, rejected, errors);
+    }
+
+    /**
+     * Stores the bodies of a batch, persists its documents, flushes and clears the persistence context
+     * and puts the terms of the flushed documents into the index. The batch is emptied.
+     */
+    private void persist(List<CreateDocumentRequest> batch, Grants grants, Roaring64Bitmap indexed) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ContentLocation> locations = contentStore.writeAll(
+                batch.stream().map(CreateDocumentRequest::getFileType).toList(),
+                batch.stream().map(request -> request.getContent().getBytes(StandardCharsets.UTF_8)).toList());
+        List<SearchIndex.Entry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            CreateDocumentRequest request = batch.get(i);
+            Document document = DocumentService.toDocument(request, locations.get(i));
+            entityManager.persist(document);
+            grants.add(document.getId(), document.getAccessibleUsers());
+            entries.add(searchIndex.analyze(document.getId(), document.getName(), document.getFileType(), request.getContent()));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        searchIndex.putAll(entries);
+        entries.forEach(entry -> indexed.addLong(entry.getDocumentId()));
+        batch.clear();
+    }
+
+    private static String describe(Set<ConstraintViolation<CreateDocumentRequest>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath().toString().isEmpty() ? violation.getMessage() :
+                        violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
@@ -1,17 +1,72 @@
 package com.assignment.progresssoft.service;
 
+import com.assignment.progresssoft.concurrent.SingleFlight;
+import com.assignment.progresssoft.context.DocumentRequestContext;
+import com.assignment.progresssoft.dto.IdSetCodec;
 import com.assignment.progresssoft.dto.request.BatchPermissionRequest;
+import com.assignment.progresssoft.dto.request.BulkGrantRequest;
 import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
 import com.assignment.progresssoft.dto.request.GrantPermissionRequest;
+import com.assignment.progresssoft.dto.response.AccessIndexStatsResponse;
 import com.assignment.progresssoft.dto.response.AccessibleIdsResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResult;
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.dto.response.DocumentPageResponse;
 import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.dto.response.SearchResponse;
+import com.assignment.progresssoft.dto.response.SearchResult;
+import com.assignment.progresssoft.enums.DocumentSort;
+import com.assignment.progresssoft.enums.GrantStatus;
 import com.assignment.progresssoft.enums.Permissions;
 import com.assignment.progresssoft.model.Document;
 import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository.Grant;
+import com.assignment.progresssoft.repository.ContentBlobRepository;
+import com.assignment.progresssoft.repository.DocumentFilter;
 import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.repository.DocumentVersion;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.cache.DocumentAcl;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
+import com.assignment.progresssoft.security.cache.UserAccessIndex;
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import com.assignment.progresssoft.security.cache.UserAccessIndex.Grants;
+import com.assignment.progresssoft.search.SearchIndex;
+import com.assignment.progresssoft.storage.CapturingInputStream;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -20,107 +75,690 @@ import java.util.stream.Stream;
 @Service
 public class DocumentService {
     private final DocumentRepository documentRepository;
+    private final DeduplicatingContentStore contentStore;
+    private final ContentBlobRepository contentBlobRepository;
+    private final AccessibleUserJdbcRepository accessibleUserJdbcRepository;
+    private final AclIndex aclIndex;
+    private final UserAccessIndex accessIndex;
+    private final SearchIndex searchIndex;
+    private final GroupMembershipCache groupMemberships;
+    private final PermissionCheckingService permissionCheckingService;
+    private final DocumentRequestContext requestContext;
+    private final SingleFlight<Long, Optional<Document>> documentLoads;
+    private final int countLimit;
+    private final DistributionSummary listedDocuments;
+    private final DistributionSummary checkedIds;
+    private final DistributionSummary accessibleIds;
+    private final DistributionSummary matchedDocuments;
+    private final DistributionSummary readableMatches;
 
     /**
      * Constructs a new {@code DocumentService} with the provided {@link DocumentRepository}.
      *
-     * @param documentRepository the repository used for document persistence and retrieval
+     * @param documentRepository        the repository used for document persistence and retrieval
+     * @param contentStore              stores document bodies, compressed where worthwhile and once per distinct body
+     * @param contentBlobRepository     reports on the distinct bodies stored
+     * @param accessibleUserJdbcRepository writes ACL rows in JDBC batches for bulk grants
+     * @param aclIndex                  the ACL index kept in sync with every permission change
+     * @param accessIndex               the per-user bitmaps of accessible documents, kept in sync likewise
+     * @param searchIndex               the full-text index of names and bodies, kept in sync likewise
+     * @param groupMemberships          expands a user into itself and its groups for listings and checks
+     * @param permissionCheckingService tells whether the requester of a bulk grant or check is the administrator
+     * @param requestContext            memoizes documents already loaded for the current request
+     * @param documentLoads             coalesces concurrent loads of the same document for reading
+     * @param countLimit                the number of matches at which counting a filtered listing stops
+     * @param meterRegistry             receives the sizes of listings, batch access checks and searches
      */
-    public DocumentService(DocumentRepository documentRepository) { this.documentRepository = documentRepository; }
+    public DocumentService(DocumentRepository documentRepository, DeduplicatingContentStore contentStore,
+                           ContentBlobRepository contentBlobRepository,
+                           AccessibleUserJdbcRepository accessibleUserJdbcRepository,
+                           AclIndex aclIndex, UserAccessIndex accessIndex, SearchIndex searchIndex,
+                           GroupMembershipCache groupMemberships,
+                           PermissionCheckingService permissionCheckingService,
+                           DocumentRequestContext requestContext,
+                           SingleFlight<Long, Optional<Document>> documentLoads,
+                           @Value("${documents.list.count-limit:10000}") int countLimit, MeterRegistry meterRegistry) {
+        this.documentRepository = documentRepository;
+        this.contentStore = contentStore;
+        this.contentBlobRepository = contentBlobRepository;
+        this.accessibleUserJdbcRepository = accessibleUserJdbcRepository;
+        this.aclIndex = aclIndex;
+        this.accessIndex = accessIndex;
+        this.searchIndex = searchIndex;
+        this.groupMemberships = groupMemberships;
+        this.permissionCheckingService = permissionCheckingService;
+        this.requestContext = requestContext;
+        this.documentLoads = documentLoads;
+        this.countLimit = countLimit;
+        this.listedDocuments = DistributionSummary.builder("documents.list.size")
+                .description("Documents returned by a full listing")
+                .register(meterRegistry);
+        this.checkedIds = DistributionSummary.builder("documents.access.check.size")
+                .description("Document IDs of a batch access check")
+                .tag("ids", "requested")
+                .register(meterRegistry);
+        this.accessibleIds = DistributionSummary.builder("documents.access.check.size")
+                .description("Document IDs of a batch access check")
+                .tag("ids", "accessible")
+                .register(meterRegistry);
+        this.matchedDocuments = DistributionSummary.builder("documents.search.size")
+                .description("Documents matching a search")
+                .tag("documents", "matched")
+                .register(meterRegistry);
+        this.readableMatches = DistributionSummary.builder("documents.search.size")
+                .description("Documents matching a search")
+                .tag("documents", "readable")
+                .register(meterRegistry);
+    }
 
     /**
      * Retrieves all documents that the specified user has READ permission for.
+     * <p>
+     * Once the {@link UserAccessIndex} is loaded, the user's bitmap is iterated and the documents are
+     * read by ID, {@link AccessibleUserJdbcRepository#BATCH_SIZE} at a time as the stream is consumed.
+     * Before that, the permission filter is evaluated by the database against the ACL index, so only
+     * matching documents are read. The number of documents is recorded in {@code documents.list.size}.
      *
      * @param username the username to filter documents by READ access
      * @return a stream of {@link DocumentResponse} objects
      */
     public Stream<DocumentResponse> getAllDocuments(String username) {
-        return documentRepository.findAll().stream()
-                .filter(document -> document.getAccessibleUsers().stream()
-                        .anyMatch(user ->
-                                user.getUsername().equals(username) &&
-                                        user.getPermission() == Permissions.READ
-                        ))
-                .map(document -> new DocumentResponse(
-                        document.getName(),
-                        document.getContent(),
-                        document.getFileType()
-                ));
+        List<String> principals = groupMemberships.principals(username);
+        if (accessIndex.isReady()) {
+            Roaring64Bitmap readable = accessIndex.snapshot(principals, Permissions.READ);
+            listedDocuments.record(readable.getLongCardinality());
+            PeekableLongIterator ids = readable.getLongIterator();
+            return Stream.generate(() -> nextChunk(ids))
+                    .takeWhile(chunk -> !chunk.isEmpty())
+                    .flatMap(chunk -> documentRepository.findResponsesByIds(chunk).stream());
+        }
+        List<DocumentResponse> documents = documentRepository.findAllWithPermission(principals, Permissions.READ);
+        listedDocuments.record(documents.size());
+        return documents.stream();
+    }
+
+    /**
+     * Retrieves the documents matching a filter that the specified user has READ permission for.
+     * <p>
+     * Without conditions and in ID order, this is {@link #getAllDocuments(String)}. Otherwise the
+     * documents are read by the database in pages of {@link AccessibleUserJdbcRepository#BATCH_SIZE},
+     * with the ACL, file type and name conditions in one indexed statement per page, as the stream is
+     * consumed.
+     *
+     * @param username the username to filter documents by READ access
+     * @param filter   the conditions and the order of the listing
+     * @return a stream of {@link DocumentResponse} objects, in the order of the filter
+     */
+    public Stream<DocumentResponse> getAllDocuments(String username, DocumentFilter filter) {
+        if (filter.isNone()) {
+            return getAllDocuments(username);
+        }
+        List<String> principals = groupMemberships.principals(username);
+        int batchSize = AccessibleUserJdbcRepository.BATCH_SIZE;
+        return Stream.iterate(
+                        documentRepository.findFilteredPage(principals, Permissions.READ, filter, null, null, batchSize),
+                        page -> !page.isEmpty(),
+                        page -> {
+                            if (page.size() < batchSize) {
+                                return List.of();
+                            }
+                            DocumentResponse last = page.get(page.size() - 1);
+                            return documentRepository.findFilteredPage(
+                                    principals, Permissions.READ, filter, last.getId(), last.getName(), batchSize);
+                        })
+                .flatMap(List::stream);
+    }
+
+    /**
+     * Retrieves one page of documents that the specified user has READ permission for.
+     * <p>
+     * Pages are keyed on the document ID: the next page is requested by passing the
+     * {@code nextCursor} of the previous page as {@code after}. Once the {@link UserAccessIndex} is
+     * loaded, the IDs of the page are taken from the user's bitmap and only those documents are read.
+     *
+     * @param username the username to filter documents by READ access
+     * @param limit    the maximum number of documents to return
+     * @param after    the ID after which the page starts, or {@code null} for the first page
+     * @return a {@link DocumentPageResponse} with the documents and the cursor of the next page
+     */
+    public DocumentPageResponse getDocumentPage(String username, int limit, Long after) {
+        List<String> principals = groupMemberships.principals(username);
+        if (accessIndex.isReady()) {
+            long[] ids = accessIndex.page(principals, Permissions.READ, after == null ? 0L : after, limit);
+            List<DocumentResponse> documents = ids.length == 0 ? List.of() :
+                    documentRepository.findResponsesByIds(Arrays.stream(ids).boxed().toList());
+            return new DocumentPageResponse(documents, ids.length < limit ? null : ids[ids.length - 1]);
+        }
+        List<DocumentResponse> documents = documentRepository.findPageWithPermission(
+                principals, Permissions.READ, after == null ? 0L : after, Limit.of(limit));
+        Long nextCursor = documents.size() < limit ? null : documents.get(documents.size() - 1).getId();
+        return new DocumentPageResponse(documents, nextCursor);
+    }
+
+    /**
+     * Retrieves one page of the documents matching a filter that the specified user has READ permission for.
+     * <p>
+     * Pages are keyed on the position of the last document of the previous page: its ID, passed as
+     * {@code after}, and when sorting by name its name, passed as {@code afterName}. Without conditions
+     * and in ID order, the page is taken from the {@link UserAccessIndex} as in
+     * {@link #getDocumentPage(String, int, Long)}; otherwise it is read with one indexed statement.
+     * <p>
+     * The first page also carries the number of matching documents. The index counts the documents of
+     * an unfiltered listing exactly; a filtered listing is counted by the database up to
+     * {@code documents.list.count-limit}, past which the total is that limit and flagged as not exact.
+     *
+     * @param username  the username to filter documents by READ access
+     * @param limit     the maximum number of documents to return
+     * @param after     the ID of the document after which the page starts, or {@code null} for the first page
+     * @param afterName the name of that document; required with {@code after} when sorting by name
+     * @param filter    the conditions and the order of the listing
+     * @return a {@link DocumentPageResponse} with the documents, the position of the next page and the total
+     * @throws IllegalArgumentException if sorting by name from a document without its name
+     */
+    public DocumentPageResponse getDocumentPage(String username, int limit, Long after, String afterName,
+                                                DocumentFilter filter) {
+        boolean byName = filter.sort() == DocumentSort.NAME;
+        if (byName && after != null && afterName == null) {
+            throw new IllegalArgumentException("afterName is required to page by name");
+        }
+        List<String> principals = groupMemberships.principals(username);
+        List<DocumentResponse> documents;
+        Long nextCursor;
+        if (filter.isNone() && accessIndex.isReady()) {
+            DocumentPageResponse page = getDocumentPage(username, limit, after);
+            documents = page.getDocuments();
+            nextCursor = page.getNextCursor();
+        } else {
+            documents = documentRepository.findFilteredPage(principals, Permissions.READ, filter, after, afterName, limit);
+            nextCursor = documents.size() < limit ? null : documents.get(documents.size() - 1).getId();
+        }
+        String nextName = byName && nextCursor != null ? documents.get(documents.size() - 1).getName() : null;
+        if (after != null) {
+            return new DocumentPageResponse(documents, nextCursor, nextName, null, false);
+        }
+        if (filter.isNone() && accessIndex.isReady()) {
+            return new DocumentPageResponse(documents, nextCursor, nextName,
+                    accessIndex.count(principals, Permissions.READ), true);
+        }
+        long count = nextCursor == null ? documents.size() :
+                documentRepository.countFiltered(principals, Permissions.READ, filter, countLimit + 1L);
+        return new DocumentPageResponse(documents, nextCursor, nextName, Math.min(count, countLimit), count <= countLimit);
+    }
+
+    /**
+     * Searches the names and bodies of the documents that the specified user has READ permission for.
+     * <p>
+     * The {@link SearchIndex} returns the documents containing every term of the query; they are
+     * intersected with the user's READ bitmap, or checked against the ACL table while the
+     * {@link UserAccessIndex} is loading, and only the readable ones are ranked. The documents of the
+     * requested page are then read by ID. The number of matching and of readable documents is
+     * recorded in {@code documents.search.size}.
+     *
+     * @param username the username to filter documents by READ access
+     * @param query    the words to search for
+     * @param limit    the maximum number of results to return
+     * @param offset   the number of best results to skip
+     * @return a {@link SearchResponse} with the readable matches, best first
+     * @throws IllegalArgumentException if the query contains no searchable term
+     * @throws IllegalStateException    if the search index is not loaded
+     */
+    public SearchResponse search(String username, String query, int limit, int offset) {
+        List<String> terms = SearchIndex.terms(query);
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("The query contains no searchable term");
+        }
+        if (!searchIndex.isReady()) {
+            throw new IllegalStateException("The search index is loading");
+        }
+        Roaring64Bitmap readable = searchIndex.match(terms);
+        matchedDocuments.record(readable.getLongCardinality());
+        List<String> principals = groupMemberships.principals(username);
+        if (accessIndex.isReady()) {
+            accessIndex.retain(principals, Permissions.READ, readable);
+        } else if (!readable.isEmpty()) {
+            readable = Roaring64Bitmap.bitmapOf(accessibleUserJdbcRepository.findDocumentIdsWithPermission(
+                    readable.toArray(), Permissions.READ.mask(), principals));
+        }
+        long total = readable.getLongCardinality();
+        readableMatches.record(total);
+
+        List<SearchIndex.Hit> hits = searchIndex.rank(terms, readable, offset + limit);
+        hits = hits.subList(Math.min(offset, hits.size()), hits.size());
+        Map<Long, DocumentResponse> documents = new HashMap<>();
+        if (!hits.isEmpty()) {
+            documentRepository.findResponsesByIds(hits.stream().map(SearchIndex.Hit::documentId).toList())
+                    .forEach(document -> documents.put(document.getId(), document));
+        }
+        List<SearchResult> results = hits.stream()
+                .filter(hit -> documents.containsKey(hit.documentId()))
+                .map(hit -> new SearchResult(documents.get(hit.documentId()), hit.score()))
+                .toList();
+        return new SearchResponse(total, results, offset + limit < total ? offset + limit : null);
+    }
+
+    /**
+     * Streams the documents matching a filter that the specified user has READ permission for to the
+     * given consumer.
+     * <p>
+     * Rows are read from an open cursor with a fixed fetch size, so memory use does not
+     * depend on the number of documents. A document readable through several of the user's
+     * principals comes in consecutive rows and is passed on once. Without conditions and in ID
+     * order, the rows come from {@link DocumentRepository#streamAllWithPermission}; otherwise from
+     * one indexed statement with the conditions of the filter.
+     *
+     * @param username the username to filter documents by READ access
+     * @param filter   the conditions and the order of the listing
+     * @param consumer receives each {@link DocumentResponse} in the order of the filter
+     */
+    @Transactional(readOnly = true)
+    public void streamAllDocuments(String username, DocumentFilter filter, Consumer<DocumentResponse> consumer) {
+        List<String> principals = groupMemberships.principals(username);
+        try (Stream<DocumentResponse> documents = filter.isNone()
+                ? documentRepository.streamAllWithPermission(principals, Permissions.READ)
+                : documentRepository.streamFiltered(principals, Permissions.READ, filter)) {
+            long[] previousId = {Long.MIN_VALUE};
+            documents.forEach(document -> {
+                if (document.getId() != previousId[0]) {
+                    previousId[0] = document.getId();
+                    consumer.accept(document);
+                }
+            });
+        }
     }
 
     /**
      * Retrieves a document by its unique identifier.
+     * <p>
+     * A document already loaded during the current request, e.g. by the permission check,
+     * is returned without another query.
      *
      * @param id the ID of the document
      * @return the {@link Document} object if found, or {@code null} if not found
      */
     public Document getDocumentById(Long id) {
-        return documentRepository.findById(id).orElse(null);
+        return requestContext.getDocument(id, documentRepository::findById);
     }
 
+    /**
+     * Retrieves a document by its unique identifier for a request that only reads it.
+     * <p>
+     * Like {@link #getDocumentById(Long)}, but when it was not loaded during the current request,
+     * concurrent calls for the same document share a single query. The returned instance may be
+     * shared with other requests, and must not be modified.
+     *
+     * @param id the ID of the document
+     * @return the {@link Document} object if found, or {@code null} if not found
+     */
+    public Document getDocumentForReading(Long id) {
+        return requestContext.getDocument(id, key -> documentLoads.execute(key, () -> documentRepository.findById(key)));
+    }
+
+    /**
+     * Retrieves the version of a document, to answer a conditional request without loading it.
+     * <p>
+     * A document already loaded during the current request provides its version without a query;
+     * otherwise the version is read by primary key.
+     *
+     * @param id the ID of the document
+     * @return the {@link DocumentVersion}, or {@code null} if not found
+     */
+    public DocumentVersion getDocumentVersion(Long id) {
+        Document document = requestContext.peekDocument(id);
+        if (document != null) {
+            return new DocumentVersion(document.getVersion(), document.getUpdatedAt());
+        }
+        return documentRepository.findVersionById(id).orElse(null);
+    }
+
+
+    /**
+     * Copies a byte range of a document's decoded body to the given stream.
+     * <p>
+     * The body is read from the {@link DeduplicatingContentStore} in chunks; it is never held on the heap as a whole.
+     *
+     * @param document the document whose body is read
+     * @param offset   the index of the first decoded byte to copy
+     * @param length   the number of decoded bytes to copy
+     * @param out      the stream to copy to
+     * @throws IOException if the body cannot be read or written
+     */
+    @Transactional(readOnly = true)
+    public void streamContent(Document document, long offset, long length, OutputStream out) throws IOException {
+        contentStore.read(document.getContentLocation(), offset, length, out);
+    }
+
+    /**
+     * Copies a document's body to the given stream as stored, in its
+     * {@link com.assignment.progresssoft.model.embedded.ContentLocation#getEncoding() encoding}.
+     *
+     * @param document the document whose body is read
+     * @param out      the stream to copy to
+     * @throws IOException if the body cannot be read or written
+     */
+    @Transactional(readOnly = true)
+    public void streamEncodedContent(Document document, OutputStream out) throws IOException {
+        contentStore.readEncoded(document.getContentLocation(), out);
+    }
+
+    /**
+     * Replaces the body of a document with the given stream.
+     * <p>
+     * When the body of the file type is indexed, its leading characters are kept as it is stored and
+     * the document is put into the {@link SearchIndex} again once the transaction commits.
+     *
+     * @param document the document to update
+     * @param content  the new body, read to its end
+     * @param size     the size of the new body in bytes, or {@code -1} if unknown
+     * @throws IOException if the body cannot be read or stored
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public void replaceContent(Document document, InputStream content, long size) throws IOException {
+        ContentLocation previous = document.getContentLocation();
+        boolean indexed = document.getId() != null && searchIndex.indexesContent(document.getFileType());
+        CapturingInputStream captured = new CapturingInputStream(content, indexed ? searchIndex.getMaxContentLength() : 0);
+        document.setContentLocation(contentStore.write(document.getFileType(), size, captured));
+        documentRepository.save(document);
+        contentStore.delete(previous);
+        requestContext.evict(document.getId());
+        if (indexed) {
+            SearchIndex.Entry entry = searchIndex.analyze(document.getId(), document.getName(), document.getFileType(),
+                    new String(captured.getCaptured(), StandardCharsets.UTF_8));
+            TransactionCallbacks.afterCommit(() -> searchIndex.put(entry));
+        }
+    }
 
     /**
      * Creates a new document with the provided information.
      *
      * @param createDocumentRequest the request containing document metadata and accessible users
      */
+    @Transactional
     public void createDocument(CreateDocumentRequest createDocumentRequest) {
+        Document document = toDocument(createDocumentRequest, contentStore);
+
+        documentRepository.save(document);
+        refreshAcl(document);
+        if (document.getId() != null) {
+            SearchIndex.Entry entry = searchIndex.analyze(document.getId(), document.getName(), document.getFileType(),
+                    createDocumentRequest.getContent());
+            TransactionCallbacks.afterCommit(() -> searchIndex.put(entry));
+        }
+    }
+
+    /**
+     * Builds a new, unsaved document from a creation request and stores its body.
+     *
+     * @param createDocumentRequest the request containing document metadata and accessible users
+     * @param contentStore          stores the body, or shares an identical one already stored
+     * @return the new {@link Document}
+     */
+    static Document toDocument(CreateDocumentRequest createDocumentRequest, DeduplicatingContentStore contentStore) {
+        try {
+            byte[] content = createDocumentRequest.getContent().getBytes(StandardCharsets.UTF_8);
+            return toDocument(createDocumentRequest, contentStore.write(createDocumentRequest.getFileType(), content));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds a new, unsaved document from a creation request whose body is already stored.
+     *
+     * @param createDocumentRequest the request containing document metadata and accessible users
+     * @param contentLocation       the location of the stored body
+     * @return the new {@link Document}
+     */
+    static Document toDocument(CreateDocumentRequest createDocumentRequest, ContentLocation contentLocation) {
         Document document = new Document();
 
         document.setName(createDocumentRequest.getName());
-        document.setContent(createDocumentRequest.getContent());
         document.setFileType(createDocumentRequest.getFileType());
         document.setAccessibleUsers(createDocumentRequest.getAccessibleUsers());
-
-        documentRepository.save(document);
+        document.setContentLocation(contentLocation);
+        return document;
     }
 
     /**
-     * Updates or grants a new permission to a user for a given document.
+     * Grants a permission to a user for a given document.
+     * <p>
+     * The permission is added to the ones the user already holds on the document.
      *
      * @param permissionRequest the permission to grant
      * @param document          the document to update
      */
     public void updateDocument(GrantPermissionRequest permissionRequest, Document document) {
-        boolean updated = false;
+        AccessibleUser existing = null;
 
         for (AccessibleUser user : document.getAccessibleUsers()) {
             if(user.getUsername().equalsIgnoreCase(permissionRequest.getUsername())) {
-                user.setPermission(permissionRequest.getPermission());
-                updated = true;
+                existing = user;
                 break;
             }
         }
 
-        if (!updated) {
-            document.getAccessibleUsers().add(new AccessibleUser(permissionRequest.getUsername(), permissionRequest.getPermission()));
+        int permissionMask = permissionRequest.getPermission().mask();
+        if (existing != null) {
+            document.getAccessibleUsers().remove(existing);
+            permissionMask |= existing.getPermissionMask();
         }
+        document.getAccessibleUsers().add(new AccessibleUser(
+                existing != null ? existing.getUsername() : permissionRequest.getUsername(), permissionMask));
 
         documentRepository.save(document);
+        requestContext.evict(document.getId());
+        refreshAcl(document);
+    }
+
+    /**
+     * Grants permissions to every user of a request on every document of the request.
+     * <p>
+     * Each (document, user) pair is authorized and applied on its own: the requester must be
+     * "admin" or hold WRITE on the document. Granted permissions are added to the ones the user
+     * already holds. Usernames are matched ignoring case, as in {@link #updateDocument}: an existing
+     * row keeps its stored username. Documents are processed in chunks of {@link AccessibleUserJdbcRepository#BATCH_SIZE};
+     * per chunk, existence, WRITE access and the current masks are read with one query each and the
+     * changes are written with JDBC batches, all in one transaction. The versions of the changed
+     * documents are bumped; once the transaction commits, their ACL index entries are dropped and
+     * the grants are added to the {@link UserAccessIndex}.
+     *
+     * @param userName the username of the requester (can be "admin")
+     * @param request  the documents, users and permissions to grant
+     * @return the outcome of every (document, user) pair, with a count per outcome
+     * @throws IllegalArgumentException if the request holds more than {@link BulkGrantRequest#MAX_PAIRS} pairs
+     */
+    @Transactional
+    public BulkGrantResponse grantPermissions(String userName, BulkGrantRequest request) {
+        int grantMask = Permissions.toMask(request.getPermissions());
+        List<Long> documentIds = request.getDocumentIds().stream().sorted().toList();
+        Map<String, String> requested = new TreeMap<>();
+        request.getUsernames().stream().sorted()
+                .forEach(username -> requested.putIfAbsent(username.toLowerCase(Locale.ROOT), username));
+        List<String> usernames = List.copyOf(requested.values());
+        List<String> keys = List.copyOf(requested.keySet());
+
+        long pairs = (long) documentIds.size() * usernames.size();
+        if (pairs > BulkGrantRequest.MAX_PAIRS) {
+            throw new IllegalArgumentException("At most " + BulkGrantRequest.MAX_PAIRS + " (document, user) pairs, got " + pairs);
+        }
+        List<BulkGrantResult> results = new ArrayList<>((int) pairs);
+        Set<Long> changedIds = new HashSet<>();
+        Grants grants = new Grants();
+
+        for (List<Long> chunk : chunks(documentIds)) {
+            Set<Long> existingIds = documentRepository.findExistingIds(new HashSet<>(chunk));
+            Set<Long> writableIds = permissionCheckingService.isAdmin(userName) || existingIds.isEmpty() ? existingIds :
+                    documentRepository.findDocumentIdsWithPermission(existingIds, Permissions.WRITE,
+                            groupMemberships.principals(userName));
 
+            Map<Long, Map<String, AccessibleUser>> currentUsers = new HashMap<>();
+            if (!writableIds.isEmpty()) {
+                for (List<String> keyChunk : chunks(keys)) {
+                    accessibleUserJdbcRepository.findPermissionMasks(writableIds, keyChunk)
+                            .forEach((id, users) -> currentUsers.computeIfAbsent(id, key -> new HashMap<>()).putAll(users));
+                }
+            }
+
+            List<Grant> inserts = new ArrayList<>();
+            List<Grant> updates = new ArrayList<>();
+            for (Long documentId : chunk) {
+                Map<String, AccessibleUser> users = currentUsers.getOrDefault(documentId, Map.of());
+                for (int i = 0; i < usernames.size(); i++) {
+                    String username = usernames.get(i);
+                    AccessibleUser current = users.get(keys.get(i));
+                    GrantStatus status;
+                    if (!existingIds.contains(documentId)) {
+                        status = GrantStatus.DOCUMENT_NOT_FOUND;
+                    } else if (!writableIds.contains(documentId)) {
+                        status = GrantStatus.FORBIDDEN;
+                    } else if (current == null) {
+                        inserts.add(new Grant(documentId, username, grantMask));
+                        status = GrantStatus.GRANTED;
+                    } else if ((current.getPermissionMask() | grantMask) == current.getPermissionMask()) {
+                        status = GrantStatus.UNCHANGED;
+                    } else {
+                        updates.add(new Grant(documentId, current.getUsername(), current.getPermissionMask() | grantMask));
+                        status = GrantStatus.UPDATED;
+                    }
+                    if (status == GrantStatus.GRANTED || status == GrantStatus.UPDATED) {
+                        changedIds.add(documentId);
+                    }
+                    results.add(new BulkGrantResult(documentId, username, status));
+                }
+            }
+
+            if (!inserts.isEmpty()) {
+                accessibleUserJdbcRepository.insert(inserts);
+            }
+            if (!updates.isEmpty()) {
+                accessibleUserJdbcRepository.update(updates);
+            }
+            Stream.concat(inserts.stream(), updates.stream())
+                    .forEach(grant -> grants.add(grant.documentId(), grant.username(), grant.permissionMask()));
+        }
+
+        Instant now = Instant.now();
+        for (List<Long> chunk : chunks(changedIds.stream().sorted().toList())) {
+            documentRepository.touchDocuments(chunk, now);
+        }
+        changedIds.forEach(requestContext::evict);
+        TransactionCallbacks.afterCommit(() -> {
+            changedIds.forEach(aclIndex::invalidate);
+            accessIndex.apply(grants);
+        });
+
+        Map<GrantStatus, Long> summary = new EnumMap<>(GrantStatus.class);
+        results.forEach(result -> summary.merge(result.getStatus(), 1L, Long::sum));
+        return new BulkGrantResponse(summary, results);
     }
 
     /**
      * Checks which documents from a batch the specified user has the requested permission for.
+     * <p>
+     * The IDs are given either as a JSON set or, for large batches, in the {@link IdSetCodec} form, in
+     * which case the accessible IDs are returned in that form too. Once the {@link UserAccessIndex} is
+     * loaded they are intersected with the user's bitmap; before that, they are checked against the ACL
+     * table in chunks of {@link AccessibleUserJdbcRepository#ID_ARRAY_SIZE}. No document is loaded.
+     * The number of requested and of accessible IDs is recorded in {@code documents.access.check.size}.
      *
      * @param userName          the username of the requester (can be "admin")
      * @param permissionRequest contains the list of document IDs and the permission type
      * @return response containing a set of document IDs that the user can access
+     * @throws IllegalArgumentException if the encoded IDs are not a valid {@link IdSetCodec} encoding
      */
+    @Transactional(readOnly = true)
     public AccessibleIdsResponse checkPermissionBatch(String userName, BatchPermissionRequest permissionRequest) {
-        Set<Long> ids = userName.equals("admin") ?
-                documentRepository.findDocumentIdsWithPermission(permissionRequest.getDocumentIds(),permissionRequest.getPermission()) :
-                documentRepository.findDocumentIdsWithPermission(
-                        permissionRequest.getDocumentIds(),
-                        permissionRequest.getPermission(),
-                        userName);
-        return new AccessibleIdsResponse(ids);
+        boolean encoded = permissionRequest.getEncodedDocumentIds() != null;
+        long[] ids = encoded ?
+                IdSetCodec.decode(permissionRequest.getEncodedDocumentIds()) :
+                Stream.ofNullable(permissionRequest.getDocumentIds())
+                        .flatMap(Set::stream)
+                        .filter(Objects::nonNull)
+                        .mapToLong(Long::longValue)
+                        .sorted()
+                        .toArray();
+        List<String> principals = permissionCheckingService.isAdmin(userName) ? null : groupMemberships.principals(userName);
+        long[] accessible = accessIndex.isReady() ?
+                accessIndex.filter(principals, permissionRequest.getPermission(), ids) :
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, permissionRequest.getPermission().mask(), principals);
+        checkedIds.record(ids.length);
+        accessibleIds.record(accessible.length);
+        if (encoded) {
+            return new AccessibleIdsResponse(null, IdSetCodec.encode(accessible));
+        }
+        return new AccessibleIdsResponse(Arrays.stream(accessible).boxed()
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+    }
+
+    /**
+     * Reports how many distinct bodies are stored and how much storage sharing them saves.
+     *
+     * @return the {@link ContentStatsResponse}
+     */
+    @Transactional(readOnly = true)
+    public ContentStatsResponse getContentStats() {
+        return contentBlobRepository.getStats();
+    }
+
+    /**
+     * Reports on the {@link UserAccessIndex}.
+     *
+     * @return the {@link AccessIndexStatsResponse}
+     */
+    public AccessIndexStatsResponse getAccessIndexStats() {
+        return accessIndex.getStats();
     }
 
     /**
      * Deletes a document by its ID.
+     * <p>
+     * The document and its ACL rows are removed with bulk statements and the body through the
+     * {@link DeduplicatingContentStore}, so neither the ACL collection nor the body is loaded.
      *
      * @param id the ID of the document to delete
      */
-    public void deleteDocument(Long id) { documentRepository.deleteById(id); }
+    @Transactional
+    public void deleteDocument(Long id) {
+        Document document = getDocumentById(id);
+        if (document == null) {
+            return;
+        }
+
+        documentRepository.deleteDocumentById(id);
+        contentStore.delete(document.getContentLocation());
+        requestContext.evict(id);
+        TransactionCallbacks.afterCommit(() -> {
+            aclIndex.invalidate(id);
+            accessIndex.remove(id);
+            searchIndex.remove(id);
+        });
+    }
+
+    private static List<Long> nextChunk(PeekableLongIterator ids) {
+        List<Long> chunk = new ArrayList<>(AccessibleUserJdbcRepository.BATCH_SIZE);
+        while (chunk.size() < AccessibleUserJdbcRepository.BATCH_SIZE && ids.hasNext()) {
+            chunk.add(ids.next());
+        }
+        return chunk;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += AccessibleUserJdbcRepository.BATCH_SIZE) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + AccessibleUserJdbcRepository.BATCH_SIZE)));
+        }
+        return chunks;
+    }
+
+    private void refreshAcl(Document document) {
+        if (document.getId() != null) {
+            Long id = document.getId();
+            DocumentAcl acl = DocumentAcl.of(document.getAccessibleUsers());
+            Grants grants = new Grants();
+            grants.add(id, document.getAccessibleUsers());
+            TransactionCallbacks.afterCommit(() -> {
+                aclIndex.put(id, acl);
+                accessIndex.apply(grants);
+            });
+        }
+    }
 }
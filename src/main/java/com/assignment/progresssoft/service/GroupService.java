@@ -0,0 +1,80 @@
+package com.assignment.progresssoft.service;
+
+import com.assignment.progresssoft.dto.response.GroupMembersResponse;
+import com.assignment.progresssoft.repository.GroupMemberJdbcRepository;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service layer for group membership.
+ * <p>
+ * Groups are not created or granted through this service: a group exists once it has a member, and
+ * is granted permissions on documents like a user, under its principal {@code group:<name>}. Once a
+ * membership change commits, the principals of the users concerned are dropped from the
+ * {@link GroupMembershipCache}, so their next request sees it.
+ */
+@Service
+public class GroupService {
+    private final GroupMemberJdbcRepository groupMemberRepository;
+    private final GroupMembershipCache groupMemberships;
+
+    /**
+     * Constructs a new {@code GroupService}.
+     *
+     * @param groupMemberRepository reads and writes memberships
+     * @param groupMemberships      the cache of the principals of each user, invalidated on changes
+     */
+    public GroupService(GroupMemberJdbcRepository groupMemberRepository, GroupMembershipCache groupMemberships) {
+        this.groupMemberRepository = groupMemberRepository;
+        this.groupMemberships = groupMemberships;
+    }
+
+    /**
+     * Retrieves the members of a group.
+     *
+     * @param groupName the group
+     * @return the group, its principal and its members; no members if the group does not exist
+     */
+    @Transactional(readOnly = true)
+    public GroupMembersResponse getMembers(String groupName) {
+        return new GroupMembersResponse(groupName, GroupMembershipCache.groupPrincipal(groupName),
+                groupMemberRepository.findMembers(groupName));
+    }
+
+    /**
+     * Adds users to a group; users already in the group are left as they are.
+     *
+     * @param groupName the group
+     * @param usernames the users to add
+     * @throws IllegalArgumentException if one of the names is the principal of a group; groups do not nest
+     */
+    @Transactional
+    public void addMembers(String groupName, Set<String> usernames) {
+        if (usernames.stream().anyMatch(GroupMembershipCache::isGroupPrincipal)) {
+            throw new IllegalArgumentException("Groups cannot be members of groups");
+        }
+        List<String> sorted = usernames.stream().sorted().toList();
+        groupMemberRepository.addMembers(groupName, sorted);
+        TransactionCallbacks.afterCommit(() -> groupMemberships.invalidate(sorted));
+    }
+
+    /**
+     * Removes a user from a group.
+     *
+     * @param groupName the group
+     * @param username  the user
+     * @return {@code true} if the user was a member
+     */
+    @Transactional
+    public boolean removeMember(String groupName, String username) {
+        boolean removed = groupMemberRepository.removeMember(groupName, username);
+        if (removed) {
+            TransactionCallbacks.afterCommit(() -> groupMemberships.invalidate(List.of(username)));
+        }
+        return removed;
+    }
+}
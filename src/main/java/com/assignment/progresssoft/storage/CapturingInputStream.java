@@ -0,0 +1,57 @@
+package com.assignment.progresssoft.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps a copy of the first bytes read through it.
+ */
+public class CapturingInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    private final int limit;
+
+    /**
+     * @param in    the stream to read
+     * @param limit the number of leading bytes to keep
+     */
+    public CapturingInputStream(InputStream in, int limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the leading bytes read so far.
+     *
+     * @return at most {@code limit} bytes
+     */
+    public byte[] getCaptured() {
+        return captured.toByteArray();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0 && captured.size() < limit) {
+            captured.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0 && captured.size() < limit) {
+            captured.write(b, off, Math.min(n, limit - captured.size()));
+        }
+        return n;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
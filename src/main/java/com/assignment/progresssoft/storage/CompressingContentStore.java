@@ -0,0 +1,313 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.enums.ContentEncoding;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
+
+/**
+ * Compresses document bodies on their way into the {@link ContentStore} and decompresses them on the way out.
+ * <p>
+ * The encoding is chosen per body: file types listed in {@code documents.compression.deflate-file-types}
+ * of at least {@code documents.compression.min-size} bytes (or of unknown size) are stored deflated,
+ * everything else as is. Deflated bodies are in zlib format, which is the HTTP {@code deflate}
+ * content-coding, so they can be sent to clients accepting it without being decompressed.
+ * <p>
+ * Records the {@code documents.content.compression.ratio} of every compressed body and the CPU time
+ * spent in {@code documents.content.compression.cpu} and {@code documents.content.decompression.cpu}.
+ * The JVM does not measure the CPU time of virtual threads, so bodies encoded or decoded on one are
+ * left out of the CPU timers rather than recorded as taking none.
+ */
+@Component
+public class CompressingContentStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ContentStore contentStore;
+    private final Set<String> deflateFileTypes;
+    private final long minSize;
+    private final int level;
+
+    private final DistributionSummary compressionRatio;
+    private final Timer compressionCpu;
+    private final Timer decompressionCpu;
+
+    /**
+     * Constructs the store.
+     *
+     * @param contentStore      the storage engine holding the encoded bodies
+     * @param deflateFileTypes  the file types to compress
+     * @param minSize           the size in bytes under which bodies are stored as is
+     * @param level             the deflate level, 1 (fastest) to 9 (smallest)
+     * @param meterRegistry     receives the compression metrics
+     */
+    public CompressingContentStore(ContentStore contentStore,
+                                   @Value("${documents.compression.deflate-file-types}") String[] deflateFileTypes,
+                                   @Value("${documents.compression.min-size}") long minSize,
+                                   @Value("${documents.compression.level}") int level,
+                                   MeterRegistry meterRegistry) {
+        this.contentStore = contentStore;
+        this.deflateFileTypes = Arrays.stream(deflateFileTypes)
+                .map(fileType -> fileType.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.minSize = minSize;
+        this.level = level;
+        this.compressionRatio = DistributionSummary.builder("documents.content.compression.ratio")
+                .description("Decoded size divided by stored size of compressed bodies")
+                .register(meterRegistry);
+        this.compressionCpu = Timer.builder("documents.content.compression.cpu")
+                .description("CPU time spent compressing bodies")
+                .register(meterRegistry);
+        this.decompressionCpu = Timer.builder("documents.content.decompression.cpu")
+                .description("CPU time spent decompressing bodies")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chooses how a body is stored.
+     *
+     * @param fileType the file type of the document
+     * @param size     the size of the body in bytes, or {@code -1} if unknown
+     * @return the encoding to store the body with
+     */
+    public ContentEncoding chooseEncoding(String fileType, long size) {
+        boolean compressible = fileType != null && deflateFileTypes.contains(fileType.toLowerCase(Locale.ROOT));
+        return compressible && (size < 0 || size >= minSize) ? ContentEncoding.DEFLATE : ContentEncoding.NONE;
+    }
+
+    /**
+     * Stores a new body, compressing it if its file type and size call for it.
+     *
+     * @param fileType the file type of the document
+     * @param size     the size of the body in bytes, or {@code -1} if unknown
+     * @param content  the body
+     * @return the location of the stored body, with its encoding and decoded length
+     * @throws IOException if the stream cannot be read or the body cannot be stored
+     */
+    public ContentLocation write(String fileType, long size, InputStream content) throws IOException {
+        if (chooseEncoding(fileType, size) == ContentEncoding.NONE) {
+            return contentStore.write(content);
+        }
+
+        CountingInputStream raw = new CountingInputStream(content);
+        Deflater deflater = new Deflater(level);
+        long[] cpu = new long[1];
+        try {
+            ContentLocation location = contentStore.write(new DeflaterInputStream(raw, deflater, BUFFER_SIZE) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    long start = THREADS.getCurrentThreadCpuTime();
+                    try {
+                        return super.read(b, off, len);
+                    } finally {
+                        cpu[0] = addCpuTime(cpu[0], start);
+                    }
+                }
+            });
+            location.setEncoding(ContentEncoding.DEFLATE);
+            location.setLength(raw.getCount());
+            recordCpuTime(compressionCpu, cpu[0]);
+            if (location.getSize() > 0) {
+                compressionRatio.record((double) location.getLength() / location.getSize());
+            }
+            return location;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Stores several bodies held in memory, compressing those whose file type and size call for it.
+     *
+     * @param fileTypes the file type of the document of each body
+     * @param contents  the bodies
+     * @return the locations of the stored bodies, in the same order
+     * @throws IOException if a body cannot be stored
+     * @see ContentStore#writeAll(List)
+     */
+    public List<ContentLocation> writeAll(List<String> fileTypes, List<byte[]> contents) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            byte[] content = contents.get(i);
+            encoded.add(chooseEncoding(fileTypes.get(i), content.length) == ContentEncoding.DEFLATE ? deflate(content) : content);
+        }
+        List<ContentLocation> locations = contentStore.writeAll(encoded);
+        for (int i = 0; i < contents.size(); i++) {
+            if (encoded.get(i) != contents.get(i)) {
+                ContentLocation location = locations.get(i);
+                location.setEncoding(ContentEncoding.DEFLATE);
+                location.setLength(contents.get(i).length);
+                if (location.getSize() > 0) {
+                    compressionRatio.record((double) location.getLength() / location.getSize());
+                }
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Copies a byte range of a decoded body to the given stream.
+     *
+     * @param location the location returned by {@link #write(String, long, InputStream)}
+     * @param offset   the index of the first decoded byte to copy
+     * @param length   the number of decoded bytes to copy
+     * @param out      the stream to copy to; it is not closed
+     * @throws IOException if the body cannot be read or written to {@code out}
+     */
+    public void read(ContentLocation location, long offset, long length, OutputStream out) throws IOException {
+        if (location.getEncoding() == ContentEncoding.NONE) {
+            contentStore.read(location, offset, length, out);
+            return;
+        }
+
+        Inflater inflater = new Inflater();
+        long[] cpu = new long[1];
+        try {
+            InflaterOutputStream decoded = new InflaterOutputStream(new RangeOutputStream(out, offset, length), inflater, BUFFER_SIZE) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    long start = THREADS.getCurrentThreadCpuTime();
+                    try {
+                        super.write(b, off, len);
+                    } finally {
+                        cpu[0] = addCpuTime(cpu[0], start);
+                    }
+                }
+            };
+            contentStore.read(location, 0, location.getSize(), decoded);
+            decoded.finish();
+        } catch (RangeComplete e) {
+            // the requested range was written; the rest of the body is not needed
+        } finally {
+            inflater.end();
+            recordCpuTime(decompressionCpu, cpu[0]);
+        }
+    }
+
+    /**
+     * Copies a body as stored, still encoded, to the given stream.
+     *
+     * @param location the location returned by {@link #write(String, long, InputStream)}
+     * @param out      the stream to copy to; it is not closed
+     * @throws IOException if the body cannot be read or written to {@code out}
+     */
+    public void readEncoded(ContentLocation location, OutputStream out) throws IOException {
+        contentStore.read(location, 0, location.getSize(), out);
+    }
+
+    /**
+     * Deletes a stored body.
+     *
+     * @param location the location returned by {@link #write(String, long, InputStream)}
+     */
+    public void delete(ContentLocation location) {
+        contentStore.delete(location);
+    }
+
+    private byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(level);
+        long start = THREADS.getCurrentThreadCpuTime();
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(content.length / 2, 64));
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, Math.max(content.length, 64))];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            recordCpuTime(compressionCpu, addCpuTime(0, start));
+            deflater.end();
+        }
+    }
+
+    /**
+     * Adds the CPU time the current thread spent since {@code start} to {@code total}.
+     *
+     * @param total the CPU time measured so far, or {@code -1} if it cannot be measured
+     * @param start the CPU time of the current thread when the work started
+     * @return the new total, or {@code -1} if the current thread's CPU time is not measured,
+     * as for virtual threads
+     */
+    private static long addCpuTime(long total, long start) {
+        return total < 0 || start < 0 ? -1 : total + THREADS.getCurrentThreadCpuTime() - start;
+    }
+
+    private static void recordCpuTime(Timer timer, long cpu) {
+        if (cpu >= 0) {
+            timer.record(cpu, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Passes on bytes {@code offset} to {@code offset + length - 1} of what is written to it,
+     * and stops the copy once they are written.
+     */
+    private static final class RangeOutputStream extends FilterOutputStream {
+
+        private long skip;
+        private long remaining;
+
+        private RangeOutputStream(OutputStream out, long offset, long length) {
+            super(out);
+            this.skip = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int skipped = (int) Math.min(skip, len);
+            skip -= skipped;
+            int n = (int) Math.min(remaining, len - skipped);
+            if (n > 0) {
+                out.write(b, off + skipped, n);
+                remaining -= n;
+            }
+            if (remaining == 0) {
+                throw new RangeComplete();
+            }
+        }
+    }
+
+    private static final class RangeComplete extends IOException {
+
+        private RangeComplete() {
+            super(null, null);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
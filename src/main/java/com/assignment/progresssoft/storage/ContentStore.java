@@ -0,0 +1,63 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage engine for document bodies.
+ * <p>
+ * Bodies are written and read as streams, so no implementation needs to hold a whole body
+ * on the heap. A body is immutable once written: replacing a document's content writes a new
+ * body and deletes the old one.
+ */
+public interface ContentStore {
+
+    /**
+     * Stores a new body, reading the stream to its end.
+     *
+     * @param content the body
+     * @return the location of the stored body, including its size in bytes
+     * @throws IOException if the stream cannot be read or the body cannot be stored
+     */
+    ContentLocation write(InputStream content) throws IOException;
+
+    /**
+     * Stores several bodies held in memory. Stores backed by the database override it to write them
+     * with a constant number of statements; by default they are written one at a time.
+     *
+     * @param contents the bodies
+     * @return the locations of the stored bodies, in the same order
+     * @throws IOException if a body cannot be stored
+     */
+    default List<ContentLocation> writeAll(List<byte[]> contents) throws IOException {
+        List<ContentLocation> locations = new ArrayList<>(contents.size());
+        for (byte[] content : contents) {
+            locations.add(write(new ByteArrayInputStream(content)));
+        }
+        return locations;
+    }
+
+    /**
+     * Copies a byte range of a stored body to the given stream.
+     *
+     * @param location the location returned by {@link #write(InputStream)}
+     * @param offset   the index of the first byte to copy
+     * @param length   the number of bytes to copy
+     * @param out      the stream to copy to; it is not closed
+     * @throws IOException if the body cannot be read or written to {@code out}
+     */
+    void read(ContentLocation location, long offset, long length, OutputStream out) throws IOException;
+
+    /**
+     * Deletes a stored body. Deleting a body that does not exist has no effect.
+     *
+     * @param location the location returned by {@link #write(InputStream)}
+     */
+    void delete(ContentLocation location);
+}
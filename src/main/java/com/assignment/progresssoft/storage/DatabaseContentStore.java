@@ -0,0 +1,91 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * {@link ContentStore} keeping bodies in the BLOB column of {@code document_contents}.
+ * <p>
+ * Bodies are bound with {@code setBinaryStream} and read back through {@link Blob#getBinaryStream(long, long)},
+ * so the JDBC driver moves them in chunks instead of materializing them as byte arrays or strings.
+ * Bodies already held in memory, as during an ingest, are written together: their IDs are drawn from
+ * the sequence by one query and the rows inserted as one JDBC batch.
+ * Calls take part in the caller's transaction. Selected by {@code documents.content-store=database}, the default.
+ */
+@Component
+@ConditionalOnProperty(name = "documents.content-store", havingValue = "database", matchIfMissing = true)
+public class DatabaseContentStore implements ContentStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseContentStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public ContentLocation write(InputStream content) throws IOException {
+        Long id = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR document_contents_seq", Long.class);
+        CountingInputStream counted = new CountingInputStream(content);
+        jdbcTemplate.update("INSERT INTO document_contents (id, data) VALUES (?, ?)", ps -> {
+            ps.setLong(1, id);
+            ps.setBinaryStream(2, counted);
+        });
+        return new ContentLocation(id, counted.getCount());
+    }
+
+    @Override
+    public List<ContentLocation> writeAll(List<byte[]> contents) {
+        if (contents.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = jdbcTemplate.queryForList("SELECT NEXT VALUE FOR document_contents_seq FROM SYSTEM_RANGE(1, ?)",
+                Long.class, contents.size());
+        jdbcTemplate.batchUpdate("INSERT INTO document_contents (id, data) VALUES (?, ?)",
+                IntStream.range(0, contents.size()).boxed().toList(), contents.size(), (ps, i) -> {
+                    ps.setLong(1, ids.get(i));
+                    ps.setBytes(2, contents.get(i));
+                });
+        List<ContentLocation> locations = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            locations.add(new ContentLocation(ids.get(i), contents.get(i).length));
+        }
+        return locations;
+    }
+
+    @Override
+    public void read(ContentLocation location, long offset, long length, OutputStream out) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.query("SELECT data FROM document_contents WHERE id = ?", rs -> {
+                Blob blob = rs.getBlob(1);
+                try (InputStream in = blob.getBinaryStream(offset + 1, length)) {
+                    in.transferTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    blob.free();
+                }
+            }, location.getContentId());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void delete(ContentLocation location) {
+        jdbcTemplate.update("DELETE FROM document_contents WHERE id = ?", location.getContentId());
+    }
+}
@@ -0,0 +1,299 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.enums.ContentEncoding;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores each distinct document body once, keyed by the SHA-256 of its decoded bytes.
+ * <p>
+ * Every body is registered in {@code content_blobs} with the number of documents referring to it.
+ * Writing a body that is already stored only increments that count and returns the existing location;
+ * when the body is known up front, as for {@code POST /documents}, nothing is written to the
+ * {@link CompressingContentStore} at all. Streamed bodies can only be hashed while they are stored,
+ * so a streamed duplicate is written and then deleted again. {@link #delete(ContentLocation)} drops
+ * a reference and deletes the body with its last one.
+ * <p>
+ * {@link #writeAll(List, List)} handles a batch of bodies, as sent by an ingest, with a constant number
+ * of statements: the references to all of them are counted by one JDBC batch, the locations of those
+ * already stored read by one query, and the new ones stored and registered by one batch each.
+ * <p>
+ * Calls take part in the caller's transaction, which must also save the document holding the location.
+ */
+@Component
+public class DeduplicatingContentStore {
+
+    /**
+     * Maps the {@code content_*} columns of {@code content_blobs}, or of {@code documents}, to a location.
+     */
+    public static final RowMapper<ContentLocation> LOCATION_MAPPER = (rs, rowNum) -> {
+        ContentLocation location = new ContentLocation();
+        location.setHash(rs.getString("content_hash"));
+        location.setContentId(rs.getObject("content_id", Long.class));
+        location.setSegment(rs.getObject("content_segment", Integer.class));
+        location.setOffset(rs.getObject("content_offset", Long.class));
+        location.setSize(rs.getLong("content_size"));
+        location.setEncoding(ContentEncoding.valueOf(rs.getString("content_encoding")));
+        location.setLength(rs.getLong("content_length"));
+        return location;
+    };
+
+    private static final String SELECT_LOCATION = "SELECT content_hash, content_id, content_segment, content_offset, " +
+            "content_size, content_encoding, content_length FROM content_blobs WHERE ";
+
+    private static final String INSERT_BLOB = "INSERT INTO content_blobs (content_hash, content_id, content_segment, " +
+            "content_offset, content_size, content_encoding, content_length, ref_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CompressingContentStore contentStore;
+    private final JdbcTemplate jdbcTemplate;
+
+    public DeduplicatingContentStore(CompressingContentStore contentStore, JdbcTemplate jdbcTemplate) {
+        this.contentStore = contentStore;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stores a body held in memory, unless an identical body is already stored.
+     *
+     * @param fileType the file type of the document
+     * @param content  the body
+     * @return the location of the body, new or shared
+     * @throws IOException if the body cannot be stored
+     */
+    public ContentLocation write(String fileType, byte[] content) throws IOException {
+        String hash = HexFormat.of().formatHex(sha256().digest(content));
+        ContentLocation existing = acquire(hash);
+        if (existing != null) {
+            return existing;
+        }
+        return register(hash, contentStore.write(fileType, content.length, new ByteArrayInputStream(content)));
+    }
+
+    /**
+     * Stores several bodies held in memory, each unless an identical body is already stored. Identical
+     * bodies within the batch are stored once.
+     *
+     * @param fileTypes the file type of the document of each body
+     * @param contents  the bodies
+     * @return the location of each body, new or shared, in the same order
+     * @throws IOException if a body cannot be stored
+     */
+    public List<ContentLocation> writeAll(List<String> fileTypes, List<byte[]> contents) throws IOException {
+        if (contents.isEmpty()) {
+            return List.of();
+        }
+        List<String> hashes = new ArrayList<>(contents.size());
+        Map<String, Integer> references = new LinkedHashMap<>();
+        Map<String, Integer> firstIndex = new HashMap<>();
+        for (int i = 0; i < contents.size(); i++) {
+            String hash = HexFormat.of().formatHex(sha256().digest(contents.get(i)));
+            hashes.add(hash);
+            references.merge(hash, 1, Integer::sum);
+            firstIndex.putIfAbsent(hash, i);
+        }
+
+        Map<String, ContentLocation> locations = acquireAll(references);
+        List<String> missing = references.keySet().stream().filter(hash -> !locations.containsKey(hash)).toList();
+        if (!missing.isEmpty()) {
+            List<ContentLocation> stored = contentStore.writeAll(
+                    missing.stream().map(hash -> fileTypes.get(firstIndex.get(hash))).toList(),
+                    missing.stream().map(hash -> contents.get(firstIndex.get(hash))).toList());
+            registerAll(missing, stored, references, locations);
+        }
+
+        List<ContentLocation> result = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            ContentLocation location = locations.get(hashes.get(i));
+            // every document embeds its own copy of the location
+            result.add(firstIndex.get(hashes.get(i)) == i ? location : copy(location));
+        }
+        return result;
+    }
+
+    /**
+     * Stores a streamed body, or shares an identical body already stored and deletes the copy.
+     *
+     * @param fileType the file type of the document
+     * @param size     the size of the body in bytes, or {@code -1} if unknown
+     * @param content  the body, read to its end
+     * @return the location of the body, new or shared
+     * @throws IOException if the stream cannot be read or the body cannot be stored
+     */
+    public ContentLocation write(String fileType, long size, InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        ContentLocation location = contentStore.write(fileType, size, new DigestInputStream(content, digest));
+        String hash = HexFormat.of().formatHex(digest.digest());
+        ContentLocation existing = acquire(hash);
+        if (existing != null) {
+            contentStore.delete(location);
+            return existing;
+        }
+        return register(hash, location);
+    }
+
+    /**
+     * Copies a byte range of a decoded body to the given stream.
+     *
+     * @see CompressingContentStore#read(ContentLocation, long, long, OutputStream)
+     */
+    public void read(ContentLocation location, long offset, long length, OutputStream out) throws IOException {
+        contentStore.read(location, offset, length, out);
+    }
+
+    /**
+     * Copies a body as stored, still encoded, to the given stream.
+     *
+     * @see CompressingContentStore#readEncoded(ContentLocation, OutputStream)
+     */
+    public void readEncoded(ContentLocation location, OutputStream out) throws IOException {
+        contentStore.readEncoded(location, out);
+    }
+
+    /**
+     * Drops one reference to a body, deleting it when no document refers to it any more.
+     *
+     * @param location the location returned by one of the {@code write} methods
+     */
+    public void delete(ContentLocation location) {
+        if (location.getHash() == null) {
+            contentStore.delete(location);
+            return;
+        }
+        jdbcTemplate.update("UPDATE content_blobs SET ref_count = ref_count - 1 WHERE content_hash = ?", location.getHash());
+        if (jdbcTemplate.update("DELETE FROM content_blobs WHERE content_hash = ? AND ref_count <= 0", location.getHash()) > 0) {
+            contentStore.delete(location);
+        }
+    }
+
+    /**
+     * Adds a reference to the body with the given hash, if it is stored.
+     *
+     * @return its location, or {@code null} if no such body is stored
+     */
+    private ContentLocation acquire(String hash) {
+        return acquire(hash, 1);
+    }
+
+    private ContentLocation acquire(String hash, int references) {
+        if (jdbcTemplate.update("UPDATE content_blobs SET ref_count = ref_count + ? WHERE content_hash = ?", references, hash) == 0) {
+            return null;
+        }
+        List<ContentLocation> locations = jdbcTemplate.query(SELECT_LOCATION + "content_hash = ?", LOCATION_MAPPER, hash);
+        return locations.get(0);
+    }
+
+    /**
+     * Adds the given number of references to each stored body among the hashes. The references are
+     * counted before the locations are read, so a compaction repointing a body is waited for.
+     *
+     * @return the locations of the bodies that are stored, by hash
+     */
+    private Map<String, ContentLocation> acquireAll(Map<String, Integer> references) {
+        List<String> hashes = new ArrayList<>(references.keySet());
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE content_blobs SET ref_count = ref_count + ? WHERE content_hash = ?",
+                hashes.stream().map(hash -> new Object[]{references.get(hash), hash}).toList());
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            if (updated[i] != 0) {
+                stored.add(hashes.get(i));
+            }
+        }
+        Map<String, ContentLocation> locations = new HashMap<>();
+        if (!stored.isEmpty()) {
+            jdbcTemplate.query(SELECT_LOCATION + "content_hash = ANY(CAST(? AS VARCHAR ARRAY))",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("VARCHAR", stored.toArray())),
+                    LOCATION_MAPPER)
+                    .forEach(location -> locations.put(location.getHash(), location));
+        }
+        return locations;
+    }
+
+    /**
+     * Registers newly stored bodies with their numbers of references, adding their locations to
+     * {@code locations}. The rows are inserted as one batch; a body a concurrent transaction
+     * registered first fails its row alone, and its new copy is deleted and the registered one shared.
+     */
+    private void registerAll(List<String> hashes, List<ContentLocation> stored, Map<String, Integer> references,
+                             Map<String, ContentLocation> locations) {
+        List<Object[]> rows = new ArrayList<>(hashes.size());
+        for (int i = 0; i < hashes.size(); i++) {
+            ContentLocation location = stored.get(i);
+            location.setHash(hashes.get(i));
+            rows.add(new Object[]{location.getHash(), location.getContentId(), location.getSegment(), location.getOffset(),
+                    location.getSize(), location.getEncoding().name(), location.getLength(), references.get(location.getHash())});
+        }
+        int[] inserted;
+        try {
+            inserted = jdbcTemplate.batchUpdate(INSERT_BLOB, rows);
+        } catch (DuplicateKeyException e) {
+            if (!(e.getCause() instanceof BatchUpdateException batch)) {
+                throw e;
+            }
+            inserted = batch.getUpdateCounts();
+        }
+        for (int i = 0; i < hashes.size(); i++) {
+            ContentLocation location = stored.get(i);
+            if (i < inserted.length && inserted[i] != Statement.EXECUTE_FAILED) {
+                locations.put(location.getHash(), location);
+            } else {
+                contentStore.delete(location);
+                locations.put(location.getHash(), acquire(location.getHash(), references.get(location.getHash())));
+            }
+        }
+    }
+
+    /**
+     * Registers a newly stored body with one reference. If a concurrent transaction registered the
+     * same body first, the new copy is deleted and the registered one shared instead.
+     */
+    private ContentLocation register(String hash, ContentLocation location) {
+        location.setHash(hash);
+        try {
+            jdbcTemplate.update(INSERT_BLOB, hash, location.getContentId(), location.getSegment(), location.getOffset(),
+                    location.getSize(), location.getEncoding().name(), location.getLength(), 1);
+            return location;
+        } catch (DuplicateKeyException e) {
+            contentStore.delete(location);
+            return acquire(hash);
+        }
+    }
+
+    private static ContentLocation copy(ContentLocation location) {
+        ContentLocation copy = new ContentLocation();
+        copy.setHash(location.getHash());
+        copy.setContentId(location.getContentId());
+        copy.setSegment(location.getSegment());
+        copy.setOffset(location.getOffset());
+        copy.setSize(location.getSize());
+        copy.setEncoding(location.getEncoding());
+        copy.setLength(location.getLength());
+        return copy;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ContentStore} appending bodies to segment files on local disk.
+ * <p>
+ * A body is written once to the end of a segment and located by (segment, offset, size), which
+ * {@link com.assignment.progresssoft.model.Document} keeps in its own row. Every concurrent writer
+ * appends to a segment of its own, so uploads never wait on each other; a segment is sealed once it
+ * reaches {@code documents.segment-store.max-segment-size}. Reads map the requested region of the
+ * segment read-only and write it out through a small buffer, without copying the body onto the heap.
+ * No monitor is held around file, socket or database I/O, so none of it pins a virtual thread.
+ * Appended bodies are forced to disk before the transaction that refers to them commits, once per
+ * segment and transaction, and a segment is forced when it is sealed.
+ * <p>
+ * Deleting a body only drops its row. A scheduled compaction copies the live bodies of sealed segments
+ * whose share of live bytes fell below {@code documents.segment-store.compaction-threshold} into a new
+ * segment and repoints their rows. A body shared by several documents is copied once, and its
+ * {@code content_blobs} row is repointed with them. Compaction only sees committed rows, so a segment
+ * is left alone while any transaction that appended to it is still open. Read channels are reference
+ * counted: the file of a compacted segment is deleted once the last read still streaming from it ends.
+ * The copies are forced to disk before the rows are repointed, so the old file is never the only copy.
+ * Selected by {@code documents.content-store=segment}.
+ */
+@Component
+@ConditionalOnProperty(name = "documents.content-store", havingValue = "segment")
+public class SegmentContentStore implements ContentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentContentStore.class);
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d+)\\.dat");
+
+    /**
+     * Largest region mapped at once when reading.
+     */
+    private static final long MAX_MAPPING = 64L * 1024 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final double compactionThreshold;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger lastSegment = new AtomicInteger();
+    private final ConcurrentLinkedDeque<SegmentWriter> idleWriters = new ConcurrentLinkedDeque<>();
+    private final Map<Integer, FileChannel> openSegments = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final Map<Integer, SegmentReader> readers = new ConcurrentHashMap<>();
+    private final Set<Integer> deletedSegments = ConcurrentHashMap.newKeySet();
+    private final List<Integer> compactedSegments = new ArrayList<>();
+    private final Lock compactionLock = new ReentrantLock();
+
+    /**
+     * Constructs the store, creating its directory if needed.
+     *
+     * @param directory           the directory holding the segment files
+     * @param maxSegmentSize      the size in bytes after which a segment is sealed
+     * @param compactionThreshold the share of live bytes under which a sealed segment is compacted
+     * @param jdbcTemplate        used by compaction to find and repoint the bodies of a segment
+     * @param transactionTemplate wraps the repointing of each compacted segment
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public SegmentContentStore(@Value("${documents.segment-store.directory}") Path directory,
+                               @Value("${documents.segment-store.max-segment-size}") long maxSegmentSize,
+                               @Value("${documents.segment-store.compaction-threshold}") double compactionThreshold,
+                               JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        for (int segment : existingSegments()) {
+            lastSegment.accumulateAndGet(segment, Math::max);
+        }
+    }
+
+    @Override
+    public ContentLocation write(InputStream content) throws IOException {
+        SegmentWriter writer = acquireWriter();
+        pendingWrites.merge(writer.segment, 1, Integer::sum);
+        boolean appended = false;
+        try {
+            long offset = writer.size;
+            long size = writer.append(content);
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                writer.channel.force(false);
+            }
+            appended = true;
+            return new ContentLocation(writer.segment, offset, size);
+        } finally {
+            if (appended) {
+                holdUntilCompletion(writer.segment);
+            } else {
+                endWrites(writer.segment, 1);
+            }
+            releaseWriter(writer);
+        }
+    }
+
+    @Override
+    public void read(ContentLocation location, long offset, long length, OutputStream out) throws IOException {
+        SegmentReader reader = acquireReader(location.getSegment());
+        try {
+            byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE, Math.max(length, 1))];
+            long position = location.getOffset() + offset;
+            long end = position + length;
+            while (position < end) {
+                long chunk = Math.min(MAX_MAPPING, end - position);
+                MappedByteBuffer region = reader.channel.map(FileChannel.MapMode.READ_ONLY, position, chunk);
+                while (region.hasRemaining()) {
+                    int n = Math.min(buffer.length, region.remaining());
+                    region.get(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+                position += chunk;
+            }
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    /**
+     * Does nothing: the space of deleted bodies is reclaimed by {@link #compact()}.
+     */
+    @Override
+    public void delete(ContentLocation location) {
+    }
+
+    /**
+     * Compacts every sealed segment whose share of live bytes is under the threshold and deletes it,
+     * once no reads are left on it. Segments with writes whose transaction is still open are skipped:
+     * their rows are not visible yet. Segment files no row refers to, e.g. left over by a previous run
+     * of the application, count as fully deleted.
+     *
+     * @throws IOException if a segment cannot be read, written or deleted
+     */
+    @Scheduled(fixedDelayString = "${documents.segment-store.compaction-interval}",
+            initialDelayString = "${documents.segment-store.compaction-interval}")
+    public void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            for (Iterator<Integer> segments = compactedSegments.iterator(); segments.hasNext(); ) {
+                if (compactAndDelete(segments.next())) {
+                    segments.remove();
+                }
+            }
+
+            Map<Integer, Long> liveBytes = new HashMap<>();
+            jdbcTemplate.query("SELECT content_segment, SUM(content_size) FROM (" +
+                            "SELECT DISTINCT content_segment, content_offset, content_size FROM documents " +
+                            "WHERE content_segment IS NOT NULL) GROUP BY content_segment",
+                    rs -> {
+                        liveBytes.put(rs.getInt(1), rs.getLong(2));
+                    });
+
+            for (int segment : existingSegments()) {
+                // a segment leaves openSegments only after all of its writes were counted in pendingWrites
+                if (openSegments.containsKey(segment) || pendingWrites.containsKey(segment)
+                        || compactedSegments.contains(segment) || deletedSegments.contains(segment)) {
+                    continue;
+                }
+                long fileSize = Files.size(segmentFile(segment));
+                long live = liveBytes.getOrDefault(segment, 0L);
+                if (fileSize == 0 || (double) live / fileSize < compactionThreshold) {
+                    if (!compactAndDelete(segment)) {
+                        compactedSegments.add(segment);
+                    }
+                    log.info("Compacted segment {}: {} of {} bytes live", segment, live, fileSize);
+                }
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Closes all open segment files.
+     *
+     * @throws IOException if a file cannot be closed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        SegmentWriter writer;
+        while ((writer = idleWriters.poll()) != null) {
+            writer.channel.close();
+        }
+        for (SegmentReader reader : readers.values()) {
+            reader.channel.close();
+        }
+    }
+
+    /**
+     * Moves the bodies still referenced from a segment, then deletes the segment unless a row referring
+     * to it was committed meanwhile; such a segment is compacted again on the next run.
+     *
+     * @return {@code true} if the segment was deleted
+     */
+    private boolean compactAndDelete(int segment) throws IOException {
+        compactSegment(segment);
+        if (!jdbcTemplate.queryForList("SELECT 1 FROM documents WHERE content_segment = ? FETCH FIRST 1 ROWS ONLY",
+                Integer.class, segment).isEmpty()) {
+            return false;
+        }
+        deletedSegments.add(segment);
+        SegmentReader reader = readers.remove(segment);
+        if (reader == null) {
+            Files.deleteIfExists(segmentFile(segment));
+        } else {
+            reader.deleteOnClose = true;
+            releaseReader(reader);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the bodies still referenced from a segment into an open segment and repoints their rows,
+     * the {@code content_blobs} row first so that documents sharing the body concurrently wait for the
+     * move. Bodies committed after a previous compaction of the segment are picked up by calling it again.
+     */
+    private void compactSegment(int segment) throws IOException {
+        List<long[]> bodies = jdbcTemplate.query(
+                "SELECT DISTINCT content_offset, content_size FROM documents WHERE content_segment = ?",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, segment);
+        if (bodies.isEmpty()) {
+            return;
+        }
+
+        SegmentReader source = acquireReader(segment);
+        SegmentWriter writer = acquireWriter();
+        try {
+            List<Object[]> moves = new ArrayList<>(bodies.size());
+            for (long[] body : bodies) {
+                long offset = writer.size;
+                writer.transferFrom(source.channel, body[0], body[1]);
+                moves.add(new Object[]{writer.segment, offset, segment, body[0]});
+            }
+            writer.channel.force(false);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("UPDATE content_blobs SET content_segment = ?, content_offset = ? " +
+                        "WHERE content_segment = ? AND content_offset = ?", moves);
+                jdbcTemplate.batchUpdate("UPDATE documents SET content_segment = ?, content_offset = ? " +
+                        "WHERE content_segment = ? AND content_offset = ?", moves);
+            });
+        } finally {
+            releaseWriter(writer);
+            releaseReader(source);
+        }
+    }
+
+    private SegmentWriter acquireWriter() throws IOException {
+        SegmentWriter writer = idleWriters.poll();
+        if (writer != null) {
+            return writer;
+        }
+        int segment = lastSegment.incrementAndGet();
+        FileChannel channel = FileChannel.open(segmentFile(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        openSegments.put(segment, channel);
+        return new SegmentWriter(segment, channel);
+    }
+
+    private void releaseWriter(SegmentWriter writer) throws IOException {
+        if (writer.size < maxSegmentSize) {
+            idleWriters.push(writer);
+            return;
+        }
+        try {
+            writer.channel.force(false);
+        } finally {
+            writer.channel.close();
+            openSegments.remove(writer.segment);
+        }
+    }
+
+    /**
+     * Counts a write as pending until the caller's transaction completes, as the row referring to
+     * the body is not visible to compaction before then. All writes of a transaction share one
+     * synchronization, which also forces every segment they appended to before the commit. Outside
+     * a transaction the write is not held.
+     */
+    @SuppressWarnings("unchecked")
+    private void holdUntilCompletion(int segment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            endWrites(segment, 1);
+            return;
+        }
+        Map<Integer, Integer> held = (Map<Integer, Integer>) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            Map<Integer, Integer> writes = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, writes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    for (int segment : writes.keySet()) {
+                        force(segment);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SegmentContentStore.this);
+                    writes.forEach(SegmentContentStore.this::endWrites);
+                }
+            });
+            held = writes;
+        }
+        held.merge(segment, 1, Integer::sum);
+    }
+
+    /**
+     * Forces the appended bytes of a segment to disk. A segment no longer open was forced when sealed.
+     */
+    private void force(int segment) {
+        FileChannel channel = openSegments.get(segment);
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // sealed meanwhile, which forced it before closing
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void endWrites(int segment, int writes) {
+        pendingWrites.computeIfPresent(segment, (key, pending) -> pending > writes ? pending - writes : null);
+    }
+
+    /**
+     * Returns the read channel of a segment, opening it if needed, and counts one more read on it.
+     *
+     * @throws NoSuchFileException if the segment was deleted by compaction
+     */
+    private SegmentReader acquireReader(int segment) throws IOException {
+        SegmentReader reader;
+        try {
+            reader = readers.compute(segment, (key, current) -> {
+                if (current == null) {
+                    if (deletedSegments.contains(key)) {
+                        return null;
+                    }
+                    try {
+                        current = new SegmentReader(key, FileChannel.open(segmentFile(key), StandardOpenOption.READ));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                current.references.incrementAndGet();
+                return current;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (reader == null) {
+            throw new NoSuchFileException(segmentFile(segment).toString());
+        }
+        return reader;
+    }
+
+    /**
+     * Ends a read on a segment. The last one ends on a deleted segment closes and deletes its file.
+     */
+    private void releaseReader(SegmentReader reader) throws IOException {
+        if (reader.references.decrementAndGet() > 0) {
+            return;
+        }
+        reader.channel.close();
+        if (reader.deleteOnClose) {
+            Files.deleteIfExists(segmentFile(reader.segment));
+        }
+    }
+
+    private List<Integer> existingSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            for (Path file : files) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentFile(int segment) {
+        return directory.resolve(String.format("segment-%06d.dat", segment));
+    }
+
+    /**
+     * The read channel of a segment, shared by all reads of it. It holds one reference for as long as
+     * it is registered in {@code readers}, plus one per read in progress.
+     */
+    private static final class SegmentReader {
+
+        private final int segment;
+        private final FileChannel channel;
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile boolean deleteOnClose;
+
+        private SegmentReader(int segment, FileChannel channel) {
+            this.segment = segment;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * A segment open for appending, used by one writer at a time.
+     */
+    private static final class SegmentWriter {
+
+        private final int segment;
+        private final FileChannel channel;
+        private long size;
+
+        private SegmentWriter(int segment, FileChannel channel) {
+            this.segment = segment;
+            this.channel = channel;
+        }
+
+        private long append(InputStream content) throws IOException {
+            long start = size;
+            byte[] buffer = new byte[COPY_BUFFER_SIZE];
+            int n;
+            try {
+                while ((n = content.read(buffer)) >= 0) {
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                    while (chunk.hasRemaining()) {
+                        size += channel.write(chunk, size);
+                    }
+                }
+            } catch (IOException e) {
+                size = start;
+                channel.truncate(start);
+                throw e;
+            }
+            return size - start;
+        }
+
+        private void transferFrom(FileChannel source, long position, long length) throws IOException {
+            long copied = 0;
+            channel.position(size);
+            while (copied < length) {
+                copied += source.transferTo(position + copied, length - copied, channel);
+            }
+            size += length;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.assignment.progresssoft.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallersShareOneLookup() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("document", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+
+        List<Future<String>> results = startCallers(singleFlight, 1L, () -> {
+            lookups.incrementAndGet();
+            await(release);
+            return "doc";
+        });
+        awaitLookupInFlight(singleFlight);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("doc", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, lookups.get());
+        assertEquals(1, count("documents.single.flight.queries"));
+        assertEquals(CALLERS - 1, count("documents.single.flight.saved"));
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void testFailureIsPropagatedToEveryWaiterAndNotRemembered() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("document", Duration.ofSeconds(5), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        List<Future<String>> results = startCallers(singleFlight, 1L, () -> {
+            await(release);
+            throw failure;
+        });
+        awaitLookupInFlight(singleFlight);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals("doc", singleFlight.execute(1L, () -> "doc"));
+    }
+
+    @Test
+    void testWaiterGivesUpAfterTimeout() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>("document", Duration.ofMillis(50), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            return "doc";
+        }));
+        awaitLookupInFlight(singleFlight);
+
+        assertThrows(QueryTimeoutException.class, () -> singleFlight.execute(1L, () -> "other"));
+        assertEquals("other", singleFlight.execute(2L, () -> "other"));
+
+        release.countDown();
+        assertEquals("doc", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, count("documents.single.flight.timeouts"));
+    }
+
+    private List<Future<String>> startCallers(SingleFlight<Long, String> singleFlight, Long key, Supplier<String> lookup)
+            throws InterruptedException {
+        List<Future<String>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute(key, lookup)));
+        awaitLookupInFlight(singleFlight);
+        for (int i = 1; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(key, lookup)));
+        }
+        Thread.sleep(200);
+        return results;
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).tag("name", "document").counter().count();
+    }
+
+    private static void awaitLookupInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        for (int i = 0; i < 500 && singleFlight.inFlight() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, singleFlight.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
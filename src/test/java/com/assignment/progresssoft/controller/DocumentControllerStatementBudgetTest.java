@@ -0,0 +1,174 @@
+package com.assignment.progresssoft.controller;
+
+import com.assignment.progresssoft.metrics.StatementBudget;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the number of JDBC statements each endpoint executes, for datasets of increasing size.
+ * <p>
+ * A user is granted access to {@code documents} documents, then every endpoint is called once with
+ * the ACL index cold. The users' groups are read beforehand: the {@link GroupMembershipCache} reads
+ * them once per user, not per request. Each budget is the count measured when it was set; an
+ * endpoint whose count grows with the dataset states so explicitly, per batch of rows, so an N+1
+ * query fails the build. The NDJSON listing is not covered: its body is written on another thread
+ * once the request has returned.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class DocumentControllerStatementBudgetTest {
+
+    /**
+     * {@code documents.ingest.batch-size} and {@code hibernate.jdbc.batch_size}.
+     */
+    private static final int INGEST_BATCH_SIZE = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AclIndex aclIndex;
+
+    @Autowired
+    private GroupMembershipCache groupMemberships;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 100, 1500})
+    void testStatementBudgetPerEndpoint(int documents) throws Exception {
+        String reader = "reader" + documents;
+        String writer = "writer" + documents;
+        String deleter = "deleter" + documents;
+        List<Long> ids = ingest(documents, reader, writer, deleter);
+        List.of(reader, writer, deleter).forEach(groupMemberships::principals);
+        Long id = ids.get(0);
+        String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        // per batch: the document IDs by 50, then 5 content store statements, the documents and their ACL rows
+        budget(perBatch(1, 50, documents) + perBatch(6, INGEST_BATCH_SIZE, documents) + perBatch(1, INGEST_BATCH_SIZE, 3 * documents),
+                "POST /documents/ingest", documents, post("/documents/ingest").header("X-User", "admin")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson(documents, "otherReader", "otherWriter", "otherDeleter")), 200);
+        budget(5, "POST /documents", documents, post("/documents").header("X-User", "admin")
+                .contentType(MediaType.APPLICATION_JSON).content(line(0, reader, writer, deleter)), 200);
+        budget(perBatch(1, AccessibleUserJdbcRepository.BATCH_SIZE, documents),
+                "GET /documents", documents, get("/documents").header("X-User", reader), 200);
+        budget(1, "GET /documents?limit", documents, get("/documents").param("limit", "1000").header("X-User", reader), 200);
+        budget(perBatch(1, AccessibleUserJdbcRepository.BATCH_SIZE, documents + 1), "GET /documents?fileType&sort",
+                documents, get("/documents").param("fileType", "txt").param("sort", "NAME").header("X-User", reader), 200);
+        budget(2, "GET /documents?limit&fileType&namePrefix&sort", documents, get("/documents").param("limit", "1000")
+                .param("fileType", "txt").param("namePrefix", "doc").param("sort", "NAME").header("X-User", reader), 200);
+        budget(1, "GET /documents/search", documents, get("/documents/search").param("q", "content").header("X-User", reader), 200);
+        aclIndex.invalidate(id);
+        budget(1, "GET /documents/{id}", documents, get("/documents/" + id).header("X-User", reader), 200);
+        aclIndex.invalidate(id);
+        budget(1, "GET /documents/{id}/content", documents, get("/documents/" + id + "/content").header("X-User", reader), 200);
+        aclIndex.invalidate(id);
+        budget(8, "PUT /documents/{id}/content", documents, put("/documents/" + id + "/content").header("X-User", writer)
+                .contentType(MediaType.TEXT_PLAIN).content("new content"), 204);
+        aclIndex.invalidate(id);
+        budget(3, "POST /documents/{id}/grant", documents, post("/documents/" + id + "/grant").header("X-User", writer)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"username\":\"other\",\"permission\":\"READ\"}"), 200);
+        budget(perBatch(5, AccessibleUserJdbcRepository.BATCH_SIZE, documents),
+                "POST /documents/grants", documents, post("/documents/grants").header("X-User", writer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"documentIds\":[" + idList + "],\"usernames\":[\"other\"],\"permissions\":[\"READ\"]}"), 200);
+        budget(0, "POST /documents/access-check", documents, post("/documents/access-check").header("X-User", reader)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"permission\":\"READ\",\"documentIds\":[" + idList + "]}"), 200);
+        budget(1, "GET /documents/content-stats", documents, get("/documents/content-stats").header("X-User", "admin"), 200);
+        aclIndex.invalidate(id);
+        budget(6, "DELETE /documents/{id}", documents, delete("/documents/" + id).header("X-User", deleter), 204);
+    }
+
+    @Test
+    void testConditionalGet_AnsweredFromVersion() throws Exception {
+        Long id = ingest(1, "versionReader", "versionWriter", "versionDeleter").get(0);
+        String eTag = mockMvc.perform(get("/documents/" + id).header("X-User", "versionReader"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // one primary key lookup of the version
+        budget(1, "GET /documents/{id} If-None-Match", 1, get("/documents/" + id).header("X-User", "versionReader")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag), 304);
+
+        mockMvc.perform(post("/documents/grants").header("X-User", "admin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"documentIds\":[" + id + "],\"usernames\":[\"other\"],\"permissions\":[\"READ\"]}"))
+                .andExpect(status().isOk());
+        String bulkGrantETag = mockMvc.perform(get("/documents/" + id).header("X-User", "versionReader")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/documents/" + id + "/grant").header("X-User", "versionWriter")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"another\",\"permission\":\"READ\"}"))
+                .andExpect(status().isOk());
+        String grantETag = mockMvc.perform(get("/documents/" + id).header("X-User", "versionReader")
+                        .header(HttpHeaders.IF_NONE_MATCH, bulkGrantETag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertNotEquals(eTag, bulkGrantETag);
+        assertNotEquals(bulkGrantETag, grantETag);
+    }
+
+    private void budget(int max, String endpoint, int documents, RequestBuilder request, int expectedStatus) {
+        StatementBudget.atMost(max, endpoint + " with " + documents + " documents",
+                () -> mockMvc.perform(request).andExpect(status().is(expectedStatus)));
+    }
+
+    /**
+     * Returns the statements allowed for an operation that runs {@code statements} per batch of rows.
+     */
+    private static int perBatch(int statements, int batchSize, int rows) {
+        return statements * ((rows + batchSize - 1) / batchSize);
+    }
+
+    private List<Long> ingest(int documents, String reader, String writer, String deleter) throws Exception {
+        mockMvc.perform(post("/documents/ingest").header("X-User", "admin")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson(documents, reader, writer, deleter)))
+                .andExpect(status().isOk());
+        return jdbcTemplate.queryForList(
+                "SELECT document_id FROM document_accessible_users WHERE username = ? ORDER BY document_id", Long.class, reader);
+    }
+
+    private static String ndjson(int documents, String reader, String writer, String deleter) {
+        return IntStream.range(0, documents)
+                .mapToObj(i -> line(i, reader, writer, deleter))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String line(int i, String reader, String writer, String deleter) {
+        return "{\"name\":\"doc" + i + "\",\"content\":\"content " + i + " of " + reader + "\",\"fileType\":\"txt\",\"accessibleUsers\":[" +
+                "{\"username\":\"" + reader + "\",\"permission\":\"READ\"}," +
+                "{\"username\":\"" + writer + "\",\"permission\":\"WRITE\"}," +
+                "{\"username\":\"" + deleter + "\",\"permission\":\"DELETE\"}]}";
+    }
+}
@@ -5,42 +5,162 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.http.HttpStatus.*;
 
 import com.assignment.progresssoft.dto.request.BatchPermissionRequest;
+import com.assignment.progresssoft.dto.request.BulkGrantRequest;
 import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
 import com.assignment.progresssoft.dto.request.GrantPermissionRequest;
+import com.assignment.progresssoft.dto.response.AccessIndexStatsResponse;
 import com.assignment.progresssoft.dto.response.AccessibleIdsResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResponse;
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.dto.response.DocumentPageResponse;
 import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.dto.response.IngestResponse;
+import com.assignment.progresssoft.dto.response.SearchResponse;
+import com.assignment.progresssoft.dto.response.SearchResult;
+import com.assignment.progresssoft.enums.ContentEncoding;
+import com.assignment.progresssoft.enums.DocumentSort;
 import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.DocumentFilter;
+import com.assignment.progresssoft.repository.DocumentVersion;
+import com.assignment.progresssoft.service.DocumentIngestService;
 import com.assignment.progresssoft.service.DocumentService;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class DocumentControllerTest {
 
     private DocumentService documentService;
+    private DocumentIngestService documentIngestService;
     private DocumentController controller;
 
     @BeforeEach
     public void setup() {
         documentService = mock(DocumentService.class);
-        controller = new DocumentController(documentService);
+        documentIngestService = mock(DocumentIngestService.class);
+        controller = new DocumentController(documentService, documentIngestService, new ObjectMapper());
+    }
+
+    @Test
+    public void testGetContentStats() {
+        ContentStatsResponse stats = new ContentStatsResponse(1, 3, 100, 200, 300);
+        when(documentService.getContentStats()).thenReturn(stats);
+
+        assertEquals(stats, controller.getContentStats());
+    }
+
+    @Test
+    public void testGetAccessIndexStats() {
+        AccessIndexStatsResponse stats = new AccessIndexStatsResponse(true, 1, 96, Map.of("user1", 48L));
+        when(documentService.getAccessIndexStats()).thenReturn(stats);
+
+        assertEquals(stats, controller.getAccessIndexStats());
     }
 
     @Test
     public void testGetAllUsers() {
         String username = "user1";
-        DocumentResponse doc1 = new DocumentResponse("Doc1", "Content1", "txt");
-        DocumentResponse doc2 = new DocumentResponse("Doc2", "Content2", "pdf");
+        DocumentResponse doc1 = new DocumentResponse(1L, "Doc1", "txt", 8);
+        DocumentResponse doc2 = new DocumentResponse(2L, "Doc2", "pdf", 8);
 
-        when(documentService.getAllDocuments(username)).thenReturn(Stream.of(doc1, doc2));
+        when(documentService.getAllDocuments(username, DocumentFilter.NONE)).thenReturn(Stream.of(doc1, doc2));
 
-        Stream<DocumentResponse> response = controller.getAllUsers(username);
+        Stream<DocumentResponse> response = controller.getAllUsers(username, null, null, DocumentSort.ID);
 
         assertNotNull(response);
         assertEquals(2, response.count());
-        verify(documentService).getAllDocuments(username);
+        verify(documentService).getAllDocuments(username, DocumentFilter.NONE);
+    }
+
+    @Test
+    public void testGetDocumentPage() {
+        String username = "user1";
+        DocumentPageResponse page = new DocumentPageResponse(List.of(new DocumentResponse(5L, "Doc1", "txt", 8)), 5L);
+
+        when(documentService.getDocumentPage(username, 1, null, null, DocumentFilter.NONE)).thenReturn(page);
+
+        ResponseEntity<DocumentPageResponse> response = controller.getDocumentPage(username, 1, null, null, null, null, DocumentSort.ID);
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        verify(documentService).getDocumentPage(username, 1, null, null, DocumentFilter.NONE);
+    }
+
+    @Test
+    public void testGetDocumentPage_FilteredByName() {
+        String username = "user1";
+        DocumentFilter filter = new DocumentFilter("pdf", "Rep", DocumentSort.NAME);
+        DocumentPageResponse page = new DocumentPageResponse(List.of(new DocumentResponse(5L, "Report", "pdf", 8)),
+                5L, "Report", 4L, true);
+        when(documentService.getDocumentPage(username, 1, null, null, filter)).thenReturn(page);
+        when(documentService.getDocumentPage(username, 1, 5L, null, filter)).thenThrow(new IllegalArgumentException());
+
+        assertEquals(page, controller.getDocumentPage(username, 1, null, null, "pdf", "Rep", DocumentSort.NAME).getBody());
+        assertEquals(BAD_REQUEST,
+                controller.getDocumentPage(username, 1, 5L, null, "pdf", "Rep", DocumentSort.NAME).getStatusCode());
+    }
+
+    @Test
+    public void testSearchDocuments() {
+        SearchResponse results = new SearchResponse(3, List.of(new SearchResult(5L, "Doc1", "txt", 8, 1.5f)), 1);
+        when(documentService.search("user1", "report", 1, 0)).thenReturn(results);
+
+        ResponseEntity<SearchResponse> response = controller.searchDocuments("user1", "report", 1, 0);
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    public void testSearchDocuments_NoTermsOrLoading() {
+        when(documentService.search("user1", "!", 20, 0)).thenThrow(new IllegalArgumentException("No term"));
+        when(documentService.search("user1", "report", 20, 0)).thenThrow(new IllegalStateException("Loading"));
+
+        assertEquals(BAD_REQUEST, controller.searchDocuments("user1", "!", 20, 0).getStatusCode());
+        ResponseEntity<SearchResponse> loading = controller.searchDocuments("user1", "report", 20, 0);
+        assertEquals(SERVICE_UNAVAILABLE, loading.getStatusCode());
+        assertEquals("5", loading.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    public void testStreamAllDocuments() throws Exception {
+        String username = "user1";
+        doAnswer(invocation -> {
+            Consumer<DocumentResponse> consumer = invocation.getArgument(2);
+            consumer.accept(new DocumentResponse(1L, "Doc1", "pdf", 8));
+            consumer.accept(new DocumentResponse(2L, "Doc2", "pdf", 8));
+            return null;
+        }).when(documentService).streamAllDocuments(eq(username), eq(new DocumentFilter("pdf", "Doc", DocumentSort.NAME)), any());
+
+        ResponseEntity<StreamingResponseBody> response = controller.streamAllDocuments(username, "pdf", "Doc", DocumentSort.NAME);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"name\":\"Doc1\""));
+        assertTrue(lines[1].contains("\"name\":\"Doc2\""));
     }
 
     @Test
@@ -48,28 +168,177 @@ public class DocumentControllerTest {
         Long id = 1L;
         Document doc = new Document();
         doc.setName("Doc1");
-        doc.setContent("Content1");
+        doc.setContentLocation(new ContentLocation(3L, 8));
+        doc.setUpdatedAt(Instant.EPOCH);
         doc.setFileType("txt");
 
-        when(documentService.getDocumentById(id)).thenReturn(doc);
+        when(documentService.getDocumentForReading(id)).thenReturn(doc);
 
-        ResponseEntity<DocumentResponse> response = controller.getDocumentById(id);
+        ResponseEntity<DocumentResponse> response = controller.getDocumentById(id, webRequest());
 
         assertEquals(OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals("Doc1", response.getBody().getName());
-        verify(documentService).getDocumentById(id);
+        assertEquals(8, response.getBody().getSize());
+        verify(documentService).getDocumentForReading(id);
+    }
+
+    @Test
+    public void testGetDocumentById_notModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        when(documentService.getDocumentVersion(1L)).thenReturn(new DocumentVersion(3, Instant.EPOCH));
+
+        ResponseEntity<DocumentResponse> response = controller.getDocumentById(1L, new ServletWebRequest(request, servletResponse));
+
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        assertEquals("\"3\"", servletResponse.getHeader(HttpHeaders.ETAG));
+        verify(documentService, never()).getDocumentForReading(any());
+    }
+
+    @Test
+    public void testGetDocumentById_modifiedSinceETag() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"3\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setVersion(4);
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentVersion(1L)).thenReturn(new DocumentVersion(4, Instant.EPOCH));
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<DocumentResponse> response = controller.getDocumentById(1L, new ServletWebRequest(request, servletResponse));
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(List.of("\"4\""), servletResponse.getHeaders(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void testGetDocumentContent_notModified() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"3\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        when(documentService.getDocumentVersion(1L)).thenReturn(new DocumentVersion(3, Instant.EPOCH));
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, null, null,
+                new ServletWebRequest(request, servletResponse));
+
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verify(documentService, never()).getDocumentForReading(any());
+    }
+
+    @Test
+    public void testGetDocumentContent_whole() throws Exception {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setContentLocation(new ContentLocation(3L, 8));
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, null, null, webRequest());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(8, response.getHeaders().getContentLength());
+        assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+        verify(documentService).streamContent(eq(doc), eq(0L), eq(8L), any());
+    }
+
+    @Test
+    public void testGetDocumentContent_range() throws Exception {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setContentLocation(new ContentLocation(3L, 8));
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, "bytes=2-", null, webRequest());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-7/8", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(6, response.getHeaders().getContentLength());
+        verify(documentService).streamContent(eq(doc), eq(2L), eq(6L), any());
+    }
+
+    @Test
+    public void testGetDocumentContent_compressedPassThrough() throws Exception {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setContentLocation(compressedLocation());
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, null, "gzip, deflate", webRequest());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals("deflate", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(5, response.getHeaders().getContentLength());
+        verify(documentService).streamEncodedContent(eq(doc), any());
+    }
+
+    @Test
+    public void testGetDocumentContent_compressedDecodedWhenNotAccepted() throws Exception {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setContentLocation(compressedLocation());
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, null, "gzip, deflate;q=0", webRequest());
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(8, response.getHeaders().getContentLength());
+        verify(documentService).streamContent(eq(doc), eq(0L), eq(8L), any());
+    }
+
+    @Test
+    public void testGetDocumentContent_unsatisfiableRange() {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        doc.setContentLocation(new ContentLocation(3L, 8));
+        doc.setUpdatedAt(Instant.EPOCH);
+        when(documentService.getDocumentForReading(1L)).thenReturn(doc);
+
+        ResponseEntity<StreamingResponseBody> response = controller.getDocumentContent(1L, "bytes=8-", null, webRequest());
+
+        assertEquals(REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */8", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void testPutDocumentContent() throws Exception {
+        Document doc = new Document("Doc1", "txt", Set.of());
+        InputStream body = new ByteArrayInputStream(new byte[4]);
+        when(documentService.getDocumentById(1L)).thenReturn(doc);
+
+        ResponseEntity<Void> response = controller.putDocumentContent(1L, body, 4L);
+
+        assertEquals(NO_CONTENT, response.getStatusCode());
+        verify(documentService).replaceContent(doc, body, 4L);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/documents/1"), new MockHttpServletResponse());
+    }
+
+    private static ContentLocation compressedLocation() {
+        ContentLocation location = new ContentLocation(3L, 5);
+        location.setEncoding(ContentEncoding.DEFLATE);
+        location.setLength(8);
+        return location;
     }
 
     @Test
     public void testGetDocumentById_notFound() {
         Long id = 1L;
-        when(documentService.getDocumentById(id)).thenReturn(null);
+        when(documentService.getDocumentForReading(id)).thenReturn(null);
 
-        ResponseEntity<DocumentResponse> response = controller.getDocumentById(id);
+        ResponseEntity<DocumentResponse> response = controller.getDocumentById(id, webRequest());
 
         assertEquals(ResponseEntity.notFound().build().getStatusCode(), response.getStatusCode());
-        verify(documentService).getDocumentById(id);
+        verify(documentService).getDocumentForReading(id);
     }
 
     @Test
@@ -82,6 +351,28 @@ public class DocumentControllerTest {
         verify(documentService).createDocument(request);
     }
 
+    @Test
+    public void testIngestDocuments() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        IngestResponse ingestResponse = new IngestResponse(3, 0, List.of());
+        when(documentIngestService.ingestDocuments(body)).thenReturn(ingestResponse);
+
+        ResponseEntity<IngestResponse> response = controller.ingestDocuments(body);
+
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(ingestResponse, response.getBody());
+    }
+
+    @Test
+    public void testIngestDocuments_malformed() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(documentIngestService.ingestDocuments(body)).thenThrow(new JsonParseException(null, "bad"));
+
+        ResponseEntity<IngestResponse> response = controller.ingestDocuments(body);
+
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+    }
+
     @Test
     public void testUpdateDocument_found() {
         Long id = 1L;
@@ -119,13 +410,48 @@ public class DocumentControllerTest {
 
         when(documentService.checkPermissionBatch(username, request)).thenReturn(responseMock);
 
-        AccessibleIdsResponse response = controller.batchPermissionCheck(username, request);
+        ResponseEntity<AccessibleIdsResponse> response = controller.batchPermissionCheck(username, request);
 
-        assertNotNull(response);
-        assertEquals(responseMock, response);
+        assertEquals(OK, response.getStatusCode());
+        assertEquals(responseMock, response.getBody());
         verify(documentService).checkPermissionBatch(username, request);
     }
 
+    @Test
+    public void testBatchPermissionCheck_InvalidEncoding() {
+        BatchPermissionRequest request = mock(BatchPermissionRequest.class);
+        when(documentService.checkPermissionBatch("user1", request)).thenThrow(new IllegalArgumentException("Truncated"));
+
+        ResponseEntity<AccessibleIdsResponse> response = controller.batchPermissionCheck("user1", request);
+
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    public void testBulkGrant() {
+        String username = "admin";
+        BulkGrantRequest request = mock(BulkGrantRequest.class);
+        BulkGrantResponse responseMock = mock(BulkGrantResponse.class);
+
+        when(documentService.grantPermissions(username, request)).thenReturn(responseMock);
+
+        ResponseEntity<BulkGrantResponse> response = controller.bulkGrant(username, request);
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(responseMock, response.getBody());
+        verify(documentService).grantPermissions(username, request);
+    }
+
+    @Test
+    public void testBulkGrant_TooManyPairs() {
+        BulkGrantRequest request = new BulkGrantRequest();
+        when(documentService.grantPermissions("admin", request)).thenThrow(new IllegalArgumentException("too many pairs"));
+
+        ResponseEntity<BulkGrantResponse> response = controller.bulkGrant("admin", request);
+
+        assertEquals(400, response.getStatusCodeValue());
+    }
+
     @Test
     public void testDeleteUser_found() {
         Long id = 1L;
@@ -0,0 +1,386 @@
+package com.assignment.progresssoft.controller;
+
+import com.assignment.progresssoft.ProgressSoftApplication;
+import com.assignment.progresssoft.controller.SyntheticDataset.Weighted;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Boots the application on a {@link SyntheticDataset} and drives a weighted mix of requests through
+ * HTTP from {@code load.clients} concurrent clients, each sending its next request as soon as the
+ * previous one is answered. After {@code load.warmup} seconds, it measures for {@code load.duration}
+ * seconds and reports throughput, p50/p99/p999 latency and errors per endpoint:
+ * <ul>
+ *     <li>{@code list}: GET /documents as a random user</li>
+ *     <li>{@code get}: GET /documents/{id} as a reader of the document</li>
+ *     <li>{@code grant}: POST /documents/{id}/grant of READ to a random user, as admin</li>
+ *     <li>{@code delete}: DELETE /documents/{id} as the owner of the document</li>
+ *     <li>{@code access-check}: POST /documents/access-check of {@code load.access-check-batch} random IDs</li>
+ * </ul>
+ * Deleted documents are no longer picked, so a large delete share drains the dataset over a long run.
+ * <p>
+ * Run with {@code mvn test -Dtest=DocumentLoadTest -Dbenchmark=true}. The dataset and traffic are
+ * set with {@code -Dload.documents}, {@code -Dload.users}, {@code -Dload.fanout},
+ * {@code -Dload.content} (content sizes in bytes as {@code size:weight} pairs), {@code -Dload.mix}
+ * ({@code endpoint:weight} pairs) and {@code -Dload.seed}; {@code -Dload.profiles} activates Spring
+ * profiles and {@code -Dload.report} also writes the results as CSV, to compare releases. Any other
+ * application property can be passed as a system property.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DocumentLoadTest {
+
+    private static final int DOCUMENTS = Integer.getInteger("load.documents", 10_000);
+
+    private static final int USERS = Integer.getInteger("load.users", 1_000);
+
+    private static final int FANOUT = Integer.getInteger("load.fanout", 10);
+
+    private static final String CONTENT_SIZES = System.getProperty("load.content", "256:60,4096:30,65536:9,1048576:1");
+
+    private static final String MIX = System.getProperty("load.mix", "list:10,get:60,grant:10,delete:5,access-check:15");
+
+    private static final int ACCESS_CHECK_BATCH = Integer.getInteger("load.access-check-batch", 100);
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup", 10);
+
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration", 30);
+
+    private static final long SEED = Long.getLong("load.seed", 42);
+
+    private static final String PROFILES = System.getProperty("load.profiles", "");
+
+    private static final String REPORT = System.getProperty("load.report");
+
+    /**
+     * How many documents a request tries before giving up on finding one that is not deleted.
+     */
+    private static final int PICK_ATTEMPTS = 20;
+
+    @Test
+    void runMixedLoad() throws Exception {
+        Weighted<Endpoint> mix = Weighted.parse(MIX, Endpoint::of);
+        SyntheticDataset dataset = SyntheticDataset.generate(DOCUMENTS, USERS, FANOUT,
+                Weighted.parse(CONTENT_SIZES, Integer::valueOf), SEED);
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ProgressSoftApplication.class);
+        if (!PROFILES.isBlank()) {
+            builder.profiles(PROFILES.split(","));
+        }
+        try (ConfigurableApplicationContext context = builder.run("--server.port=0", "--spring.jpa.show-sql=false",
+                "--logging.level.root=OFF", "--spring.datasource.url=jdbc:h2:mem:load-" + SEED)) {
+            URI base = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            long seedStart = System.nanoTime();
+            dataset.ingest(client, base);
+            long[] ids = context.getBean(JdbcTemplate.class)
+                    .queryForList("SELECT id FROM documents ORDER BY id", Long.class)
+                    .stream().mapToLong(Long::longValue).toArray();
+            if (ids.length != dataset.documents()) {
+                throw new IllegalStateException("expected " + dataset.documents() + " documents, found " + ids.length);
+            }
+            System.out.printf("%d documents (%d MB), %d users, %d readers per document, seeded in %.1f s%n",
+                    dataset.documents(), dataset.contentBytes() >> 20, dataset.users(), dataset.fanout(),
+                    (System.nanoTime() - seedStart) / 1e9);
+            System.out.printf("%d clients, mix %s, %d s warmup, %d s measured%n", CLIENTS, MIX, WARMUP_SECONDS, DURATION_SECONDS);
+
+            Map<Endpoint, Stats> stats = new Traffic(client, base, dataset, ids, mix).run();
+            report(stats);
+        }
+    }
+
+    private static void report(Map<Endpoint, Stats> stats) throws IOException {
+        Stats total = new Stats();
+        stats.values().forEach(total::merge);
+
+        System.out.printf("%-13s %9s %9s %9s %9s %9s %9s %8s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors", "error %");
+        List<String> csv = new ArrayList<>();
+        csv.add("endpoint,requests,requests_per_second,p50_ms,p99_ms,p999_ms,max_ms,errors,error_rate");
+        for (Map.Entry<String, Stats> row : rows(stats, total).entrySet()) {
+            Stats s = row.getValue();
+            long[] latencies = s.sortedLatencies();
+            if (latencies.length == 0) {
+                continue;
+            }
+            double perSecond = latencies.length / (double) DURATION_SECONDS;
+            double errorRate = s.errors() / (double) latencies.length;
+            System.out.printf("%-13s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %8d %8.2f%n", row.getKey(), latencies.length,
+                    perSecond, percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e6, s.errors(), 100 * errorRate);
+            csv.add(String.format("%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%.5f", row.getKey(), latencies.length, perSecond,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e6, s.errors(), errorRate));
+        }
+        stats.forEach((endpoint, s) -> {
+            if (!s.failures().isEmpty()) {
+                System.out.printf("%s failures: %s%n", endpoint.key, s.failures());
+            }
+        });
+
+        if (REPORT != null) {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Path.of(REPORT)))) {
+                csv.forEach(writer::println);
+            }
+            System.out.println("report written to " + REPORT);
+        }
+    }
+
+    private static Map<String, Stats> rows(Map<Endpoint, Stats> stats, Stats total) {
+        Map<String, Stats> rows = new LinkedHashMap<>();
+        stats.forEach((endpoint, s) -> rows.put(endpoint.key, s));
+        rows.put("total", total);
+        return rows;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    enum Endpoint {
+        LIST("list"),
+        GET("get"),
+        GRANT("grant"),
+        DELETE("delete"),
+        ACCESS_CHECK("access-check");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        static Endpoint of(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("unknown endpoint '" + key + "', expected one of " +
+                    Arrays.stream(values()).map(e -> e.key).toList());
+        }
+    }
+
+    /**
+     * The clients, sharing the dataset and the set of deleted documents.
+     */
+    private static final class Traffic {
+
+        private final HttpClient client;
+
+        private final URI base;
+
+        private final SyntheticDataset dataset;
+
+        private final long[] ids;
+
+        private final Weighted<Endpoint> mix;
+
+        private final Set<Integer> deleted = ConcurrentHashMap.newKeySet();
+
+        private Traffic(HttpClient client, URI base, SyntheticDataset dataset, long[] ids, Weighted<Endpoint> mix) {
+            this.client = client;
+            this.base = base;
+            this.dataset = dataset;
+            this.ids = ids;
+            this.mix = mix;
+        }
+
+        Map<Endpoint, Stats> run() throws Exception {
+            long measureFrom = System.nanoTime() + WARMUP_SECONDS * 1_000_000_000L;
+            long measureUntil = measureFrom + DURATION_SECONDS * 1_000_000_000L;
+            ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+            try {
+                List<Future<Map<Endpoint, Stats>>> clients = new ArrayList<>();
+                for (int c = 0; c < CLIENTS; c++) {
+                    Random random = new Random(SEED + c);
+                    clients.add(executor.submit(() -> runClient(random, measureFrom, measureUntil)));
+                }
+                Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+                for (Endpoint endpoint : mix.values()) {
+                    stats.put(endpoint, new Stats());
+                }
+                for (Future<Map<Endpoint, Stats>> result : clients) {
+                    result.get().forEach((endpoint, s) -> stats.get(endpoint).merge(s));
+                }
+                return stats;
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private Map<Endpoint, Stats> runClient(Random random, long measureFrom, long measureUntil) {
+            Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+            for (Endpoint endpoint : mix.values()) {
+                stats.put(endpoint, new Stats());
+            }
+            while (System.nanoTime() < measureUntil) {
+                Endpoint endpoint = mix.pick(random);
+                HttpRequest request = request(endpoint, random);
+                if (request == null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                String failure;
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    failure = status >= 200 && status < 300 ? null : Integer.toString(status);
+                } catch (IOException e) {
+                    failure = e.getClass().getSimpleName();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                if (start >= measureFrom) {
+                    stats.get(endpoint).record(System.nanoTime() - start, failure);
+                }
+            }
+            return stats;
+        }
+
+        /**
+         * Builds the next request of an endpoint.
+         *
+         * @return the request, or {@code null} if no document that is not deleted was found
+         */
+        private HttpRequest request(Endpoint endpoint, Random random) {
+            switch (endpoint) {
+                case LIST:
+                    return get("/documents", dataset.randomUser(random));
+                case GET: {
+                    int document = pickLive(random);
+                    return document < 0 ? null : get("/documents/" + ids[document], dataset.randomReader(document, random));
+                }
+                case GRANT: {
+                    int document = pickLive(random);
+                    return document < 0 ? null : post("/documents/" + ids[document] + "/grant", "admin",
+                            "{\"username\":\"" + dataset.randomUser(random) + "\",\"permission\":\"READ\"}");
+                }
+                case DELETE: {
+                    int document = pickLive(random);
+                    if (document < 0 || !deleted.add(document)) {
+                        return null;
+                    }
+                    return HttpRequest.newBuilder(base.resolve("/documents/" + ids[document]))
+                            .header("X-User", dataset.owner(document))
+                            .DELETE()
+                            .build();
+                }
+                case ACCESS_CHECK: {
+                    StringJoiner documentIds = new StringJoiner(",", "{\"permission\":\"READ\",\"documentIds\":[", "]}");
+                    for (int i = 0; i < ACCESS_CHECK_BATCH; i++) {
+                        documentIds.add(Long.toString(ids[random.nextInt(ids.length)]));
+                    }
+                    return post("/documents/access-check", dataset.randomUser(random), documentIds.toString());
+                }
+                default:
+                    throw new IllegalStateException("unexpected endpoint " + endpoint);
+            }
+        }
+
+        private int pickLive(Random random) {
+            for (int i = 0; i < PICK_ATTEMPTS; i++) {
+                int document = random.nextInt(ids.length);
+                if (!deleted.contains(document)) {
+                    return document;
+                }
+            }
+            return -1;
+        }
+
+        private HttpRequest get(String path, String user) {
+            return HttpRequest.newBuilder(base.resolve(path))
+                    .header("X-User", user)
+                    .build();
+        }
+
+        private HttpRequest post(String path, String user, String json) {
+            return HttpRequest.newBuilder(base.resolve(path))
+                    .header("X-User", user)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json))
+                    .build();
+        }
+    }
+
+    /**
+     * Latencies and failures of one endpoint, recorded by a single client or merged from several.
+     */
+    private static final class Stats {
+
+        private long[] latencies = new long[1024];
+
+        private int count;
+
+        private int errors;
+
+        private final Map<String, Integer> failures = new TreeMap<>();
+
+        void record(long nanos, String failure) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (failure != null) {
+                errors++;
+                failures.merge(failure, 1, Integer::sum);
+            }
+        }
+
+        void merge(Stats other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], null);
+            }
+            errors += other.errors;
+            other.failures.forEach((failure, n) -> failures.merge(failure, n, Integer::sum));
+        }
+
+        long[] sortedLatencies() {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        int errors() {
+            return errors;
+        }
+
+        Map<String, Integer> failures() {
+            return failures;
+        }
+    }
+}
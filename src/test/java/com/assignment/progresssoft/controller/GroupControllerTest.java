@@ -0,0 +1,74 @@
+package com.assignment.progresssoft.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Grants a document to a group and follows users through joining and leaving it. The document's ACL
+ * stays cached throughout: only the members' principals change.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext
+class GroupControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testGroupGrantsFollowMembership() throws Exception {
+        mockMvc.perform(post("/documents").header("X-User", "admin").contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name":"Handbook","content":"Welcome","fileType":"txt","accessibleUsers":[
+                                  {"username":"group:staff","permission":"READ"}]}
+                                """))
+                .andExpect(status().isOk());
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT document_id FROM document_accessible_users WHERE username = 'group:staff'", Long.class);
+
+        mockMvc.perform(get("/documents/" + id).header("X-User", "alice")).andExpect(status().isForbidden());
+
+        mockMvc.perform(post("/groups/staff/members").header("X-User", "admin").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernames\":[\"alice\",\"bob\"]}"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/groups/staff/members").header("X-User", "admin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.principal").value("group:staff"))
+                .andExpect(jsonPath("$.members.length()").value(2));
+
+        mockMvc.perform(get("/documents/" + id).header("X-User", "alice")).andExpect(status().isOk());
+        mockMvc.perform(get("/documents").param("limit", "10").header("X-User", "bob"))
+                .andExpect(jsonPath("$.documents[0].id").value(id))
+                .andExpect(jsonPath("$.total").value(1));
+        mockMvc.perform(post("/documents/access-check").header("X-User", "bob").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"permission\":\"READ\",\"documentIds\":[" + id + "]}"))
+                .andExpect(jsonPath("$.accessibleIds[0]").value(id));
+
+        mockMvc.perform(delete("/groups/staff/members/alice").header("X-User", "admin")).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/groups/staff/members/alice").header("X-User", "admin")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/documents/" + id).header("X-User", "alice")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/documents/" + id).header("X-User", "bob")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testGroupsCannotActOrNest() throws Exception {
+        mockMvc.perform(get("/documents").header("X-User", "group:staff")).andExpect(status().isBadRequest());
+        mockMvc.perform(post("/groups/staff/members").header("X-User", "admin").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernames\":[\"group:other\"]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/groups/staff/members").header("X-User", "alice")).andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,234 @@
+package com.assignment.progresssoft.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A reproducible set of documents for load tests, generated from a seed.
+ * <p>
+ * There are {@code users} users, {@code user0..user(users - 1)}. Every document has one owner holding
+ * DELETE and {@code fanout} other users holding READ; the readers are consecutive users starting at
+ * a random offset after the owner, so they are distinct and only the offset needs to be kept. Content
+ * sizes are drawn from a weighted distribution and every body is unique, so that the content store
+ * cannot deduplicate them.
+ */
+final class SyntheticDataset {
+
+    private static final int INGEST_CHUNK_BYTES = 8 << 20;
+
+    private static final int INGEST_CHUNK_DOCUMENTS = 5_000;
+
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+    private final int users;
+
+    private final int fanout;
+
+    private final int[] owners;
+
+    private final int[] readerOffsets;
+
+    private final int[] contentSizes;
+
+    private final String filler;
+
+    private SyntheticDataset(int users, int fanout, int[] owners, int[] readerOffsets, int[] contentSizes, String filler) {
+        this.users = users;
+        this.fanout = fanout;
+        this.owners = owners;
+        this.readerOffsets = readerOffsets;
+        this.contentSizes = contentSizes;
+        this.filler = filler;
+    }
+
+    /**
+     * Generates a dataset.
+     *
+     * @param documents    the number of documents
+     * @param users        the number of users
+     * @param fanout       the number of users granted READ on each document, below {@code users}
+     * @param contentSizes the distribution of content sizes, in bytes
+     * @param seed         the seed of every random choice
+     * @return the dataset
+     */
+    static SyntheticDataset generate(int documents, int users, int fanout, Weighted<Integer> contentSizes, long seed) {
+        if (fanout < 0 || fanout >= users) {
+            throw new IllegalArgumentException("fanout must be between 0 and users - 1: " + fanout);
+        }
+        Random random = new Random(seed);
+        int[] owners = new int[documents];
+        int[] readerOffsets = new int[documents];
+        int[] sizes = new int[documents];
+        int maxSize = 0;
+        for (int i = 0; i < documents; i++) {
+            owners[i] = random.nextInt(users);
+            readerOffsets[i] = random.nextInt(users - fanout);
+            sizes[i] = contentSizes.pick(random);
+            maxSize = Math.max(maxSize, sizes[i]);
+        }
+        StringBuilder filler = new StringBuilder(maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            filler.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return new SyntheticDataset(users, fanout, owners, readerOffsets, sizes, filler.toString());
+    }
+
+    int documents() {
+        return owners.length;
+    }
+
+    int users() {
+        return users;
+    }
+
+    int fanout() {
+        return fanout;
+    }
+
+    long contentBytes() {
+        long total = 0;
+        for (int size : contentSizes) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the user holding DELETE on a document.
+     *
+     * @param document the index of the document, in creation order
+     * @return the username
+     */
+    String owner(int document) {
+        return "user" + owners[document];
+    }
+
+    /**
+     * Picks one of the users holding READ on a document, or its owner if there are none.
+     *
+     * @param document the index of the document, in creation order
+     * @param random   the source of randomness of the caller
+     * @return the username
+     */
+    String randomReader(int document, Random random) {
+        return fanout == 0 ? owner(document) : "user" + reader(document, random.nextInt(fanout));
+    }
+
+    String randomUser(Random random) {
+        return "user" + random.nextInt(users);
+    }
+
+    /**
+     * Creates every document through POST /documents/ingest, in creation order.
+     *
+     * @param client the HTTP client
+     * @param base   the URI of the /documents endpoint
+     * @throws IOException          if a chunk cannot be sent or is not fully ingested
+     * @throws InterruptedException if interrupted while sending
+     */
+    void ingest(HttpClient client, URI base) throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        StringBuilder chunk = new StringBuilder();
+        int lines = 0;
+        for (int i = 0; i < documents(); i++) {
+            appendLine(chunk, i);
+            lines++;
+            if (chunk.length() >= INGEST_CHUNK_BYTES || lines == INGEST_CHUNK_DOCUMENTS || i == documents() - 1) {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(base.resolve("/documents/ingest"))
+                        .header("X-User", "admin")
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(chunk.toString()))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                JsonNode result = response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+                if (result == null || result.path("ingested").asInt() != lines) {
+                    throw new IOException("ingest failed with " + response.statusCode() + ": " + response.body());
+                }
+                chunk.setLength(0);
+                lines = 0;
+            }
+        }
+    }
+
+    private void appendLine(StringBuilder ndjson, int document) {
+        String header = "document " + document + " ";
+        ndjson.append("{\"name\":\"document-").append(document)
+                .append("\",\"fileType\":\"txt\",\"content\":\"").append(header)
+                .append(filler, 0, Math.max(contentSizes[document] - header.length(), 1))
+                .append("\",\"accessibleUsers\":[{\"username\":\"").append(owner(document))
+                .append("\",\"permission\":\"DELETE\"}");
+        for (int j = 0; j < fanout; j++) {
+            ndjson.append(",{\"username\":\"user").append(reader(document, j)).append("\",\"permission\":\"READ\"}");
+        }
+        ndjson.append("]}\n");
+    }
+
+    private int reader(int document, int j) {
+        return (owners[document] + 1 + readerOffsets[document] + j) % users;
+    }
+
+    /**
+     * A discrete distribution given as {@code value:weight} pairs, e.g. {@code 256:90,65536:10}.
+     *
+     * @param <T> the type of the values
+     */
+    static final class Weighted<T> {
+
+        private final List<T> values;
+
+        private final int[] cumulativeWeights;
+
+        private Weighted(List<T> values, int[] cumulativeWeights) {
+            this.values = values;
+            this.cumulativeWeights = cumulativeWeights;
+        }
+
+        static <T> Weighted<T> parse(String spec, Function<String, T> parser) {
+            List<T> values = new ArrayList<>();
+            List<Integer> weights = new ArrayList<>();
+            for (String pair : spec.split(",")) {
+                String[] parts = pair.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("expected value:weight, got '" + pair + "' in " + spec);
+                }
+                int weight = Integer.parseInt(parts[1].trim());
+                if (weight > 0) {
+                    values.add(parser.apply(parts[0].trim()));
+                    weights.add(weight);
+                }
+            }
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("no positive weight in " + spec);
+            }
+            int[] cumulativeWeights = new int[weights.size()];
+            int total = 0;
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                total += weights.get(i);
+                cumulativeWeights[i] = total;
+            }
+            return new Weighted<>(values, cumulativeWeights);
+        }
+
+        T pick(Random random) {
+            int r = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (r >= cumulativeWeights[i]) {
+                i++;
+            }
+            return values.get(i);
+        }
+
+        List<T> values() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.assignment.progresssoft.controller;
+
+import com.assignment.progresssoft.ProgressSoftApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares throughput and latency percentiles of GET /documents/{id} served on Tomcat's platform
+ * threads and in the {@code virtual-threads} profile, with 10k concurrent clients each sending a
+ * few requests in a row. Every JDBC statement is delayed by {@code latency} ms to stand in for the
+ * round trip to a remote database, which is what leaves platform threads waiting.
+ * <p>
+ * Run with {@code mvn test -Dtest=VirtualThreadLoadTest -Dbenchmark=true} on Java 21 or later;
+ * {@code -Dclients}, {@code -Drequests} and {@code -Dlatency} override the defaults. Client and
+ * server share the JVM, so it needs about twice as many file descriptors as clients.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("clients", 10_000);
+
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("requests", 5);
+
+    private static final int LATENCY_MILLIS = Integer.getInteger("latency", 2);
+
+    private static final int DOCUMENTS = 100;
+
+    @Test
+    void comparePlatformAndVirtualThreads() throws Exception {
+        System.out.printf("%d clients x %d requests, %d ms per statement%n", CLIENTS, REQUESTS_PER_CLIENT, LATENCY_MILLIS);
+        System.out.printf("%-9s %10s %9s %9s %9s %8s %13s%n",
+                "threads", "req/s", "p50 ms", "p99 ms", "max ms", "errors", "peak threads");
+        run("platform");
+        run("virtual");
+    }
+
+    private static void run(String mode) throws Exception {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ProgressSoftApplication.class, SimulatedLatency.class)
+                .properties("server.port=0", "spring.jpa.show-sql=false",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + mode,
+                        "spring.datasource.hikari.maximum-pool-size=50",
+                        "server.tomcat.max-connections=20000", "server.tomcat.accept-count=1000",
+                        "logging.level.root=OFF");
+        if (mode.equals("virtual")) {
+            builder.profiles("virtual-threads");
+        }
+        try (ConfigurableApplicationContext context = builder.run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            seed(client, port);
+
+            measure(client, port, Math.min(CLIENTS, 500));
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long start = System.nanoTime();
+            Result result = measure(client, port, CLIENTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] latencies = result.latencies;
+            Arrays.sort(latencies);
+            System.out.printf("%-9s %10.0f %9.1f %9.1f %9.1f %8d %13d%n", mode, latencies.length / seconds,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6,
+                    result.errors.get(), threads.getPeakThreadCount());
+        }
+    }
+
+    private static void seed(HttpClient client, int port) throws Exception {
+        for (int i = 1; i <= DOCUMENTS; i++) {
+            String body = "{\"name\":\"doc" + i + "\",\"content\":\"content " + i + "\",\"fileType\":\"txt\"," +
+                    "\"accessibleUsers\":[{\"username\":\"user" + (i % 10) + "\",\"permission\":\"READ\"}]}";
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/documents"))
+                    .header("X-User", "admin")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    /**
+     * Starts all clients at once; each sends its requests one after the other.
+     */
+    private static Result measure(HttpClient client, int port, int clients) {
+        Result result = new Result(clients * REQUESTS_PER_CLIENT);
+        CompletableFuture<?>[] done = new CompletableFuture<?>[clients];
+        for (int c = 0; c < clients; c++) {
+            done[c] = send(client, port, c, 0, result);
+        }
+        CompletableFuture.allOf(done).join();
+        return result;
+    }
+
+    private static CompletableFuture<Void> send(HttpClient client, int port, int clientId, int sent, Result result) {
+        if (sent == REQUESTS_PER_CLIENT) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int id = (clientId + sent) % DOCUMENTS + 1;
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/documents/" + id))
+                .header("X-User", "user" + (id % 10))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    result.record(System.nanoTime() - start, failure == null && response.statusCode() == 200);
+                    return null;
+                })
+                .thenCompose(ignored -> send(client, port, clientId, sent + 1, result));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    private static final class Result {
+
+        private final long[] latencies;
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Result(int requests) {
+            this.latencies = new long[requests];
+        }
+
+        private void record(long nanos, boolean ok) {
+            latencies[count.getAndIncrement()] = nanos;
+            if (!ok) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Delays every statement execution by {@code latency} ms while its connection is held.
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class SimulatedLatency {
+
+        @Bean
+        static BeanPostProcessor simulatedLatencyDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? delaying(DataSource.class, bean) : bean;
+                }
+            };
+        }
+
+        private static Object delaying(Class<?> type, Object target) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                if (method.getName().startsWith("execute")) {
+                    Thread.sleep(LATENCY_MILLIS);
+                }
+                Object value;
+                try {
+                    value = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                Class<?> returnType = method.getReturnType();
+                if (value instanceof Connection || value instanceof Statement && returnType.isInterface()) {
+                    return delaying(returnType, value);
+                }
+                return value;
+            };
+            return Proxy.newProxyInstance(VirtualThreadLoadTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
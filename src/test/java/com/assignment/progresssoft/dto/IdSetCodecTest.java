@@ -0,0 +1,40 @@
+package com.assignment.progresssoft.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdSetCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        long[] ids = {0L, 1L, 127L, 128L, 300L, 1L << 40, Long.MAX_VALUE};
+
+        assertArrayEquals(ids, IdSetCodec.decode(IdSetCodec.encode(ids)));
+        assertEquals("", IdSetCodec.encode(new long[0]));
+        assertArrayEquals(new long[0], IdSetCodec.decode(""));
+    }
+
+    @Test
+    void testEncode_DenseRangeTakesOneBytePerId() {
+        long[] ids = LongStream.rangeClosed(1, 300).toArray();
+
+        String encoded = IdSetCodec.encode(ids);
+
+        assertEquals(400, encoded.length());
+        assertArrayEquals(ids, IdSetCodec.decode(encoded));
+    }
+
+    @Test
+    void testDecode_DropsRepeatedIds() {
+        assertArrayEquals(new long[]{5L, 7L}, IdSetCodec.decode(IdSetCodec.encode(new long[]{5L, 5L, 7L})));
+    }
+
+    @Test
+    void testDecode_RejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> IdSetCodec.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> IdSetCodec.decode("gA"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.assignment.progresssoft.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeteredDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:metered-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(new MeteredDataSource(h2, meterRegistry));
+        jdbcTemplate.execute("CREATE TABLE t (id BIGINT)");
+    }
+
+    @Test
+    void testStatementsAreTimedAndTalliedPerThread() {
+        try (StatementTally tally = StatementTally.open()) {
+            jdbcTemplate.update("INSERT INTO t VALUES (?)", 1L);
+            jdbcTemplate.batchUpdate("INSERT INTO t VALUES (?)", List.of(new Object[]{2L}, new Object[]{3L}));
+            assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM t", Integer.class));
+
+            assertEquals(3, tally.statements());
+            assertTrue(tally.nanos() > 0);
+        }
+        jdbcTemplate.queryForList("SELECT id FROM t", Long.class);
+
+        assertEquals(5, meterRegistry.get("documents.db.statements").timer().count());
+    }
+
+    @Test
+    void testNestedTalliesBothCount() {
+        try (StatementTally outer = StatementTally.open()) {
+            jdbcTemplate.update("INSERT INTO t VALUES (?)", 1L);
+            try (StatementTally inner = StatementTally.open()) {
+                jdbcTemplate.update("INSERT INTO t VALUES (?)", 2L);
+                assertEquals(1, inner.statements());
+            }
+            jdbcTemplate.update("INSERT INTO t VALUES (?)", 3L);
+            assertEquals(3, outer.statements());
+        }
+    }
+
+    @Test
+    void testCaptureKeepsSqlAndBudgetFailsListingIt() {
+        try (StatementTally tally = StatementTally.capture()) {
+            jdbcTemplate.update("INSERT INTO t VALUES (?)", 1L);
+            jdbcTemplate.queryForList("SELECT id FROM t", Long.class);
+            assertEquals(List.of("INSERT INTO t VALUES (?)", "SELECT id FROM t"), tally.sql());
+        }
+
+        assertEquals(1, StatementBudget.atMost(1, () -> jdbcTemplate.update("INSERT INTO t VALUES (?)", 2L)));
+        AssertionError error = assertThrows(AssertionError.class, () -> StatementBudget.atMost(1, "two inserts", () -> {
+            jdbcTemplate.update("INSERT INTO t VALUES (?)", 3L);
+            return jdbcTemplate.update("INSERT INTO t VALUES (?)", 4L);
+        }));
+        assertTrue(error.getMessage().startsWith("two inserts executed 2 JDBC statements, budget is 1"));
+        assertTrue(error.getMessage().contains("2. INSERT INTO t VALUES (?)"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.assignment.progresssoft.metrics;
+
+import org.junit.jupiter.api.function.ThrowingSupplier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Asserts how many JDBC statements an action executes, e.g. a {@code MockMvc} request.
+ * <p>
+ * The statements are those seen by the {@link MeteredDataSource} on the calling thread: Hibernate
+ * queries and flushes as well as {@code JdbcTemplate} calls, including the content store's. A batch
+ * counts as one statement. On failure the message lists the SQL of every statement executed.
+ */
+public final class StatementBudget {
+
+    private StatementBudget() {
+    }
+
+    /**
+     * Runs an action and fails if it executed more than {@code max} statements.
+     *
+     * @param max    the budget
+     * @param action the action, typically {@code () -> mockMvc.perform(...).andExpect(...)}
+     * @param <T>    the result type of the action
+     * @return the result of the action
+     */
+    public static <T> T atMost(int max, ThrowingSupplier<T> action) {
+        return atMost(max, "", action);
+    }
+
+    /**
+     * Runs an action and fails if it executed more than {@code max} statements.
+     *
+     * @param max         the budget
+     * @param description names the action in the failure message
+     * @param action      the action, typically {@code () -> mockMvc.perform(...).andExpect(...)}
+     * @param <T>         the result type of the action
+     * @return the result of the action
+     */
+    public static <T> T atMost(int max, String description, ThrowingSupplier<T> action) {
+        StatementTally tally = StatementTally.capture();
+        T result;
+        try {
+            result = run(action);
+        } finally {
+            tally.close();
+        }
+        if (tally.statements() > max) {
+            fail(String.format("%s executed %d JDBC statements, budget is %d:%n%s",
+                    description.isEmpty() ? "the action" : description, tally.statements(), max, list(tally.sql())));
+        }
+        return result;
+    }
+
+    /**
+     * Runs an action and returns how many statements it executed.
+     *
+     * @param action the action
+     * @return the number of statements
+     */
+    public static int count(ThrowingSupplier<?> action) {
+        try (StatementTally tally = StatementTally.open()) {
+            run(action);
+            return tally.statements();
+        }
+    }
+
+    private static <T> T run(ThrowingSupplier<T> action) {
+        try {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new AssertionError("the action failed: " + e, e);
+        }
+    }
+
+    private static String list(List<String> sql) {
+        return IntStream.range(0, sql.size())
+                .mapToObj(i -> String.format("  %d. %s", i + 1, sql.get(i)))
+                .collect(Collectors.joining(System.lineSeparator()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.dto.IdSetCodec;
+import com.assignment.progresssoft.enums.Permissions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Compares the array join of {@link AccessibleUserJdbcRepository#findDocumentIdsWithPermission} with
+ * the JPQL {@code IN} list it replaced, and the JSON and encoded request sizes, for 1k to 1M IDs.
+ * The rows are committed before measuring, as reading a million uncommitted rows is far slower in H2.
+ * Run with {@code mvn test -Dtest=AccessCheckBenchmarkTest -Dbenchmark=true}.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import(AccessibleUserJdbcRepository.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class AccessCheckBenchmarkTest {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    /**
+     * Largest batch still sent through the {@code IN} list; beyond it the statement takes minutes to prepare.
+     */
+    private static final int MAX_IN_LIST_SIZE = 10_000;
+
+    @Autowired
+    private AccessibleUserJdbcRepository accessibleUserJdbcRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("TRUNCATE TABLE document_accessible_users");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        jdbcTemplate.execute("TRUNCATE TABLE documents");
+        jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+    }
+
+    @Test
+    void compareStrategies() {
+        int documents = SIZES[SIZES.length - 1];
+        jdbcTemplate.update("INSERT INTO documents (id, name, file_type, content_size, content_encoding, content_length, " +
+                "version, updated_at) SELECT X, 'doc', 'txt', 0, 'NONE', 0, 0, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)", documents);
+        jdbcTemplate.update("INSERT INTO document_accessible_users (document_id, username, permissions) " +
+                "SELECT X, CASE WHEN MOD(X, 2) = 0 THEN 'user1' ELSE 'user2' END, 1 FROM SYSTEM_RANGE(1, ?)", documents);
+
+        accessibleUserJdbcRepository.findDocumentIdsWithPermission(new long[]{1L}, Permissions.READ.mask(), List.of("user1"));
+        documentRepository.findDocumentIdsWithPermission(Set.of(1L), Permissions.READ, List.of("user1"));
+
+        System.out.printf("%-9s %12s %12s %12s %12s%n", "ids", "array ms", "IN list ms", "JSON bytes", "encoded");
+        for (int size : SIZES) {
+            long[] ids = LongStream.rangeClosed(1, size).toArray();
+
+            long start = System.nanoTime();
+            long[] found = accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, Permissions.READ.mask(), List.of("user1"));
+            double arrayMillis = (System.nanoTime() - start) / 1e6;
+
+            String inListMillis = "-";
+            if (size <= MAX_IN_LIST_SIZE) {
+                Set<Long> idSet = Arrays.stream(ids).boxed().collect(Collectors.toSet());
+                start = System.nanoTime();
+                documentRepository.findDocumentIdsWithPermission(idSet, Permissions.READ, List.of("user1"));
+                inListMillis = String.format("%.1f", (System.nanoTime() - start) / 1e6);
+            }
+
+            String json = Arrays.stream(ids).mapToObj(Long::toString).collect(Collectors.joining(",", "[", "]"));
+            System.out.printf("%-9d %12.1f %12s %12d %12d   (%d accessible)%n", size, arrayMillis, inListMillis,
+                    json.length(), IdSetCodec.encode(ids).length(), found.length);
+        }
+    }
+}
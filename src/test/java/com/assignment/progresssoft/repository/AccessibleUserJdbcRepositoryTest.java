@@ -0,0 +1,71 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository.Grant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(AccessibleUserJdbcRepository.class)
+class AccessibleUserJdbcRepositoryTest {
+
+    @Autowired
+    private AccessibleUserJdbcRepository accessibleUserJdbcRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsertAndUpdate_AreVisibleThroughJpa() {
+        Long id = documentRepository.save(new Document("Doc", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ))))).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        accessibleUserJdbcRepository.insert(List.of(new Grant(id, "User2", Permissions.WRITE.mask())));
+        accessibleUserJdbcRepository.update(List.of(new Grant(id, "user1", Permissions.READ.mask() | Permissions.DELETE.mask())));
+
+        assertEquals(Map.of(id, Map.of("user1", new AccessibleUser("user1", 5), "user2", new AccessibleUser("User2", 2))),
+                accessibleUserJdbcRepository.findPermissionMasks(List.of(id), List.of("user1", "user2", "user3")));
+        assertEquals(Set.of(new AccessibleUser("user1", 5), new AccessibleUser("User2", 2)),
+                documentRepository.findById(id).orElseThrow().getAccessibleUsers());
+    }
+
+    @Test
+    void testFindDocumentIdsWithPermission_JoinsIdArray() {
+        Long first = documentRepository.save(new Document("A", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("user1", Permissions.READ), new AccessibleUser("user2", Permissions.READ))))).getId();
+        Long second = documentRepository.save(new Document("B", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("user1", Permissions.WRITE))))).getId();
+        Long third = documentRepository.save(new Document("C", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("user2", Permissions.READ.mask() | Permissions.WRITE.mask()))))).getId();
+        entityManager.flush();
+        long[] ids = {first, second, third, third + 1000};
+
+        assertArrayEquals(new long[]{first},
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, Permissions.READ.mask(), List.of("user1")));
+        assertArrayEquals(new long[]{first, third},
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, Permissions.READ.mask(), List.of("user1", "user2")));
+        assertArrayEquals(new long[]{first, third},
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, Permissions.READ.mask(), null));
+        assertArrayEquals(new long[]{second, third},
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(ids, Permissions.WRITE.mask(), null));
+        assertArrayEquals(new long[0],
+                accessibleUserJdbcRepository.findDocumentIdsWithPermission(new long[0], Permissions.READ.mask(), null));
+    }
+}
@@ -0,0 +1,194 @@
+package com.assignment.progresssoft.repository;
+
+import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.enums.DocumentSort;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class DocumentRepositoryTest {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFindAllWithPermission_ReturnsOnlyMatchingDocuments() {
+        documentRepository.save(new Document("Readable", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ)))));
+        documentRepository.save(new Document("Writable", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.WRITE)))));
+        documentRepository.save(new Document("Other", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user2", Permissions.READ)))));
+
+        List<DocumentResponse> result = documentRepository.findAllWithPermission(List.of("user1"), Permissions.READ);
+
+        assertEquals(1, result.size());
+        assertEquals("Readable", result.get(0).getName());
+    }
+
+    @Test
+    void testFindAllWithPermission_NoMatches() {
+        documentRepository.save(new Document("Readable", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ)))));
+
+        assertTrue(documentRepository.findAllWithPermission(List.of("user3"), Permissions.READ).isEmpty());
+    }
+
+    @Test
+    void testFindPageWithPermission_KeysetOnDocumentId() {
+        for (int i = 0; i < 5; i++) {
+            documentRepository.save(new Document("Doc" + i, "txt",
+                    new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ)))));
+        }
+
+        List<DocumentResponse> first = documentRepository.findPageWithPermission(List.of("user1"), Permissions.READ, 0L, Limit.of(3));
+        List<DocumentResponse> second = documentRepository.findPageWithPermission(
+                List.of("user1"), Permissions.READ, first.get(2).getId(), Limit.of(3));
+
+        assertEquals(List.of("Doc0", "Doc1", "Doc2"), first.stream().map(DocumentResponse::getName).toList());
+        assertEquals(List.of("Doc3", "Doc4"), second.stream().map(DocumentResponse::getName).toList());
+    }
+
+    @Test
+    void testFindFilteredPage_MatchesTypeAndPrefixInNameOrder() {
+        save("Report b", "pdf", Permissions.READ);
+        save("Report a", "pdf", Permissions.READ);
+        save("Report a", "pdf", Permissions.READ);
+        save("Report c", "txt", Permissions.READ);
+        save("Reporter", "pdf", Permissions.WRITE);
+        save("Summary", "pdf", Permissions.READ);
+        DocumentFilter filter = new DocumentFilter("pdf", "Report", DocumentSort.NAME);
+
+        List<DocumentResponse> first = documentRepository.findFilteredPage(List.of("user1"), Permissions.READ, filter, null, null, 2);
+        DocumentResponse last = first.get(1);
+        List<DocumentResponse> second = documentRepository.findFilteredPage(
+                List.of("user1"), Permissions.READ, filter, last.getId(), last.getName(), 2);
+
+        assertEquals(List.of("Report a", "Report a"), first.stream().map(DocumentResponse::getName).toList());
+        assertTrue(first.get(0).getId() < first.get(1).getId());
+        assertEquals(List.of("Report b"), second.stream().map(DocumentResponse::getName).toList());
+        assertEquals(3, documentRepository.countFiltered(List.of("user1"), Permissions.READ, filter, 10));
+        assertEquals(2, documentRepository.countFiltered(List.of("user1"), Permissions.READ, filter, 2));
+    }
+
+    @Test
+    void testFindFilteredPage_TreatsPrefixLiterally() {
+        save("50% off", "txt", Permissions.READ);
+        save("50 percent", "txt", Permissions.READ);
+        save("a_b", "txt", Permissions.READ);
+        save("axb", "txt", Permissions.READ);
+
+        assertEquals(List.of("50% off"), names(new DocumentFilter(null, "50%", DocumentSort.ID)));
+        assertEquals(List.of("a_b"), names(new DocumentFilter(null, "a_", DocumentSort.ID)));
+        assertEquals(4, names(new DocumentFilter(null, "", DocumentSort.ID)).size());
+    }
+
+    @Test
+    void testFilteredQueries_UseDocumentIndexes() {
+        save("Report", "pdf", Permissions.READ);
+
+        assertTrue(explain("file_type = 'pdf' AND d.name >= 'Rep'").contains("IDX_DOCUMENTS_FILE_TYPE_NAME"));
+        assertTrue(explain("d.name >= 'Rep'").contains("IDX_DOCUMENTS_NAME"));
+        assertTrue(explain("au.username = 'user1'").contains("IDX_DOCUMENT_ACCESSIBLE_USERS_USERNAME"));
+    }
+
+    @Test
+    void testQueries_MatchAnyPrincipalOnce() {
+        Document both = documentRepository.saveAndFlush(new Document("Both", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("user1", Permissions.READ), new AccessibleUser("group:staff", Permissions.READ)))));
+        Document group = documentRepository.saveAndFlush(new Document("Group", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("group:staff", Permissions.READ)))));
+        documentRepository.saveAndFlush(new Document("Other", "txt", new HashSet<>(Set.of(
+                new AccessibleUser("group:other", Permissions.READ)))));
+        List<String> principals = List.of("user1", "group:staff");
+        DocumentFilter filter = new DocumentFilter("txt", null, DocumentSort.NAME);
+
+        assertEquals(List.of("Both", "Group"), documentRepository.findAllWithPermission(principals, Permissions.READ)
+                .stream().map(DocumentResponse::getName).toList());
+        assertEquals(2, documentRepository.findPageWithPermission(principals, Permissions.READ, 0L, Limit.of(2)).size());
+        assertEquals(List.of("Both", "Group"), documentRepository.findFilteredPage(principals, Permissions.READ, filter, null, null, 2)
+                .stream().map(DocumentResponse::getName).toList());
+        assertEquals(2, documentRepository.countFiltered(principals, Permissions.READ, filter, 10));
+        assertTrue(documentRepository.existsWithPermission(group.getId(), principals, Permissions.READ));
+        assertEquals(Set.of(both.getId(), group.getId()), documentRepository.findDocumentIdsWithPermission(
+                Set.of(both.getId(), group.getId()), Permissions.READ, principals));
+    }
+
+    @Test
+    void testStreamAllWithPermission() {
+        documentRepository.save(new Document("Readable", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ)))));
+        documentRepository.save(new Document("Other", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user2", Permissions.READ)))));
+
+        try (Stream<DocumentResponse> stream = documentRepository.streamAllWithPermission(List.of("user1"), Permissions.READ)) {
+            assertEquals(List.of("Readable"), stream.map(DocumentResponse::getName).toList());
+        }
+    }
+
+    @Test
+    void testStreamFiltered() {
+        save("Zed", "pdf", Permissions.READ);
+        save("Report", "txt", Permissions.READ);
+        save("Alpha", "pdf", Permissions.READ);
+        save("Draft", "pdf", Permissions.WRITE);
+        DocumentFilter filter = new DocumentFilter("pdf", null, DocumentSort.NAME);
+
+        try (Stream<DocumentResponse> stream = documentRepository.streamFiltered(List.of("user1"), Permissions.READ, filter)) {
+            assertEquals(List.of("Alpha", "Zed"), stream.map(DocumentResponse::getName).toList());
+        }
+    }
+
+    @Test
+    void testExistsWithPermission() {
+        Document document = documentRepository.save(new Document("Doc", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ)))));
+
+        assertTrue(documentRepository.existsWithPermission(document.getId(), List.of("user1"), Permissions.READ));
+        assertFalse(documentRepository.existsWithPermission(document.getId(), List.of("user1"), Permissions.WRITE));
+        assertFalse(documentRepository.existsWithPermission(document.getId(), List.of("user2"), Permissions.READ));
+    }
+
+    @Test
+    void testPermissionQueries_MatchAnyBitOfMask() {
+        Document document = documentRepository.save(new Document("Doc", "txt",
+                new HashSet<>(Set.of(new AccessibleUser("user1", Permissions.READ.mask() | Permissions.DELETE.mask())))));
+
+        assertTrue(documentRepository.existsWithPermission(document.getId(), List.of("user1"), Permissions.DELETE));
+        assertEquals(1, documentRepository.findAllWithPermission(List.of("user1"), Permissions.READ).size());
+        assertEquals(Set.of(document.getId()),
+                documentRepository.findDocumentIdsWithPermission(Set.of(document.getId()), Permissions.DELETE, List.of("user1")));
+        assertTrue(documentRepository.findDocumentIdsWithPermission(Set.of(document.getId()), Permissions.WRITE).isEmpty());
+    }
+
+    private void save(String name, String fileType, Permissions permission) {
+        documentRepository.saveAndFlush(new Document(name, fileType,
+                new HashSet<>(Set.of(new AccessibleUser("user1", permission)))));
+    }
+
+    private List<String> names(DocumentFilter filter) {
+        return documentRepository.findFilteredPage(List.of("user1"), Permissions.READ, filter, null, null, 10).stream()
+                .map(DocumentResponse::getName).toList();
+    }
+
+    private String explain(String condition) {
+        return jdbcTemplate.queryForObject("EXPLAIN SELECT d.id FROM documents d " +
+                "JOIN document_accessible_users au ON au.document_id = d.id WHERE " + condition, String.class);
+    }
+}
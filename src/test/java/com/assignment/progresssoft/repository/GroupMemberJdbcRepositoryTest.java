@@ -0,0 +1,38 @@
+package com.assignment.progresssoft.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(GroupMemberJdbcRepository.class)
+class GroupMemberJdbcRepositoryTest {
+
+    @Autowired
+    private GroupMemberJdbcRepository groupMemberRepository;
+
+    @Test
+    void testAddMembers_IgnoresExistingMembers() {
+        groupMemberRepository.addMembers("staff", List.of("user1", "user2"));
+        groupMemberRepository.addMembers("staff", List.of("user2", "user3"));
+        groupMemberRepository.addMembers("engineering", List.of("user2"));
+
+        assertEquals(List.of("user1", "user2", "user3"), groupMemberRepository.findMembers("staff"));
+        assertEquals(List.of("engineering", "staff"), groupMemberRepository.findGroups("user2"));
+        assertEquals(List.of(), groupMemberRepository.findGroups("user4"));
+    }
+
+    @Test
+    void testRemoveMember() {
+        groupMemberRepository.addMembers("staff", List.of("user1", "user2"));
+
+        assertTrue(groupMemberRepository.removeMember("staff", "user1"));
+        assertFalse(groupMemberRepository.removeMember("staff", "user1"));
+        assertEquals(List.of("user2"), groupMemberRepository.findMembers("staff"));
+    }
+}
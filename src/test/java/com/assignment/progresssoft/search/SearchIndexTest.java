@@ -0,0 +1,160 @@
+package com.assignment.progresssoft.search;
+
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.storage.CompressingContentStore;
+import com.assignment.progresssoft.storage.DatabaseContentStore;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DatabaseContentStore.class)
+class SearchIndexTest {
+
+    @Autowired
+    private DatabaseContentStore databaseContentStore;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DeduplicatingContentStore contentStore;
+
+    private SearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = new DeduplicatingContentStore(new CompressingContentStore(databaseContentStore,
+                new String[]{"txt"}, 16, 6, new SimpleMeterRegistry()), jdbcTemplate);
+        index = new SearchIndex(jdbcTemplate, contentStore, true, new String[]{"txt", "md"}, 64, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testTerms_SplitsOnNonAlphanumericsAndLowerCases() {
+        assertEquals(List.of("quarterly", "report", "2024", "été"), SearchIndex.terms("Quarterly REPORT, 2024 — été (a) report"));
+        assertEquals(List.of(), SearchIndex.terms("- ? x"));
+        assertEquals(List.of(), SearchIndex.terms("a".repeat(SearchIndex.MAX_TERM_LENGTH + 1)));
+    }
+
+    @Test
+    void testMatch_RequiresEveryTermInNameOrBody() {
+        index.load();
+        index.put(index.analyze(1L, "Quarterly report", "txt", "revenue grew"));
+        index.put(index.analyze(2L, "Minutes", "txt", "quarterly revenue fell"));
+        index.put(index.analyze(3L, "Quarterly scan", "pdf", "revenue"));
+
+        assertArrayEquals(new long[]{1L, 2L, 3L}, index.match(List.of("quarterly")).toArray());
+        assertArrayEquals(new long[]{1L, 2L}, index.match(List.of("quarterly", "revenue")).toArray());
+        assertArrayEquals(new long[]{2L}, index.match(List.of("fell", "minutes")).toArray());
+        assertTrue(index.match(List.of("quarterly", "unknown")).isEmpty());
+    }
+
+    @Test
+    void testRank_PrefersNameMatchesThenRepeatedTerms() {
+        index.load();
+        index.put(index.analyze(1L, "Notes", "txt", "budget"));
+        index.put(index.analyze(2L, "Notes", "txt", "budget budget budget budget"));
+        index.put(index.analyze(3L, "Budget", "txt", "budget"));
+        index.put(index.analyze(4L, "Notes", "txt", "budget"));
+        index.put(index.analyze(5L, "Other", "txt", "unrelated"));
+        List<String> terms = SearchIndex.terms("budget");
+
+        List<SearchIndex.Hit> hits = index.rank(terms, index.match(terms), 3);
+
+        assertEquals(List.of(3L, 2L, 1L), hits.stream().map(SearchIndex.Hit::documentId).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertTrue(hits.get(1).score() > hits.get(2).score());
+    }
+
+    @Test
+    void testRank_ScoresOnlyCandidates() {
+        index.load();
+        index.put(index.analyze(1L, "Budget", "txt", "budget"));
+        index.put(index.analyze(2L, "Notes", "txt", "budget"));
+
+        List<SearchIndex.Hit> hits = index.rank(List.of("budget"), Roaring64Bitmap.bitmapOf(2L), 10);
+
+        assertEquals(List.of(2L), hits.stream().map(SearchIndex.Hit::documentId).toList());
+    }
+
+    @Test
+    void testPutAndRemove_ReplaceAndDropTerms() {
+        index.load();
+        index.put(index.analyze(1L, "Draft", "txt", "first version"));
+        index.put(index.analyze(1L, "Draft", "txt", "second version"));
+
+        assertTrue(index.match(List.of("first")).isEmpty());
+        assertArrayEquals(new long[]{1L}, index.match(List.of("second")).toArray());
+
+        index.remove(1L);
+
+        assertTrue(index.match(List.of("draft")).isEmpty());
+        assertEquals(0, index.analyze(2L, "", "txt", null).size());
+    }
+
+    @Test
+    void testAnalyze_IndexesLeadingCharactersOfTextBodiesOnly() {
+        index.load();
+        index.put(index.analyze(1L, "Scan", "pdf", "invoice"));
+        index.put(index.analyze(2L, "Log", "txt", "x".repeat(60) + " truncated"));
+
+        assertTrue(index.match(List.of("invoice")).isEmpty());
+        assertTrue(index.match(List.of("truncated")).isEmpty());
+        assertArrayEquals(new long[]{1L}, index.match(List.of("scan")).toArray());
+    }
+
+    @Test
+    void testLoad_IndexesNamesAndStoredBodies() throws Exception {
+        long text = save("Release notes", "txt", "Compressed body mentioning kubernetes, repeated: kubernetes");
+        long binary = save("Diagram", "pdf", "kubernetes");
+        long deleted = save("Deleted", "txt", "kubernetes");
+
+        index.remove(deleted);
+        assertFalse(index.isReady());
+        index.load();
+
+        assertTrue(index.isReady());
+        assertArrayEquals(new long[]{text}, index.match(List.of("kubernetes")).toArray());
+        assertArrayEquals(new long[]{text}, index.match(List.of("release", "compressed")).toArray());
+        assertArrayEquals(new long[]{binary}, index.match(List.of("diagram")).toArray());
+    }
+
+    @Test
+    void testDisabled_IsNeverReady() throws Exception {
+        save("Doc", "txt", "body");
+        SearchIndex disabled = new SearchIndex(jdbcTemplate, contentStore, false, new String[]{"txt"}, 64, new SimpleMeterRegistry());
+
+        disabled.load();
+        disabled.put(disabled.analyze(1L, "Doc", "txt", "body"));
+
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.match(List.of("doc")).isEmpty());
+    }
+
+    private long save(String name, String fileType, String content) throws Exception {
+        Document document = new Document(name, fileType, new HashSet<>());
+        document.setContentLocation(contentStore.write(fileType, content.getBytes(StandardCharsets.UTF_8)));
+        Long id = documentRepository.save(document).getId();
+        entityManager.flush();
+        return id;
+    }
+}
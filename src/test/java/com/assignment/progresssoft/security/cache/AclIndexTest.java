@@ -0,0 +1,84 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AclIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AclIndex aclIndex = new AclIndex(1000, meterRegistry);
+
+    @Test
+    void testGet_RecordsHitsAndMisses() {
+        DocumentAcl acl = DocumentAcl.of(Set.of(new AccessibleUser("user1", Permissions.READ)));
+
+        aclIndex.get(1L, id -> acl);
+        aclIndex.get(1L, id -> acl);
+        aclIndex.get(1L, id -> acl);
+
+        assertEquals(2, meterRegistry.get("cache.gets").tags("cache", "acl", "result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "acl", "result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testGet_ConcurrentMissesShareOneLoad() throws Exception {
+        DocumentAcl acl = DocumentAcl.of(Set.of(new AccessibleUser("user1", Permissions.READ)));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<DocumentAcl> first = CompletableFuture.supplyAsync(() -> aclIndex.get(1L, id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                awaitQuietly(release);
+                return acl;
+            }), executor);
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            CompletableFuture<DocumentAcl> second = CompletableFuture.supplyAsync(() -> aclIndex.get(1L, id -> {
+                loads.incrementAndGet();
+                return acl;
+            }), executor);
+            release.countDown();
+
+            assertSame(acl, first.get(5, TimeUnit.SECONDS));
+            assertSame(acl, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGet_FailedLoadIsRethrownAndNotCached() {
+        IllegalStateException failure = new IllegalStateException("database down");
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> aclIndex.get(1L, id -> {
+            throw failure;
+        })));
+
+        DocumentAcl acl = DocumentAcl.of(Set.of());
+        assertSame(acl, aclIndex.get(1L, id -> acl));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.repository.GroupMemberJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GroupMembershipCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final GroupMemberJdbcRepository groupMemberRepository = mock(GroupMemberJdbcRepository.class);
+
+    private final GroupMembershipCache groupMemberships = new GroupMembershipCache(groupMemberRepository, 1000, meterRegistry);
+
+    @Test
+    void testPrincipals_UserThenGroupsLoadedOnce() {
+        when(groupMemberRepository.findGroups("user1")).thenReturn(List.of("engineering", "staff"));
+
+        assertEquals(List.of("user1", "group:engineering", "group:staff"), groupMemberships.principals("user1"));
+        assertEquals(List.of("user1", "group:engineering", "group:staff"), groupMemberships.principals("user1"));
+        assertEquals(List.of("user2"), groupMemberships.principals("user2"));
+
+        verify(groupMemberRepository, times(1)).findGroups("user1");
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "groups", "result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testInvalidate_ReloadsChangedUsersOnly() {
+        when(groupMemberRepository.findGroups("user1")).thenReturn(List.of()).thenReturn(List.of("engineering"));
+        groupMemberships.principals("user1");
+        groupMemberships.principals("user2");
+
+        groupMemberships.invalidate(List.of("user1"));
+
+        assertEquals(List.of("user1", "group:engineering"), groupMemberships.principals("user1"));
+        groupMemberships.principals("user2");
+        verify(groupMemberRepository, times(2)).findGroups("user1");
+        verify(groupMemberRepository, times(1)).findGroups("user2");
+    }
+
+    @Test
+    void testPrincipals_FailedLoadIsNotCached() {
+        when(groupMemberRepository.findGroups("user1")).thenThrow(new IllegalStateException("down")).thenReturn(List.of());
+
+        assertThrows(IllegalStateException.class, () -> groupMemberships.principals("user1"));
+        assertEquals(List.of("user1"), groupMemberships.principals("user1"));
+    }
+
+    @Test
+    void testIsGroupPrincipal() {
+        assertTrue(GroupMembershipCache.isGroupPrincipal(GroupMembershipCache.groupPrincipal("staff")));
+        assertFalse(GroupMembershipCache.isGroupPrincipal("user1"));
+        assertFalse(GroupMembershipCache.isGroupPrincipal(null));
+    }
+}
@@ -0,0 +1,132 @@
+package com.assignment.progresssoft.security.cache;
+
+import com.assignment.progresssoft.dto.response.AccessIndexStatsResponse;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.repository.DocumentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class UserAccessIndexTest {
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testLoad_IndexesEveryAclRow() {
+        long first = save(new AccessibleUser("user1", Permissions.READ), new AccessibleUser("user2", Permissions.WRITE));
+        long second = save(new AccessibleUser("user1", Permissions.READ.mask() | Permissions.DELETE.mask()));
+        long third = save(new AccessibleUser("user2", Permissions.READ));
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, true, new SimpleMeterRegistry());
+        long[] ids = {first, second, third};
+
+        assertFalse(index.isReady());
+        index.load();
+
+        assertTrue(index.isReady());
+        assertArrayEquals(new long[]{first, second}, index.filter(List.of("user1"), Permissions.READ, ids));
+        assertArrayEquals(new long[]{second}, index.filter(List.of("user1"), Permissions.DELETE, ids));
+        assertArrayEquals(new long[0], index.filter(List.of("user3"), Permissions.READ, ids));
+        assertArrayEquals(new long[]{first, second, third}, index.filter(null, Permissions.READ, ids));
+        assertArrayEquals(new long[]{first}, index.filter(null, Permissions.WRITE, ids));
+        assertArrayEquals(new long[]{first, second}, index.snapshot(List.of("user1"), Permissions.READ).toArray());
+        assertArrayEquals(new long[]{second}, index.page(List.of("user1"), Permissions.READ, first, 5));
+    }
+
+    @Test
+    void testQueries_UnionBitmapsOfPrincipals() {
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, true, new SimpleMeterRegistry());
+        index.load();
+        UserAccessIndex.Grants grants = new UserAccessIndex.Grants();
+        grants.add(5L, "user1", Permissions.READ.mask());
+        grants.add(6L, "group:staff", Permissions.READ.mask());
+        grants.add(5L, "group:staff", Permissions.READ.mask());
+        grants.add(7L, "group:other", Permissions.READ.mask());
+        index.apply(grants);
+        List<String> principals = List.of("user1", "group:staff", "group:none");
+
+        assertArrayEquals(new long[]{5L, 6L}, index.filter(principals, Permissions.READ, new long[]{5L, 6L, 7L}));
+        assertArrayEquals(new long[]{5L, 6L}, index.snapshot(principals, Permissions.READ).toArray());
+        assertArrayEquals(new long[]{6L}, index.page(principals, Permissions.READ, 5L, 5));
+        assertEquals(2, index.count(principals, Permissions.READ));
+        assertEquals(0, index.count(List.of("user2", "group:none"), Permissions.READ));
+        assertArrayEquals(new long[]{5L}, index.snapshot(List.of("user1"), Permissions.READ).toArray());
+    }
+
+    @Test
+    void testApplyAndRemove_KeepIndexCurrent() {
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, true, new SimpleMeterRegistry());
+        index.load();
+        UserAccessIndex.Grants grants = new UserAccessIndex.Grants();
+        grants.add(5L, "user1", Permissions.READ.mask());
+        grants.add(6L, "user1", Permissions.READ.mask() | Permissions.WRITE.mask());
+        index.apply(grants);
+
+        index.remove(5L);
+
+        assertArrayEquals(new long[]{6L}, index.filter(List.of("user1"), Permissions.READ, new long[]{5L, 6L}));
+        assertArrayEquals(new long[]{6L}, index.filter(null, Permissions.READ, new long[]{5L, 6L}));
+        index.remove(6L);
+        assertEquals(0, index.getStats().getUsers());
+    }
+
+    @Test
+    void testRemove_WhileLoadingIsReappliedAfterLoad() {
+        long id = save(new AccessibleUser("user1", Permissions.READ));
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, true, new SimpleMeterRegistry());
+
+        index.remove(id);
+        index.load();
+
+        assertArrayEquals(new long[0], index.filter(List.of("user1"), Permissions.READ, new long[]{id}));
+    }
+
+    @Test
+    void testGetStats_ReportsMemoryPerUser() {
+        save(new AccessibleUser("user1", Permissions.READ), new AccessibleUser("user2", Permissions.READ));
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, true, new SimpleMeterRegistry());
+        index.load();
+
+        AccessIndexStatsResponse stats = index.getStats();
+
+        assertTrue(stats.isReady());
+        assertEquals(2, stats.getUsers());
+        assertEquals(Set.of("user1", "user2"), stats.getUserBytes().keySet());
+        assertTrue(stats.getTotalBytes() > stats.getUserBytes().get("user1") + stats.getUserBytes().get("user2"));
+    }
+
+    @Test
+    void testDisabled_IsNeverReady() {
+        save(new AccessibleUser("user1", Permissions.READ));
+        UserAccessIndex index = new UserAccessIndex(jdbcTemplate, false, new SimpleMeterRegistry());
+
+        index.load();
+
+        assertFalse(index.isReady());
+        assertEquals(0, index.getStats().getUsers());
+    }
+
+    private long save(AccessibleUser... users) {
+        Long id = documentRepository.save(new Document("Doc", "txt", new HashSet<>(Set.of(users)))).getId();
+        entityManager.flush();
+        return id;
+    }
+}
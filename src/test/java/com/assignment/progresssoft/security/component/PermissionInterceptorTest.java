@@ -0,0 +1,138 @@
+package com.assignment.progresssoft.security.component;
+
+import com.assignment.progresssoft.controller.DocumentController;
+import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
+import com.assignment.progresssoft.dto.request.GrantPermissionRequest;
+import com.assignment.progresssoft.enums.DocumentSort;
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PermissionInterceptorTest {
+
+    private PermissionCheckingService permissionCheckingService;
+    private PermissionInterceptor interceptor;
+    private DocumentController controller;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        permissionCheckingService = mock(PermissionCheckingService.class);
+        controller = mock(DocumentController.class);
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new PermissionInterceptor(permissionCheckingService, meterRegistry);
+        interceptor.registerHandlerMethods(List.of(
+                handler("getDocumentById", Long.class, WebRequest.class),
+                handler("createDocument", CreateDocumentRequest.class),
+                handler("updateDocument", Long.class, GrantPermissionRequest.class),
+                handler("deleteUser", Long.class),
+                handler("getContentStats"),
+                handler("getAccessIndexStats"),
+                handler("getAllUsers", String.class, String.class, String.class, DocumentSort.class)));
+    }
+
+    @Test
+    void testMissingUserHeader_returnsBadRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest(), response, handler("getAllUsers", String.class, String.class, String.class, DocumentSort.class)));
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    void testUnannotatedHandler_isNotChecked() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request("user1", null), response, handler("getAllUsers", String.class, String.class, String.class, DocumentSort.class)));
+        verifyNoInteractions(permissionCheckingService);
+    }
+
+    @Test
+    void testReadRule_usesPathVariable() throws Exception {
+        when(permissionCheckingService.hasReadPermission("user1", 7L)).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request("user1", "7"), response, handler("getDocumentById", Long.class, WebRequest.class)));
+        verify(permissionCheckingService).hasReadPermission("user1", 7L);
+        assertEquals(1, authorizations("DocumentController.getDocumentById", "allowed"));
+    }
+
+    @Test
+    void testDeleteRule_deniedReturnsForbidden() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request("user1", "7"), response, handler("deleteUser", Long.class)));
+        assertEquals(403, response.getStatus());
+        assertEquals("User does not have DELETE permission", response.getErrorMessage());
+        verify(permissionCheckingService, only()).hasDeletePermission("user1", 7L);
+        assertEquals(1, authorizations("DocumentController.deleteUser", "denied"));
+        assertEquals(0, authorizations("DocumentController.deleteUser", "allowed"));
+    }
+
+    @Test
+    void testWriteRule() throws Exception {
+        when(permissionCheckingService.hasWritePermission("user1", 3L)).thenReturn(true);
+
+        assertTrue(interceptor.preHandle(request("user1", "3"), new MockHttpServletResponse(),
+                handler("updateDocument", Long.class, GrantPermissionRequest.class)));
+    }
+
+    @Test
+    void testCreateRule() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request("user1", null), response, handler("createDocument", CreateDocumentRequest.class)));
+        assertEquals(403, response.getStatus());
+        verify(permissionCheckingService).hasCreateNewPermission("user1");
+    }
+
+    @Test
+    void testAdminRule() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(permissionCheckingService.isAdmin("admin")).thenReturn(true);
+
+        assertFalse(interceptor.preHandle(request("user1", null), response, handler("getContentStats")));
+        assertEquals(403, response.getStatus());
+        assertEquals("User is not an administrator", response.getErrorMessage());
+        assertTrue(interceptor.preHandle(request("admin", null), new MockHttpServletResponse(), handler("getAccessIndexStats")));
+        verify(permissionCheckingService, never()).hasCreateNewPermission(anyString());
+    }
+
+    @Test
+    void testInvalidDocumentId_returnsBadRequest() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request("user1", "abc"), response, handler("getDocumentById", Long.class, WebRequest.class)));
+        assertEquals(400, response.getStatus());
+        verifyNoInteractions(permissionCheckingService);
+    }
+
+    private long authorizations(String rule, String outcome) {
+        return meterRegistry.get("documents.authorization").tags("rule", rule, "outcome", outcome).timer().count();
+    }
+
+    private MockHttpServletRequest request(String username, String id) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (username != null) {
+            request.addHeader("X-User", username);
+        }
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, id == null ? Map.of() : Map.of("id", id));
+        return request;
+    }
+
+    private HandlerMethod handler(String name, Class<?>... parameterTypes) throws Exception {
+        return new HandlerMethod(controller, DocumentController.class.getMethod(name, parameterTypes));
+    }
+}
@@ -0,0 +1,115 @@
+package com.assignment.progresssoft.security.service;
+
+import com.assignment.progresssoft.concurrent.SingleFlight;
+import com.assignment.progresssoft.context.DocumentRequestContext;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.repository.GroupMemberJdbcRepository;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.cache.DocumentAcl;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PermissionCheckingServiceTest {
+
+    private DocumentRepository documentRepository;
+    private AclIndex aclIndex;
+    private GroupMemberJdbcRepository groupMemberRepository;
+    private GroupMembershipCache groupMemberships;
+    private PermissionCheckingService permissionCheckingService;
+
+    @BeforeEach
+    void setUp() {
+        documentRepository = mock(DocumentRepository.class);
+        aclIndex = new AclIndex(1000, new SimpleMeterRegistry());
+        groupMemberRepository = mock(GroupMemberJdbcRepository.class);
+        groupMemberships = new GroupMembershipCache(groupMemberRepository, 1000, new SimpleMeterRegistry());
+        permissionCheckingService = new PermissionCheckingService(documentRepository, aclIndex, groupMemberships, new DocumentRequestContext(new SimpleMeterRegistry()),
+                new SingleFlight<>("permission", Duration.ofSeconds(5), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testHasCreateNewPermission() {
+        assertTrue(permissionCheckingService.hasCreateNewPermission("admin"));
+        assertFalse(permissionCheckingService.hasCreateNewPermission("user1"));
+    }
+
+    @Test
+    void testHasWritePermission_AdminSkipsLookup() {
+        assertTrue(permissionCheckingService.hasWritePermission("admin", 1L));
+        verifyNoInteractions(documentRepository);
+    }
+
+    @Test
+    void testPermissionChecks_LoadAclOnceThenAnswerFromIndex() {
+        Document document = new Document("Doc", "txt", Set.of(
+                new AccessibleUser("user1", Permissions.READ),
+                new AccessibleUser("user2", Permissions.DELETE)));
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+
+        assertTrue(permissionCheckingService.hasReadPermission("user1", 1L));
+        assertFalse(permissionCheckingService.hasWritePermission("user1", 1L));
+        assertTrue(permissionCheckingService.hasDeletePermission("user2", 1L));
+        assertFalse(permissionCheckingService.hasReadPermission("user3", 1L));
+
+        verify(documentRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testPermissionChecks_GroupGrantsAllowMembers() {
+        Document document = new Document("Doc", "txt", Set.of(
+                new AccessibleUser("user1", Permissions.READ),
+                new AccessibleUser("group:staff", Permissions.WRITE)));
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+        when(groupMemberRepository.findGroups("user2")).thenReturn(List.of("staff"));
+
+        assertTrue(permissionCheckingService.hasReadPermission("user1", 1L));
+        verifyNoInteractions(groupMemberRepository);
+        assertTrue(permissionCheckingService.hasWritePermission("user2", 1L));
+        assertFalse(permissionCheckingService.hasReadPermission("user2", 1L));
+        assertFalse(permissionCheckingService.hasWritePermission("user3", 1L));
+        verify(groupMemberRepository, times(1)).findGroups("user2");
+    }
+
+    @Test
+    void testPermissionChecks_MissingDocumentIsNotCached() {
+        when(documentRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertFalse(permissionCheckingService.hasReadPermission("user1", 2L));
+        assertFalse(permissionCheckingService.hasReadPermission("user1", 2L));
+
+        verify(documentRepository, times(2)).findById(2L);
+    }
+
+    @Test
+    void testPermissionChecks_DisabledIndexUsesExistenceQuery() {
+        permissionCheckingService = new PermissionCheckingService(documentRepository, new AclIndex(0, new SimpleMeterRegistry()), groupMemberships,
+                new DocumentRequestContext(new SimpleMeterRegistry()),
+                new SingleFlight<>("permission", Duration.ofSeconds(5), new SimpleMeterRegistry()));
+        when(documentRepository.existsWithPermission(1L, List.of("user1"), Permissions.READ)).thenReturn(true);
+
+        assertTrue(permissionCheckingService.hasReadPermission("user1", 1L));
+        assertFalse(permissionCheckingService.hasDeletePermission("user1", 1L));
+        verify(documentRepository, never()).findById(any());
+    }
+
+    @Test
+    void testPermissionChecks_UseIndexedAcl() {
+        aclIndex.put(3L, DocumentAcl.of(Set.of(new AccessibleUser("user1", Permissions.WRITE))));
+
+        assertTrue(permissionCheckingService.hasWritePermission("user1", 3L));
+        verifyNoInteractions(documentRepository);
+    }
+}
@@ -0,0 +1,123 @@
+package com.assignment.progresssoft.service;
+
+import com.assignment.progresssoft.dto.response.IngestError;
+import com.assignment.progresssoft.dto.response.IngestResponse;
+import com.assignment.progresssoft.enums.Permissions;
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.search.SearchIndex;
+import com.assignment.progresssoft.security.cache.UserAccessIndex;
+import com.assignment.progresssoft.storage.CompressingContentStore;
+import com.assignment.progresssoft.storage.DatabaseContentStore;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DatabaseContentStore.class)
+class DocumentIngestServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private DatabaseContentStore contentStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DocumentIngestService documentIngestService;
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        CompressingContentStore compressingContentStore = new CompressingContentStore(contentStore,
+                new String[]{"txt"}, 1024, 6, new SimpleMeterRegistry());
+        DeduplicatingContentStore deduplicatingContentStore = new DeduplicatingContentStore(compressingContentStore, jdbcTemplate);
+        searchIndex = new SearchIndex(jdbcTemplate, deduplicatingContentStore, true, new String[]{"txt"}, 1024,
+                new SimpleMeterRegistry());
+        searchIndex.load();
+        documentIngestService = new DocumentIngestService(entityManager.getEntityManager(), deduplicatingContentStore,
+                new UserAccessIndex(jdbcTemplate, false, new SimpleMeterRegistry()), searchIndex,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2);
+    }
+
+    @Test
+    void testIngestDocuments_PersistsEveryValidLine() throws Exception {
+        IngestResponse response = documentIngestService.ingestDocuments(ndjson("""
+                {"name":"Doc1","content":"Content1","fileType":"txt","accessibleUsers":[{"username":"user1","permission":"READ"}]}
+                {"name":"","content":"Content2","fileType":"txt","accessibleUsers":[]}
+                {"name":"Doc3","content":"Content3","fileType":"pdf","accessibleUsers":[{"username":"user1","permissions":["READ","WRITE"]}]}
+                {"name":"Doc4","content":"Content4","fileType":"pdf","accessibleUsers":[]}
+                """));
+
+        assertEquals(3, response.getIngested());
+        assertEquals(1, response.getRejected());
+        assertEquals(List.of(new IngestError(2, "name: Name cannot be empty")), response.getErrors());
+
+        List<Document> documents = documentRepository.findAll();
+        assertEquals(List.of("Doc1", "Doc3", "Doc4"), documents.stream().map(Document::getName).sorted().toList());
+        assertEquals(2, documentRepository.findAllWithPermission(List.of("user1"), Permissions.READ).size());
+        assertEquals(1, documentRepository.findAllWithPermission(List.of("user1"), Permissions.WRITE).size());
+        assertEquals(8, documents.get(0).getContentLocation().getSize());
+    }
+
+    @Test
+    void testIngestDocuments_IndexesEveryBatch() throws Exception {
+        documentIngestService.ingestDocuments(ndjson("""
+                {"name":"Quarterly report","content":"revenue grew","fileType":"txt","accessibleUsers":[]}
+                {"name":"Minutes","content":"revenue fell","fileType":"txt","accessibleUsers":[]}
+                {"name":"Scan","content":"revenue","fileType":"pdf","accessibleUsers":[]}
+                """));
+
+        assertEquals(2, searchIndex.match(List.of("revenue")).getLongCardinality());
+        assertEquals(1, searchIndex.match(List.of("scan")).getLongCardinality());
+        assertEquals(1, searchIndex.match(List.of("quarterly", "grew")).getLongCardinality());
+    }
+
+    @Test
+    void testIngestDocuments_StoresRepeatedBodiesOnce() throws Exception {
+        documentIngestService.ingestDocuments(ndjson("""
+                {"name":"Doc1","content":"Template","fileType":"txt","accessibleUsers":[]}
+                {"name":"Doc2","content":"Template","fileType":"txt","accessibleUsers":[]}
+                {"name":"Doc3","content":"Template","fileType":"txt","accessibleUsers":[]}
+                """));
+
+        List<Document> documents = documentRepository.findAll();
+        assertEquals(3, documents.size());
+        assertEquals(1, documents.stream().map(document -> document.getContentLocation().getContentId()).distinct().count());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM document_contents", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT ref_count FROM content_blobs", Integer.class));
+    }
+
+    @Test
+    void testIngestDocuments_MalformedJson() {
+        assertThrows(Exception.class, () -> documentIngestService.ingestDocuments(ndjson("""
+                {"name":"Doc1","content":"Content1","fileType":"txt","accessibleUsers":[]}
+                {"name":
+                """)));
+    }
+
+    private static InputStream ndjson(String lines) {
+        return new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,18 +1,59 @@
 package com.assignment.progresssoft.service;
 
+import com.assignment.progresssoft.concurrent.SingleFlight;
+import com.assignment.progresssoft.context.DocumentRequestContext;
+import com.assignment.progresssoft.dto.IdSetCodec;
 import com.assignment.progresssoft.dto.request.BatchPermissionRequest;
+import com.assignment.progresssoft.dto.request.BulkGrantRequest;
 import com.assignment.progresssoft.dto.request.CreateDocumentRequest;
 import com.assignment.progresssoft.dto.request.GrantPermissionRequest;
 import com.assignment.progresssoft.dto.response.AccessibleIdsResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResponse;
+import com.assignment.progresssoft.dto.response.BulkGrantResult;
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.dto.response.DocumentPageResponse;
+import com.assignment.progresssoft.dto.response.DocumentResponse;
+import com.assignment.progresssoft.dto.response.SearchResponse;
+import com.assignment.progresssoft.dto.response.SearchResult;
+import com.assignment.progresssoft.enums.DocumentSort;
+import com.assignment.progresssoft.enums.GrantStatus;
 import com.assignment.progresssoft.enums.Permissions;
 import com.assignment.progresssoft.model.Document;
 import com.assignment.progresssoft.model.embedded.AccessibleUser;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository;
+import com.assignment.progresssoft.repository.AccessibleUserJdbcRepository.Grant;
+import com.assignment.progresssoft.repository.ContentBlobRepository;
+import com.assignment.progresssoft.repository.DocumentFilter;
 import com.assignment.progresssoft.repository.DocumentRepository;
+import com.assignment.progresssoft.repository.GroupMemberJdbcRepository;
+import com.assignment.progresssoft.search.SearchIndex;
+import com.assignment.progresssoft.security.cache.AclIndex;
+import com.assignment.progresssoft.security.cache.DocumentAcl;
+import com.assignment.progresssoft.security.cache.GroupMembershipCache;
+import com.assignment.progresssoft.security.cache.UserAccessIndex;
+import com.assignment.progresssoft.security.service.PermissionCheckingService;
+import com.assignment.progresssoft.storage.DeduplicatingContentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,19 +61,42 @@ import static org.mockito.Mockito.*;
 class DocumentServiceTest {
 
     private DocumentRepository documentRepository;
+    private DeduplicatingContentStore contentStore;
+    private ContentBlobRepository contentBlobRepository;
+    private AccessibleUserJdbcRepository accessibleUserJdbcRepository;
+    private AclIndex aclIndex;
+    private UserAccessIndex accessIndex;
+    private SearchIndex searchIndex;
+    private GroupMemberJdbcRepository groupMemberRepository;
+    private GroupMembershipCache groupMemberships;
     private DocumentService documentService;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
         documentRepository = mock(DocumentRepository.class);
-        documentService = new DocumentService(documentRepository);
+        contentStore = mock(DeduplicatingContentStore.class);
+        contentBlobRepository = mock(ContentBlobRepository.class);
+        accessibleUserJdbcRepository = mock(AccessibleUserJdbcRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        aclIndex = new AclIndex(1000, new SimpleMeterRegistry());
+        accessIndex = new UserAccessIndex(mock(JdbcTemplate.class), true, new SimpleMeterRegistry());
+        searchIndex = new SearchIndex(mock(JdbcTemplate.class), contentStore, true, new String[]{"txt"}, 1024,
+                new SimpleMeterRegistry());
+        groupMemberRepository = mock(GroupMemberJdbcRepository.class);
+        groupMemberships = new GroupMembershipCache(groupMemberRepository, 1000, new SimpleMeterRegistry());
+        DocumentRequestContext requestContext = new DocumentRequestContext(new SimpleMeterRegistry());
+        PermissionCheckingService permissionCheckingService = new PermissionCheckingService(documentRepository, aclIndex,
+                groupMemberships, requestContext, new SingleFlight<>("permission", Duration.ofSeconds(5), new SimpleMeterRegistry()));
+        documentService = new DocumentService(documentRepository, contentStore, contentBlobRepository, accessibleUserJdbcRepository,
+                aclIndex, accessIndex, searchIndex, groupMemberships, permissionCheckingService, requestContext,
+                new SingleFlight<>("document", Duration.ofSeconds(5), new SimpleMeterRegistry()), 3, meterRegistry);
     }
 
     @Test
     void testGetAllDocuments_WithReadPermission() {
-        AccessibleUser user = new AccessibleUser("user1", Permissions.READ);
-        Document doc = new Document("Test", "Content", "txt", Set.of(user));
-        when(documentRepository.findAll()).thenReturn(List.of(doc));
+        DocumentResponse doc = new DocumentResponse(1L, "Test", "txt", 7);
+        when(documentRepository.findAllWithPermission(List.of("user1"), Permissions.READ)).thenReturn(List.of(doc));
 
         var result = documentService.getAllDocuments("user1").toList();
 
@@ -42,13 +106,146 @@ class DocumentServiceTest {
 
     @Test
     void testGetAllDocuments_NoPermission() {
-        AccessibleUser user = new AccessibleUser("user1", Permissions.WRITE);
-        Document doc = new Document("Test", "Content", "txt", Set.of(user));
-        when(documentRepository.findAll()).thenReturn(List.of(doc));
+        when(documentRepository.findAllWithPermission(List.of("user1"), Permissions.READ)).thenReturn(List.of());
 
         var result = documentService.getAllDocuments("user1").toList();
 
         assertTrue(result.isEmpty());
+        verify(documentRepository, never()).findAll();
+    }
+
+    @Test
+    void testGetAllDocuments_FromAccessIndex() {
+        loadAccessIndex(new Grant(3L, "user1", Permissions.READ.mask()), new Grant(7L, "user1", Permissions.READ.mask()),
+                new Grant(9L, "user2", Permissions.READ.mask()), new Grant(11L, "user1", Permissions.WRITE.mask()));
+        List<DocumentResponse> docs = List.of(new DocumentResponse(3L, "A", "txt", 7), new DocumentResponse(7L, "B", "txt", 7));
+        when(documentRepository.findResponsesByIds(List.of(3L, 7L))).thenReturn(docs);
+
+        assertEquals(docs, documentService.getAllDocuments("user1").toList());
+        assertEquals(List.of(), documentService.getAllDocuments("user3").toList());
+        verify(documentRepository, never()).findAllWithPermission(any(), any());
+        assertEquals(2, meterRegistry.get("documents.list.size").summary().count());
+        assertEquals(2, meterRegistry.get("documents.list.size").summary().totalAmount());
+    }
+
+    @Test
+    void testGetDocumentPage_FromAccessIndex() {
+        loadAccessIndex(new Grant(3L, "user1", Permissions.READ.mask()), new Grant(7L, "user1", Permissions.READ.mask()),
+                new Grant(9L, "user1", Permissions.READ.mask()));
+        List<DocumentResponse> docs = List.of(new DocumentResponse(7L, "B", "txt", 7), new DocumentResponse(9L, "C", "txt", 7));
+        when(documentRepository.findResponsesByIds(List.of(7L, 9L))).thenReturn(docs);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 2, 3L);
+
+        assertEquals(docs, page.getDocuments());
+        assertEquals(9L, page.getNextCursor());
+        assertNull(documentService.getDocumentPage("user1", 2, 9L).getNextCursor());
+        verify(documentRepository, never()).findPageWithPermission(any(), any(), any(), any());
+    }
+
+    @Test
+    void testGetDocumentPage_FullPageReturnsCursor() {
+        List<DocumentResponse> docs = List.of(
+                new DocumentResponse(3L, "A", "txt", 7),
+                new DocumentResponse(7L, "B", "txt", 7));
+        when(documentRepository.findPageWithPermission(List.of("user1"), Permissions.READ, 0L, Limit.of(2))).thenReturn(docs);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 2, null);
+
+        assertEquals(docs, page.getDocuments());
+        assertEquals(7L, page.getNextCursor());
+    }
+
+    @Test
+    void testGetDocumentPage_LastPageHasNoCursor() {
+        List<DocumentResponse> docs = List.of(new DocumentResponse(9L, "C", "txt", 7));
+        when(documentRepository.findPageWithPermission(List.of("user1"), Permissions.READ, 7L, Limit.of(2))).thenReturn(docs);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 2, 7L);
+
+        assertEquals(docs, page.getDocuments());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetDocumentPage_FilteredCountsUpToLimit() {
+        DocumentFilter filter = new DocumentFilter("pdf", "Rep", DocumentSort.NAME);
+        List<DocumentResponse> docs = List.of(new DocumentResponse(9L, "Report a", "pdf", 7), new DocumentResponse(3L, "Report b", "pdf", 7));
+        when(documentRepository.findFilteredPage(List.of("user1"), Permissions.READ, filter, null, null, 2)).thenReturn(docs);
+        when(documentRepository.countFiltered(List.of("user1"), Permissions.READ, filter, 4L)).thenReturn(4L);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 2, null, null, filter);
+
+        assertEquals(new DocumentPageResponse(docs, 3L, "Report b", 3L, false), page);
+        assertThrows(IllegalArgumentException.class, () -> documentService.getDocumentPage("user1", 2, 3L, null, filter));
+    }
+
+    @Test
+    void testGetDocumentPage_UnfilteredTotalFromAccessIndex() {
+        loadAccessIndex(new Grant(3L, "user1", Permissions.READ.mask()), new Grant(7L, "user1", Permissions.READ.mask()),
+                new Grant(9L, "user1", Permissions.READ.mask()));
+        List<DocumentResponse> docs = List.of(new DocumentResponse(3L, "A", "txt", 7));
+        when(documentRepository.findResponsesByIds(List.of(3L))).thenReturn(docs);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 1, null, null, DocumentFilter.NONE);
+
+        assertEquals(new DocumentPageResponse(docs, 3L, null, 3L, true), page);
+        verify(documentRepository, never()).countFiltered(any(), any(), any(), anyLong());
+    }
+
+    @Test
+    void testGetAllDocuments_FilteredReadsPagesUntilShortOne() {
+        DocumentFilter filter = new DocumentFilter("txt", null, DocumentSort.NAME);
+        int batchSize = AccessibleUserJdbcRepository.BATCH_SIZE;
+        List<DocumentResponse> first = LongStream.rangeClosed(1, batchSize)
+                .mapToObj(id -> new DocumentResponse(id, "Doc" + id, "txt", 7)).toList();
+        List<DocumentResponse> second = List.of(new DocumentResponse(batchSize + 1L, "Zed", "txt", 7));
+        when(documentRepository.findFilteredPage(List.of("user1"), Permissions.READ, filter, null, null, batchSize)).thenReturn(first);
+        when(documentRepository.findFilteredPage(List.of("user1"), Permissions.READ, filter, (long) batchSize, "Doc" + batchSize, batchSize))
+                .thenReturn(second);
+
+        assertEquals(batchSize + 1, documentService.getAllDocuments("user1", filter).count());
+        verify(documentRepository, times(2)).findFilteredPage(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testStreamAllDocuments_PassesDocumentsOfSeveralPrincipalsOnce() {
+        when(groupMemberRepository.findGroups("user1")).thenReturn(List.of("staff"));
+        DocumentResponse first = new DocumentResponse(3L, "A", "txt", 7);
+        DocumentResponse second = new DocumentResponse(7L, "B", "txt", 7);
+        when(documentRepository.streamAllWithPermission(List.of("user1", "group:staff"), Permissions.READ))
+                .thenReturn(Stream.of(first, first, second));
+        List<DocumentResponse> streamed = new ArrayList<>();
+
+        documentService.streamAllDocuments("user1", DocumentFilter.NONE, streamed::add);
+
+        assertEquals(List.of(first, second), streamed);
+    }
+
+    @Test
+    void testStreamAllDocuments_Filtered() {
+        DocumentFilter filter = new DocumentFilter("pdf", null, DocumentSort.ID);
+        DocumentResponse document = new DocumentResponse(3L, "A", "pdf", 7);
+        when(documentRepository.streamFiltered(List.of("user1"), Permissions.READ, filter)).thenReturn(Stream.of(document));
+        List<DocumentResponse> streamed = new ArrayList<>();
+
+        documentService.streamAllDocuments("user1", filter, streamed::add);
+
+        assertEquals(List.of(document), streamed);
+        verify(documentRepository, never()).streamAllWithPermission(any(), any());
+    }
+
+    @Test
+    void testGetDocumentPage_FromAccessIndexIncludesGroupGrants() {
+        loadAccessIndex(new Grant(3L, "user1", Permissions.READ.mask()), new Grant(7L, "group:staff", Permissions.READ.mask()),
+                new Grant(9L, "group:other", Permissions.READ.mask()));
+        when(groupMemberRepository.findGroups("user1")).thenReturn(List.of("staff"));
+        List<DocumentResponse> docs = List.of(new DocumentResponse(3L, "A", "txt", 7), new DocumentResponse(7L, "B", "txt", 7));
+        when(documentRepository.findResponsesByIds(List.of(3L, 7L))).thenReturn(docs);
+
+        DocumentPageResponse page = documentService.getDocumentPage("user1", 5, null, null, DocumentFilter.NONE);
+
+        assertEquals(new DocumentPageResponse(docs, null, null, 2L, true), page);
     }
 
     @Test
@@ -73,31 +270,169 @@ class DocumentServiceTest {
     }
 
     @Test
-    void testCreateDocument() {
+    void testGetDocumentForReading_LoadsById() {
+        Document doc = new Document();
+        doc.setId(1L);
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(doc));
+
+        assertSame(doc, documentService.getDocumentForReading(1L));
+        assertNull(documentService.getDocumentForReading(2L));
+    }
+
+    @Test
+    void testCreateDocument() throws Exception {
         CreateDocumentRequest request = new CreateDocumentRequest("Doc", "Content", "pdf", Set.of());
+        when(contentStore.write("pdf", "Content".getBytes(StandardCharsets.UTF_8))).thenReturn(new ContentLocation(3L, 7));
         documentService.createDocument(request);
 
         ArgumentCaptor<Document> captor = ArgumentCaptor.forClass(Document.class);
         verify(documentRepository).save(captor.capture());
 
         assertEquals("Doc", captor.getValue().getName());
+        assertEquals(new ContentLocation(3L, 7), captor.getValue().getContentLocation());
+    }
+
+    @Test
+    void testGetContentStats() {
+        ContentStatsResponse stats = new ContentStatsResponse(1, 3, 100, 200, 300);
+        when(contentBlobRepository.getStats()).thenReturn(stats);
+
+        assertEquals(stats, documentService.getContentStats());
+    }
+
+    @Test
+    void testReplaceContent_DeletesPreviousBody() throws Exception {
+        Document document = new Document("Doc", "pdf", new HashSet<>());
+        document.setContentLocation(new ContentLocation(3L, 7));
+        InputStream content = new ByteArrayInputStream(new byte[4]);
+        when(contentStore.write(eq("pdf"), eq(4L), any(InputStream.class))).thenReturn(new ContentLocation(4L, 4));
+
+        documentService.replaceContent(document, content, 4);
+
+        assertEquals(new ContentLocation(4L, 4), document.getContentLocation());
+        verify(documentRepository).save(document);
+        verify(contentStore).delete(new ContentLocation(3L, 7));
+    }
+
+    @Test
+    void testReplaceContent_ReindexesBody() throws Exception {
+        searchIndex.load();
+        searchIndex.put(searchIndex.analyze(10L, "Doc", "txt", "stale words"));
+        Document document = new Document("Doc", "txt", new HashSet<>());
+        document.setId(10L);
+        document.setContentLocation(new ContentLocation(3L, 11));
+        when(contentStore.write(eq("txt"), eq(11L), any(InputStream.class))).thenAnswer(invocation -> {
+            invocation.getArgument(2, InputStream.class).readAllBytes();
+            return new ContentLocation(4L, 11);
+        });
+
+        documentService.replaceContent(document, new ByteArrayInputStream("fresh words".getBytes(StandardCharsets.UTF_8)), 11);
+
+        assertArrayEquals(new long[]{10L}, searchIndex.match(List.of("fresh", "words")).toArray());
+        assertTrue(searchIndex.match(List.of("stale")).isEmpty());
+    }
+
+    @Test
+    void testSearch_RanksOnlyReadableMatches() {
+        loadAccessIndex(new Grant(3L, "user1", Permissions.READ.mask()), new Grant(7L, "user1", Permissions.READ.mask()),
+                new Grant(9L, "user2", Permissions.READ.mask()));
+        searchIndex.load();
+        searchIndex.put(searchIndex.analyze(3L, "Notes", "txt", "budget"));
+        searchIndex.put(searchIndex.analyze(7L, "Budget", "txt", "budget plan"));
+        searchIndex.put(searchIndex.analyze(9L, "Budget", "txt", "budget budget budget"));
+        when(documentRepository.findResponsesByIds(List.of(7L))).thenReturn(List.of(new DocumentResponse(7L, "Budget", "txt", 11)));
+
+        SearchResponse response = documentService.search("user1", "Budget!", 1, 0);
+
+        assertEquals(2, response.getTotal());
+        assertEquals(1, response.getNextOffset());
+        assertEquals(1, response.getResults().size());
+        SearchResult best = response.getResults().get(0);
+        assertEquals(7L, best.getId());
+        assertTrue(best.getScore() > 0);
+        assertEquals(3, meterRegistry.get("documents.search.size").tag("documents", "matched").summary().totalAmount());
+        assertEquals(2, meterRegistry.get("documents.search.size").tag("documents", "readable").summary().totalAmount());
+    }
+
+    @Test
+    void testSearch_ChecksAclTableWhileAccessIndexLoads() {
+        searchIndex.load();
+        searchIndex.put(searchIndex.analyze(3L, "Notes", "txt", "budget"));
+        searchIndex.put(searchIndex.analyze(7L, "Plan", "txt", "budget"));
+        when(accessibleUserJdbcRepository.findDocumentIdsWithPermission(new long[]{3L, 7L}, Permissions.READ.mask(), List.of("user1")))
+                .thenReturn(new long[]{7L});
+        when(documentRepository.findResponsesByIds(List.of(7L))).thenReturn(List.of(new DocumentResponse(7L, "Plan", "txt", 6)));
+
+        SearchResponse response = documentService.search("user1", "budget", 10, 0);
+
+        assertEquals(1, response.getTotal());
+        assertNull(response.getNextOffset());
+        assertEquals(List.of(7L), response.getResults().stream().map(SearchResult::getId).toList());
+    }
+
+    @Test
+    void testSearch_RefusedWithoutTermsOrIndex() {
+        assertThrows(IllegalStateException.class, () -> documentService.search("user1", "budget", 10, 0));
+        searchIndex.load();
+        assertThrows(IllegalArgumentException.class, () -> documentService.search("user1", "- ?", 10, 0));
+    }
+
+    @Test
+    void testStreamContent() throws Exception {
+        Document document = new Document("Doc", "pdf", new HashSet<>());
+        document.setContentLocation(new ContentLocation(3L, 7));
+        OutputStream out = new ByteArrayOutputStream();
+
+        documentService.streamContent(document, 2, 3, out);
+
+        verify(contentStore).read(new ContentLocation(3L, 7), 2, 3, out);
+    }
+
+    @Test
+    void testStreamEncodedContent() throws Exception {
+        Document document = new Document("Doc", "txt", new HashSet<>());
+        document.setContentLocation(new ContentLocation(3L, 7));
+        OutputStream out = new ByteArrayOutputStream();
+
+        documentService.streamEncodedContent(document, out);
+
+        verify(contentStore).readEncoded(new ContentLocation(3L, 7), out);
+    }
+
+    @Test
+    void testCreateDocument_IndexesAcl() {
+        CreateDocumentRequest request = new CreateDocumentRequest("Doc", "Content", "pdf",
+                Set.of(new AccessibleUser("user1", Permissions.READ)));
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+
+        documentService.createDocument(request);
+
+        DocumentAcl acl = aclIndex.get(10L, id -> fail("ACL should already be indexed"));
+        assertTrue(acl.allows("user1", Permissions.READ));
     }
 
     @Test
     void testUpdateDocument_UpdateExistingUser() {
         AccessibleUser user = new AccessibleUser("user1", Permissions.READ);
-        Document document = new Document("Doc", "Content", "pdf", new HashSet<>(Set.of(user)));
+        Document document = new Document("Doc", "pdf", new HashSet<>(Set.of(user)));
         GrantPermissionRequest req = new GrantPermissionRequest("user1", Permissions.WRITE);
 
         documentService.updateDocument(req, document);
 
-        assertEquals(Permissions.WRITE, user.getPermission());
+        assertEquals(Set.of(new AccessibleUser("user1", Permissions.READ.mask() | Permissions.WRITE.mask())),
+                document.getAccessibleUsers());
+        assertEquals(Set.of(Permissions.READ, Permissions.WRITE),
+                document.getAccessibleUsers().iterator().next().getPermissions());
         verify(documentRepository).save(document);
     }
 
     @Test
     void testUpdateDocument_AddNewUser() {
-        Document document = new Document("Doc", "Content", "pdf", new HashSet<>());
+        Document document = new Document("Doc", "pdf", new HashSet<>());
         GrantPermissionRequest req = new GrantPermissionRequest("user1", Permissions.READ);
 
         documentService.updateDocument(req, document);
@@ -110,7 +445,8 @@ class DocumentServiceTest {
     void testCheckPermissionBatch_Admin() {
         Set<Long> mockIds = Set.of(1L, 2L);
         BatchPermissionRequest req = new BatchPermissionRequest(Permissions.READ, mockIds);
-        when(documentRepository.findDocumentIdsWithPermission(mockIds, Permissions.READ)).thenReturn(mockIds);
+        when(accessibleUserJdbcRepository.findDocumentIdsWithPermission(any(long[].class), eq(Permissions.READ.mask()), isNull()))
+                .thenReturn(new long[]{1L, 2L});
 
         AccessibleIdsResponse response = documentService.checkPermissionBatch("admin", req);
 
@@ -121,17 +457,210 @@ class DocumentServiceTest {
     void testCheckPermissionBatch_User() {
         Set<Long> mockIds = Set.of(1L);
         BatchPermissionRequest req = new BatchPermissionRequest(Permissions.READ, Set.of(1L, 2L));
-        when(documentRepository.findDocumentIdsWithPermission(Set.of(1L, 2L), Permissions.READ, "user1")).thenReturn(mockIds);
+        when(accessibleUserJdbcRepository.findDocumentIdsWithPermission(new long[]{1L, 2L}, Permissions.READ.mask(), List.of("user1")))
+                .thenReturn(new long[]{1L});
 
         AccessibleIdsResponse response = documentService.checkPermissionBatch("user1", req);
 
         assertEquals(mockIds, response.getAccessibleIds());
     }
 
+    @Test
+    void testCheckPermissionBatch_FromAccessIndex() {
+        loadAccessIndex(new Grant(1L, "user1", Permissions.READ.mask()), new Grant(2L, "user2", Permissions.READ.mask()),
+                new Grant(3L, "user1", Permissions.WRITE.mask()));
+        BatchPermissionRequest req = new BatchPermissionRequest(Permissions.READ, Set.of(1L, 2L, 3L, 4L));
+
+        assertEquals(Set.of(1L), documentService.checkPermissionBatch("user1", req).getAccessibleIds());
+        assertEquals(Set.of(1L, 2L), documentService.checkPermissionBatch("admin", req).getAccessibleIds());
+        verify(accessibleUserJdbcRepository, never()).findDocumentIdsWithPermission(any(long[].class), anyInt(), any());
+        assertEquals(8, meterRegistry.get("documents.access.check.size").tag("ids", "requested").summary().totalAmount());
+        assertEquals(3, meterRegistry.get("documents.access.check.size").tag("ids", "accessible").summary().totalAmount());
+    }
+
+    @Test
+    void testCheckPermissionBatch_EncodedIds() {
+        BatchPermissionRequest req = new BatchPermissionRequest(Permissions.WRITE, null);
+        req.setEncodedDocumentIds(IdSetCodec.encode(new long[]{3L, 5L, 8L}));
+        when(accessibleUserJdbcRepository.findDocumentIdsWithPermission(new long[]{3L, 5L, 8L}, Permissions.WRITE.mask(), List.of("user1")))
+                .thenReturn(new long[]{3L, 8L});
+
+        AccessibleIdsResponse response = documentService.checkPermissionBatch("user1", req);
+
+        assertNull(response.getAccessibleIds());
+        assertArrayEquals(new long[]{3L, 8L}, IdSetCodec.decode(response.getEncodedAccessibleIds()));
+    }
+
+    @Test
+    void testGrantPermissions_ReportsEachPair() {
+        BulkGrantRequest req = new BulkGrantRequest(Set.of(1L, 2L, 3L), Set.of("a", "b"), Set.of(Permissions.READ));
+        when(documentRepository.findExistingIds(Set.of(1L, 2L, 3L))).thenReturn(Set.of(1L, 2L));
+        when(documentRepository.findDocumentIdsWithPermission(Set.of(1L, 2L), Permissions.WRITE, List.of("writer"))).thenReturn(Set.of(1L));
+        when(accessibleUserJdbcRepository.findPermissionMasks(Set.of(1L), List.of("a", "b")))
+                .thenReturn(Map.of(1L, Map.of("a", new AccessibleUser("a", Permissions.READ), "b", new AccessibleUser("b", Permissions.WRITE))));
+        aclIndex.put(1L, DocumentAcl.of(Set.of()));
+
+        BulkGrantResponse response = documentService.grantPermissions("writer", req);
+
+        assertEquals(List.of(
+                new BulkGrantResult(1L, "a", GrantStatus.UNCHANGED),
+                new BulkGrantResult(1L, "b", GrantStatus.UPDATED),
+                new BulkGrantResult(2L, "a", GrantStatus.FORBIDDEN),
+                new BulkGrantResult(2L, "b", GrantStatus.FORBIDDEN),
+                new BulkGrantResult(3L, "a", GrantStatus.DOCUMENT_NOT_FOUND),
+                new BulkGrantResult(3L, "b", GrantStatus.DOCUMENT_NOT_FOUND)), response.getResults());
+        assertEquals(2L, response.getSummary().get(GrantStatus.FORBIDDEN));
+        verify(accessibleUserJdbcRepository).update(List.of(new Grant(1L, "b", Permissions.READ.mask() | Permissions.WRITE.mask())));
+        verify(accessibleUserJdbcRepository, never()).insert(any());
+        assertNull(aclIndex.get(1L, id -> null));
+    }
+
+    @Test
+    void testGrantPermissions_AdminInsertsMissingRows() {
+        BulkGrantRequest req = new BulkGrantRequest(Set.of(1L), Set.of("a"), Set.of(Permissions.READ, Permissions.WRITE));
+        when(documentRepository.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+
+        BulkGrantResponse response = documentService.grantPermissions("admin", req);
+
+        assertEquals(List.of(new BulkGrantResult(1L, "a", GrantStatus.GRANTED)), response.getResults());
+        verify(accessibleUserJdbcRepository).insert(List.of(new Grant(1L, "a", Permissions.READ.mask() | Permissions.WRITE.mask())));
+        verify(documentRepository, never()).findDocumentIdsWithPermission(any(), any(), any());
+    }
+
+    @Test
+    void testGrantPermissions_MatchesUsernamesIgnoringCase() {
+        BulkGrantRequest req = new BulkGrantRequest(Set.of(1L), Set.of("Bob", "bob"), Set.of(Permissions.WRITE));
+        when(documentRepository.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(accessibleUserJdbcRepository.findPermissionMasks(Set.of(1L), List.of("bob")))
+                .thenReturn(Map.of(1L, Map.of("bob", new AccessibleUser("BOB", Permissions.READ))));
+
+        BulkGrantResponse response = documentService.grantPermissions("Admin", req);
+
+        assertEquals(List.of(new BulkGrantResult(1L, "Bob", GrantStatus.UPDATED)), response.getResults());
+        verify(documentRepository, never()).findDocumentIdsWithPermission(any(), any(), any());
+        verify(accessibleUserJdbcRepository).update(List.of(new Grant(1L, "BOB", Permissions.READ.mask() | Permissions.WRITE.mask())));
+        verify(accessibleUserJdbcRepository, never()).insert(any());
+    }
+
+    @Test
+    void testGrantPermissions_RejectsTooManyPairs() {
+        Set<Long> documentIds = LongStream.rangeClosed(1, BulkGrantRequest.MAX_DOCUMENT_IDS).boxed().collect(Collectors.toSet());
+        Set<String> usernames = IntStream.range(0, BulkGrantRequest.MAX_PAIRS / BulkGrantRequest.MAX_DOCUMENT_IDS + 1)
+                .mapToObj(i -> "user" + i).collect(Collectors.toSet());
+        BulkGrantRequest req = new BulkGrantRequest(documentIds, usernames, Set.of(Permissions.READ));
+
+        assertThrows(IllegalArgumentException.class, () -> documentService.grantPermissions("admin", req));
+        verifyNoInteractions(accessibleUserJdbcRepository);
+    }
+
+    @Test
+    void testUpdateDocument_RefreshesIndexedAcl() {
+        Document document = new Document("Doc", "pdf", new HashSet<>());
+        document.setId(5L);
+        aclIndex.put(5L, DocumentAcl.of(Set.of()));
+
+        documentService.updateDocument(new GrantPermissionRequest("user1", Permissions.READ), document);
+
+        assertTrue(aclIndex.get(5L, id -> null).allows("user1", Permissions.READ));
+    }
+
     @Test
     void testDeleteDocument() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setContentLocation(new ContentLocation(3L, 7));
+        document.setAccessibleUsers(Set.of());
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+        aclIndex.put(1L, DocumentAcl.of(Set.of(new AccessibleUser("user1", Permissions.DELETE))));
+
         documentService.deleteDocument(1L);
-        verify(documentRepository).deleteById(1L);
+
+        verify(documentRepository).deleteDocumentById(1L);
+        verify(contentStore).delete(new ContentLocation(3L, 7));
+        assertNull(aclIndex.get(1L, id -> null));
     }
-}
 
+    @Test
+    void testDeleteDocument_DropsIndexedAclOnceCommitted() {
+        Document document = new Document();
+        document.setId(1L);
+        document.setContentLocation(new ContentLocation(3L, 7));
+        document.setAccessibleUsers(Set.of());
+        when(documentRepository.findById(1L)).thenReturn(Optional.of(document));
+        DocumentAcl acl = DocumentAcl.of(Set.of(new AccessibleUser("user1", Permissions.DELETE)));
+        aclIndex.put(1L, acl);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            documentService.deleteDocument(1L);
+            assertSame(acl, aclIndex.get(1L, id -> null));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertNull(aclIndex.get(1L, id -> null));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testCreateAndDeleteDocument_MaintainAccessIndex() {
+        loadAccessIndex();
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+        documentService.createDocument(new CreateDocumentRequest("Doc", "Content", "pdf",
+                Set.of(new AccessibleUser("user1", Permissions.READ))));
+
+        assertArrayEquals(new long[]{10L}, accessIndex.filter(List.of("user1"), Permissions.READ, new long[]{10L}));
+
+        Document document = new Document();
+        document.setId(10L);
+        document.setContentLocation(new ContentLocation(3L, 7));
+        when(documentRepository.findById(10L)).thenReturn(Optional.of(document));
+        documentService.deleteDocument(10L);
+
+        assertArrayEquals(new long[0], accessIndex.filter(List.of("user1"), Permissions.READ, new long[]{10L}));
+    }
+
+    @Test
+    void testCreateAndDeleteDocument_MaintainSearchIndex() {
+        searchIndex.load();
+        when(documentRepository.save(any(Document.class))).thenAnswer(invocation -> {
+            Document saved = invocation.getArgument(0);
+            saved.setId(10L);
+            return saved;
+        });
+        documentService.createDocument(new CreateDocumentRequest("Annual report", "Content", "txt", Set.of()));
+
+        assertArrayEquals(new long[]{10L}, searchIndex.match(List.of("annual", "content")).toArray());
+
+        Document document = new Document();
+        document.setId(10L);
+        document.setContentLocation(new ContentLocation(3L, 7));
+        when(documentRepository.findById(10L)).thenReturn(Optional.of(document));
+        documentService.deleteDocument(10L);
+
+        assertTrue(searchIndex.match(List.of("annual")).isEmpty());
+    }
+
+    @Test
+    void testDeleteDocument_NotFound() {
+        when(documentRepository.findById(2L)).thenReturn(Optional.empty());
+
+        documentService.deleteDocument(2L);
+
+        verify(documentRepository, never()).deleteDocumentById(any());
+        verifyNoInteractions(contentStore);
+    }
+
+    private void loadAccessIndex(Grant... grants) {
+        accessIndex.load();
+        UserAccessIndex.Grants indexed = new UserAccessIndex.Grants();
+        for (Grant grant : grants) {
+            indexed.add(grant.documentId(), grant.username(), grant.permissionMask());
+        }
+        accessIndex.apply(indexed);
+    }
+}
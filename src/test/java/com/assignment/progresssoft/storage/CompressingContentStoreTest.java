@@ -0,0 +1,87 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.enums.ContentEncoding;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DatabaseContentStore.class)
+class CompressingContentStoreTest {
+
+    @Autowired
+    private DatabaseContentStore databaseContentStore;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompressingContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        contentStore = new CompressingContentStore(databaseContentStore, new String[]{"txt", "CSV"}, 16, 6, meterRegistry);
+    }
+
+    @Test
+    void testChooseEncoding() {
+        assertEquals(ContentEncoding.DEFLATE, contentStore.chooseEncoding("csv", 16));
+        assertEquals(ContentEncoding.DEFLATE, contentStore.chooseEncoding("txt", -1));
+        assertEquals(ContentEncoding.NONE, contentStore.chooseEncoding("txt", 15));
+        assertEquals(ContentEncoding.NONE, contentStore.chooseEncoding("pdf", 1_000_000));
+    }
+
+    @Test
+    void testWrite_CompressesAndReadsDecodedRange() throws Exception {
+        byte[] content = "id,name\n1,alpha\n2,beta\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+        ContentLocation location = contentStore.write("txt", content.length, new ByteArrayInputStream(content));
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        contentStore.read(location, 0, content.length, whole);
+        contentStore.read(location, 100_000, 20, range);
+
+        assertEquals(ContentEncoding.DEFLATE, location.getEncoding());
+        assertEquals(content.length, location.getLength());
+        assertTrue(location.getSize() < content.length / 10);
+        assertArrayEquals(content, whole.toByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 100_000, 100_020), range.toByteArray());
+        assertEquals(1, meterRegistry.summary("documents.content.compression.ratio").count());
+        assertEquals(2, meterRegistry.timer("documents.content.decompression.cpu").count());
+    }
+
+    @Test
+    void testReadEncoded_ReturnsDeflateStream() throws Exception {
+        byte[] content = "hello world ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        ContentLocation location = contentStore.write("txt", -1, new ByteArrayInputStream(content));
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        contentStore.readEncoded(location, encoded);
+
+        assertEquals(location.getSize(), encoded.size());
+        assertArrayEquals(content, new InflaterInputStream(new ByteArrayInputStream(encoded.toByteArray())).readAllBytes());
+    }
+
+    @Test
+    void testWrite_StoresOtherTypesAsIs() throws Exception {
+        byte[] content = "hello world ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        ContentLocation location = contentStore.write("pdf", content.length, new ByteArrayInputStream(content));
+
+        assertEquals(ContentEncoding.NONE, location.getEncoding());
+        assertEquals(content.length, location.getSize());
+        assertEquals(content.length, location.getLength());
+        assertEquals(0, meterRegistry.summary("documents.content.compression.ratio").count());
+    }
+}
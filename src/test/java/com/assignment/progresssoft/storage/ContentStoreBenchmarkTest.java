@@ -0,0 +1,75 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares write and read throughput of the content stores for 1 KB to 100 MB bodies.
+ * Run with {@code mvn test -Dtest=ContentStoreBenchmarkTest -Dbenchmark=true}.
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContentStoreBenchmarkTest {
+
+    private static final int[] SIZES = {1024, 64 * 1024, 1024 * 1024, 10 * 1024 * 1024, 100 * 1024 * 1024};
+
+    private static final long BYTES_PER_SIZE = 256L * 1024 * 1024;
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareStores() throws Exception {
+        SegmentContentStore segmentStore = new SegmentContentStore(directory, 1L << 30, 0.5,
+                jdbcTemplate, new TransactionTemplate(transactionManager));
+        DatabaseContentStore databaseStore = new DatabaseContentStore(jdbcTemplate);
+
+        System.out.printf("%-10s %-9s %12s %12s%n", "size", "store", "write MB/s", "read MB/s");
+        for (int size : SIZES) {
+            byte[] body = new byte[size];
+            new Random(size).nextBytes(body);
+            int iterations = (int) Math.max(3, Math.min(2000, BYTES_PER_SIZE / size));
+            measure("database", databaseStore, body, iterations);
+            measure("segment", segmentStore, body, iterations);
+        }
+        segmentStore.close();
+    }
+
+    private static void measure(String name, ContentStore store, byte[] body, int iterations) throws Exception {
+        ContentLocation[] locations = new ContentLocation[iterations];
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            locations[i] = store.write(new ByteArrayInputStream(body));
+        }
+        long written = System.nanoTime();
+        for (ContentLocation location : locations) {
+            store.read(location, 0, body.length, OutputStream.nullOutputStream());
+        }
+        long read = System.nanoTime();
+        for (ContentLocation location : locations) {
+            store.delete(location);
+        }
+
+        double megabytes = (double) body.length * iterations / (1024 * 1024);
+        System.out.printf("%-10s %-9s %12.1f %12.1f%n", body.length / 1024 + " KB", name,
+                megabytes / ((written - start) / 1e9), megabytes / ((read - written) / 1e9));
+    }
+}
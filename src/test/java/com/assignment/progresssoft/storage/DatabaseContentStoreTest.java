@@ -0,0 +1,63 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DatabaseContentStore.class)
+class DatabaseContentStoreTest {
+
+    @Autowired
+    private DatabaseContentStore contentStore;
+
+    @Test
+    void testWriteAndReadRange() throws Exception {
+        byte[] content = new byte[1_000_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        ContentLocation location = contentStore.write(new ByteArrayInputStream(content));
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        contentStore.read(location, 0, content.length, whole);
+        contentStore.read(location, 500_000, 10, range);
+
+        assertEquals(content.length, location.getSize());
+        assertArrayEquals(content, whole.toByteArray());
+        assertArrayEquals(Arrays.copyOfRange(content, 500_000, 500_010), range.toByteArray());
+    }
+
+    @Test
+    void testWriteAll() throws Exception {
+        List<ContentLocation> locations = contentStore.writeAll(List.of(new byte[]{1, 2, 3}, new byte[0], new byte[]{4}));
+
+        assertEquals(3, locations.size());
+        assertEquals(3, locations.stream().map(ContentLocation::getContentId).distinct().count());
+        assertEquals(List.of(3L, 0L, 1L), locations.stream().map(ContentLocation::getSize).toList());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        contentStore.read(locations.get(0), 1, 2, out);
+        assertArrayEquals(new byte[]{2, 3}, out.toByteArray());
+    }
+
+    @Test
+    void testDelete() throws Exception {
+        ContentLocation location = contentStore.write(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        contentStore.delete(location);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        contentStore.read(location, 0, 3, out);
+        assertEquals(0, out.size());
+    }
+}
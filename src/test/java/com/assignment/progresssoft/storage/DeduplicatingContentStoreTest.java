@@ -0,0 +1,131 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.dto.response.ContentStatsResponse;
+import com.assignment.progresssoft.enums.ContentEncoding;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.ContentBlobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DatabaseContentStore.class)
+class DeduplicatingContentStoreTest {
+
+    @Autowired
+    private DatabaseContentStore databaseContentStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContentBlobRepository contentBlobRepository;
+
+    private DeduplicatingContentStore contentStore;
+
+    @BeforeEach
+    void setUp() {
+        contentStore = new DeduplicatingContentStore(new CompressingContentStore(databaseContentStore,
+                new String[]{"txt"}, 16, 6, new SimpleMeterRegistry()), jdbcTemplate);
+    }
+
+    @Test
+    void testWrite_SharesIdenticalBodies() throws Exception {
+        byte[] content = "same body, twice".getBytes(StandardCharsets.UTF_8);
+
+        ContentLocation first = contentStore.write("pdf", content);
+        ContentLocation second = contentStore.write("pdf", content);
+        ContentLocation other = contentStore.write("pdf", "another body".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(first, second);
+        assertNotEquals(first.getContentId(), other.getContentId());
+        assertEquals(64, first.getHash().length());
+        assertEquals(2, countRows("document_contents"));
+        assertEquals(2, refCount(first));
+    }
+
+    @Test
+    void testWrite_StreamedDuplicateIsDeleted() throws Exception {
+        byte[] content = "streamed body, compressed twice".repeat(10).getBytes(StandardCharsets.UTF_8);
+
+        ContentLocation first = contentStore.write("txt", content);
+        ContentLocation second = contentStore.write("txt", -1, new ByteArrayInputStream(content));
+
+        assertEquals(first, second);
+        assertEquals(1, countRows("document_contents"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        contentStore.read(second, 0, second.getLength(), out);
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    void testWriteAll_SharesBodiesStoredBeforeAndWithinBatch() throws Exception {
+        byte[] stored = "stored before".getBytes(StandardCharsets.UTF_8);
+        byte[] repeated = "repeated within the batch, compressed".repeat(5).getBytes(StandardCharsets.UTF_8);
+        byte[] single = "single".getBytes(StandardCharsets.UTF_8);
+        ContentLocation before = contentStore.write("pdf", stored);
+
+        List<ContentLocation> locations = contentStore.writeAll(List.of("pdf", "txt", "txt", "pdf"),
+                List.of(stored, repeated, repeated, single));
+
+        assertEquals(before, locations.get(0));
+        assertEquals(locations.get(1), locations.get(2));
+        assertNotSame(locations.get(1), locations.get(2));
+        assertEquals(ContentEncoding.DEFLATE, locations.get(1).getEncoding());
+        assertEquals(3, countRows("document_contents"));
+        assertEquals(2, refCount(before));
+        assertEquals(2, refCount(locations.get(1)));
+        assertEquals(1, refCount(locations.get(3)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        contentStore.read(locations.get(2), 0, repeated.length, out);
+        assertArrayEquals(repeated, out.toByteArray());
+    }
+
+    @Test
+    void testDelete_FreesBodyWithLastReference() throws Exception {
+        byte[] content = "shared".getBytes(StandardCharsets.UTF_8);
+        ContentLocation location = contentStore.write("pdf", content);
+        contentStore.write("pdf", content);
+
+        contentStore.delete(location);
+
+        assertEquals(1, refCount(location));
+        assertEquals(1, countRows("document_contents"));
+
+        contentStore.delete(location);
+
+        assertEquals(0, countRows("content_blobs"));
+        assertEquals(0, countRows("document_contents"));
+    }
+
+    @Test
+    void testGetStats_ReportsSavedBytes() throws Exception {
+        byte[] content = new byte[1000];
+        for (int i = 0; i < 3; i++) {
+            contentStore.write("pdf", content);
+        }
+        contentStore.write("pdf", new byte[10]);
+
+        assertEquals(new ContentStatsResponse(2, 4, 1010, 2000, 3010), contentBlobRepository.getStats());
+    }
+
+    private int countRows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private int refCount(ContentLocation location) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM content_blobs WHERE content_hash = ?",
+                Integer.class, location.getHash());
+    }
+}
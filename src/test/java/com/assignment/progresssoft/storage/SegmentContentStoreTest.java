@@ -0,0 +1,197 @@
+package com.assignment.progresssoft.storage;
+
+import com.assignment.progresssoft.model.Document;
+import com.assignment.progresssoft.model.embedded.ContentLocation;
+import com.assignment.progresssoft.repository.DocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes and compacts outside a test transaction, as compaction only sees committed rows.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SegmentContentStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private SegmentContentStore contentStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        contentStore = new SegmentContentStore(directory, 10, 0.5, jdbcTemplate, transactionTemplate);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        contentStore.close();
+        documentRepository.deleteAll();
+    }
+
+    @Test
+    void testWriteAndReadRange() throws Exception {
+        ContentLocation first = contentStore.write(body("first body"));
+        ContentLocation second = contentStore.write(body("second"));
+
+        assertEquals(new ContentLocation(1, 0L, 10), first);
+        assertEquals(new ContentLocation(2, 0L, 6), second);
+        assertEquals("body", read(first, 6, 4));
+        assertEquals("second", read(second, 0, 6));
+    }
+
+    @Test
+    void testAppendsToOpenSegment() throws Exception {
+        ContentLocation first = contentStore.write(body("abc"));
+        ContentLocation second = contentStore.write(body("defgh"));
+
+        assertEquals(new ContentLocation(1, 3L, 5), second);
+        assertEquals("abc", read(first, 0, 3));
+        assertEquals("defgh", read(second, 0, 5));
+    }
+
+    @Test
+    void testCompact_MovesLiveBodiesAndDeletesSegment() throws Exception {
+        Document kept = save(contentStore.write(body("kept")));
+        ContentLocation original = kept.getContentLocation();
+        fillAndDelete();
+
+        contentStore.compact();
+        ContentLocation moved = documentRepository.findById(kept.getId()).orElseThrow().getContentLocation();
+
+        assertNotEquals(1, moved.getSegment());
+        assertEquals("kept", read(moved, 0, 4));
+        assertFalse(Files.exists(directory.resolve("segment-000001.dat")));
+        assertThrows(IOException.class, () -> read(original, 0, 4));
+    }
+
+    @Test
+    void testCompact_SkipsSegmentsWithUncommittedWrites() throws Exception {
+        Long id = transactionTemplate.execute(status -> {
+            try {
+                Document document = save(contentStore.write(body("uncommitted"))); // seals segment 1
+                CompletableFuture.runAsync(this::compact).join();
+                CompletableFuture.runAsync(this::compact).join();
+                assertTrue(Files.exists(directory.resolve("segment-000001.dat")));
+                return document.getId();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        contentStore.compact();
+        ContentLocation location = documentRepository.findById(id).orElseThrow().getContentLocation();
+
+        assertEquals(1, location.getSegment());
+        assertEquals("uncommitted", read(location, 0, 11));
+    }
+
+    @Test
+    void testCompact_DeletesSegmentOnceReadsInProgressEnd() throws Exception {
+        ContentLocation original = save(contentStore.write(body("kept"))).getContentLocation();
+        fillAndDelete();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) {
+                received.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                reading.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.write(b, off, len);
+            }
+        };
+        CompletableFuture<Void> download = CompletableFuture.runAsync(() -> {
+            try {
+                contentStore.read(original, 0, 4, slowClient);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        reading.await();
+
+        contentStore.compact();
+
+        assertTrue(Files.exists(directory.resolve("segment-000001.dat")));
+        resume.countDown();
+        download.join();
+        assertEquals("kept", received.toString(StandardCharsets.UTF_8));
+        assertFalse(Files.exists(directory.resolve("segment-000001.dat")));
+    }
+
+    /**
+     * Fills segment 1 past its 10 bytes with a body whose document is deleted, leaving it mostly dead.
+     */
+    private void fillAndDelete() throws IOException {
+        Document deleted = save(contentStore.write(body("deleted!")));
+        transactionTemplate.executeWithoutResult(status -> documentRepository.deleteDocumentById(deleted.getId()));
+    }
+
+    private void compact() {
+        try {
+            contentStore.compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Document save(ContentLocation location) {
+        Document document = new Document("Doc", "txt", new HashSet<>());
+        document.setContentLocation(location);
+        return documentRepository.saveAndFlush(document);
+    }
+
+    private String read(ContentLocation location, long offset, long length) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        contentStore.read(location, offset, length, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}